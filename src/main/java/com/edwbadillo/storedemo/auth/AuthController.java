@@ -3,12 +3,15 @@ package com.edwbadillo.storedemo.auth;
 import com.edwbadillo.storedemo.auth.dto.AuthenticationDetails;
 import com.edwbadillo.storedemo.auth.dto.JWTResponse;
 import com.edwbadillo.storedemo.auth.dto.LoginRequest;
+import com.edwbadillo.storedemo.auth.dto.RefreshRequest;
+import com.edwbadillo.storedemo.common.SimpleMessageResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -36,10 +39,30 @@ public class AuthController {
                     responseCode = "403",
                     description = "Invalid credentials or inactive account",
                     content = { @Content(schema = @Schema(), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Too many login attempts for the account or the client",
+                    content = { @Content(schema = @Schema(implementation = SimpleMessageResponse.class), mediaType = "application/json") }),
     })
     @PostMapping("/customers/login")
-    public JWTResponse loginCustomer(@Valid @RequestBody LoginRequest loginRequest) {
-        return authService.loginCustomer(loginRequest);
+    public JWTResponse loginCustomer(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        return authService.loginCustomer(loginRequest, request.getRemoteAddr());
+    }
+
+    @Operation(summary = "Refresh customer tokens", description = "Get new tokens for a customer with a refresh token, the refresh token can only be used once.")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Access and refresh tokens issued" ,
+                    content = { @Content(schema = @Schema(implementation = JWTResponse.class), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Invalid, expired or already used refresh token, or inactive account",
+                    content = { @Content(schema = @Schema(), mediaType = "application/json") }),
+    })
+    @PostMapping("/refresh")
+    public JWTResponse refreshCustomer(@Valid @RequestBody RefreshRequest refreshRequest) {
+        return authService.refreshCustomer(refreshRequest);
     }
 
     @Operation(summary = "Get authentication details", description = "Get information about the authenticated user")
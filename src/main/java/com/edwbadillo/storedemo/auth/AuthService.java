@@ -3,6 +3,7 @@ package com.edwbadillo.storedemo.auth;
 import com.edwbadillo.storedemo.auth.dto.AuthenticationDetails;
 import com.edwbadillo.storedemo.auth.dto.JWTResponse;
 import com.edwbadillo.storedemo.auth.dto.LoginRequest;
+import com.edwbadillo.storedemo.auth.dto.RefreshRequest;
 
 /**
  * Service for login customers or admins
@@ -15,9 +16,19 @@ public interface AuthService {
      * Authenticates a customer and create a JWT.
      *
      * @param loginRequest the customer credentials
-     * @return access token
+     * @param clientIp the IP address of the client, used to limit the login attempts
+     * @return access and refresh tokens
      */
-    JWTResponse loginCustomer(LoginRequest loginRequest);
+    JWTResponse loginCustomer(LoginRequest loginRequest, String clientIp);
+
+    /**
+     * Creates new tokens for a customer from a refresh token, the refresh token
+     * can only be used once.
+     *
+     * @param refreshRequest the refresh token
+     * @return access and refresh tokens
+     */
+    JWTResponse refreshCustomer(RefreshRequest refreshRequest);
 
     /**
      * Get information about the authenticated user
@@ -3,12 +3,19 @@ package com.edwbadillo.storedemo.auth;
 import com.edwbadillo.storedemo.auth.dto.AuthenticationDetails;
 import com.edwbadillo.storedemo.auth.dto.JWTResponse;
 import com.edwbadillo.storedemo.auth.dto.LoginRequest;
+import com.edwbadillo.storedemo.auth.dto.RefreshRequest;
 import com.edwbadillo.storedemo.auth.jwt.JWT;
+import com.edwbadillo.storedemo.auth.jwt.JwtDetails;
 import com.edwbadillo.storedemo.auth.jwt.JwtService;
+import com.edwbadillo.storedemo.auth.ratelimit.LoginRateLimiter;
+import com.edwbadillo.storedemo.auth.refresh.RefreshTokenStore;
+import com.edwbadillo.storedemo.auth.userdetails.CustomerPrincipalCache;
 import com.edwbadillo.storedemo.auth.userdetails.CustomerUserDetails;
 import com.edwbadillo.storedemo.customer.Customer;
+import com.edwbadillo.storedemo.customer.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -28,8 +35,23 @@ public class AuthServiceImpl implements AuthService {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private RefreshTokenStore refreshTokenStore;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerPrincipalCache customerPrincipalCache;
+
     @Override
-    public JWTResponse loginCustomer(LoginRequest loginRequest) {
+    public JWTResponse loginCustomer(LoginRequest loginRequest, String clientIp) {
+        // Rejects the attempt before loading the customer and hashing the password
+        loginRateLimiter.acquire(loginRequest.email(), clientIp);
+
         String email = "CUSTOMER#" + loginRequest.email();
         String password = loginRequest.password();
 
@@ -37,7 +59,32 @@ public class AuthServiceImpl implements AuthService {
                 .authenticate(new UsernamePasswordAuthenticationToken(email, password));
 
         CustomerUserDetails customerUserDetails = (CustomerUserDetails) authentication.getPrincipal();
-        return jwtService.getToken(customerUserDetails.getCustomer());
+        return issueTokens(customerUserDetails.getCustomer());
+    }
+
+    @Override
+    public JWTResponse refreshCustomer(RefreshRequest refreshRequest) {
+        String refreshToken = refreshRequest.refreshToken();
+
+        JwtDetails details = jwtService.parseRefreshToken(refreshToken);
+        if (details == null || !details.isCustomer() || !refreshTokenStore.consume(refreshToken, details.subject())) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+
+        // No password check here, only a (usually cached) lookup to reject disabled customers
+        CustomerUserDetails customerUserDetails = customerPrincipalCache
+                .get(details.subject(), customerRepository::findById)
+                .filter(CustomerUserDetails::isEnabled)
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+
+        return issueTokens(customerUserDetails.getCustomer());
+    }
+
+    private JWTResponse issueTokens(Customer customer) {
+        String accessToken = jwtService.getToken(customer).accessToken();
+        String refreshToken = jwtService.getRefreshToken(customer);
+        refreshTokenStore.save(refreshToken, customer.getId());
+        return new JWTResponse(accessToken, refreshToken);
     }
 
     @Override
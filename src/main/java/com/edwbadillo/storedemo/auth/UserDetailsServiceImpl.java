@@ -1,10 +1,12 @@
 package com.edwbadillo.storedemo.auth;
 
+import com.edwbadillo.storedemo.auth.userdetails.CustomerEmailFilter;
 import com.edwbadillo.storedemo.auth.userdetails.CustomerUserDetails;
 import com.edwbadillo.storedemo.customer.Customer;
 import com.edwbadillo.storedemo.customer.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
@@ -12,16 +14,20 @@ import org.springframework.stereotype.Component;
 import java.util.Optional;
 
 /**
- * Service for loading user details from customers or admins
+ * Service for loading user details from customers or admins, it also stores
+ * the passwords rehashed on login by the authentication provider.
  *
  * @author edwbadillo
  */
 @Component
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private CustomerEmailFilter customerEmailFilter;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         // The username can be either a customer email or an admin email
@@ -39,9 +45,25 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         throw new UsernameNotFoundException("Admin not found, not implemented yet");
     }
 
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (user instanceof CustomerUserDetails customerUserDetails) {
+            Customer customer = customerUserDetails.getCustomer();
+            customerRepository.updatePassword(customer.getId(), newPassword);
+            customer.setPassword(newPassword);
+        }
+        return user;
+    }
+
     private UserDetails loadCustomer(String email) {
+        // Most unknown emails are answered without querying the database
+        if (!customerEmailFilter.mightExist(email)) {
+            throw new UsernameNotFoundException("Customer not found");
+        }
+
         Optional<Customer> customer = customerRepository.findByEmail(email);
         if (customer.isEmpty()) {
+            customerEmailFilter.recordFalsePositive();
             throw new UsernameNotFoundException("Customer not found");
         }
 
@@ -6,5 +6,10 @@ package com.edwbadillo.storedemo.auth.dto;
  * @author edwbadillo
  */
 public record JWTResponse(
-    String accessToken
-) { }
+    String accessToken,
+    String refreshToken
+) {
+    public JWTResponse(String accessToken) {
+        this(accessToken, null);
+    }
+}
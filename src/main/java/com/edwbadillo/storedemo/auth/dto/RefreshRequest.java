@@ -0,0 +1,13 @@
+package com.edwbadillo.storedemo.auth.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Request for getting new tokens with a refresh token.
+ *
+ * @author edwbadillo
+ */
+public record RefreshRequest(
+    @NotBlank
+    String refreshToken
+) { }
@@ -9,7 +9,10 @@ public final class JWT {
     public static final String CUSTOMER_ROLE = "customer";
     public static final String USER_ADMIN_ROLE = "user_sys";
     public static final String ACCESS_TOKEN = "access_token";
+    public static final String REFRESH_TOKEN = "refresh_token";
     public static final String ROLE_CLAIM = "role";
     public static final String TOKEN_TYPE_CLAIM = "type";
     public static final String SUBJECT_CLAIM = "sub";
+    public static final String ID_CLAIM = "jti";
+    public static final String NAME_CLAIM = "name";
 }
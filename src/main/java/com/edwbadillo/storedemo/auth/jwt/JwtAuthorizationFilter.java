@@ -1,6 +1,9 @@
 package com.edwbadillo.storedemo.auth.jwt;
 
+import com.edwbadillo.storedemo.auth.userdetails.CustomerPrincipalCache;
 import com.edwbadillo.storedemo.auth.userdetails.CustomerUserDetails;
+import com.edwbadillo.storedemo.auth.userdetails.DisabledCustomerDenyList;
+import com.edwbadillo.storedemo.config.PublicRoutes;
 import com.edwbadillo.storedemo.customer.CustomerRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -17,7 +20,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 /**
- * Filter for validating tokens in incoming requests.
+ * Filter for validating tokens in incoming requests, requests to public routes
+ * ({@link PublicRoutes}) are not filtered.
  *
  * @author edwbadillo
  */
@@ -27,17 +31,36 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private JwtCache jwtCache;
+
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private CustomerPrincipalCache customerPrincipalCache;
+
+    // Only present with jwt.stateless-principal enabled
+    @Autowired(required = false)
+    private DisabledCustomerDenyList disabledCustomerDenyList;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return PublicRoutes.MATCHER.matches(request);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String token = getToken(request);
-        JwtDetails jwtDetails = jwtService.parseToken(token);
+        JwtDetails jwtDetails = jwtCache.get(token, jwtService::parseToken);
 
         if(jwtDetails != null){
             if (jwtDetails.isCustomer()) {
-                loadCustomer(jwtDetails.subject(), request);
+                if (jwtService.isStatelessPrincipal() && jwtDetails.name() != null) {
+                    loadCustomerFromClaims(jwtDetails, request);
+                } else {
+                    loadCustomer(jwtDetails.subject(), request);
+                }
             }
         }
 
@@ -53,8 +76,18 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
     }
 
     private void loadCustomer(Integer customerId, HttpServletRequest request) {
-        customerRepository.findById(customerId)
-                .ifPresent(customer -> setAuthenticated(new CustomerUserDetails(customer), request));
+        customerPrincipalCache.get(customerId, customerRepository::findById)
+                .filter(UserDetails::isEnabled)
+                .ifPresent(userDetails -> setAuthenticated(userDetails, request));
+    }
+
+    /**
+     * Builds the principal from the token claims, without database lookups.
+     * Disabled customers are rejected through the deny-list.
+     */
+    private void loadCustomerFromClaims(JwtDetails jwtDetails, HttpServletRequest request) {
+        if (disabledCustomerDenyList.isDisabled(jwtDetails.subject())) return;
+        setAuthenticated(CustomerUserDetails.fromClaims(jwtDetails.subject(), jwtDetails.name()), request);
     }
 
     private void setAuthenticated(UserDetails userDetails, HttpServletRequest request) {
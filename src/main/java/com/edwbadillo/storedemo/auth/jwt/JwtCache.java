@@ -0,0 +1,94 @@
+package com.edwbadillo.storedemo.auth.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of already verified tokens, so a client sending the same bearer
+ * token again and again skips the signature check and the claims parsing.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the token (raw tokens are never kept in memory),
+ * expire together with the token and are evicted by size (LRU-like) when the cache is full.
+ * Hits, misses and evictions are published as the {@code cache.*} metrics with {@code cache=jwt}.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class JwtCache {
+
+    private final Cache<String, JwtDetails> cache;
+
+    public JwtCache(@Value("${jwt.cache.max-size}") long maxSize, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt");
+    }
+
+    /**
+     * Gets the details of a token, verifying it only if it is not cached yet.
+     *
+     * @param token    the raw token, can be null
+     * @param verifier function that verifies and parses the token, returns null if it is invalid
+     * @return the token details or null if the token is absent, invalid or expired
+     */
+    public JwtDetails get(String token, Function<String, JwtDetails> verifier) {
+        if (token == null) return null;
+
+        JwtDetails details = cache.get(digest(token), key -> verifier.apply(token));
+        if (details == null || details.isExpired()) return null;
+        return details;
+    }
+
+    /**
+     * Removes all the cached tokens.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Expires each entry at the expiration time of its token.
+     */
+    private static class TokenExpiry implements Expiry<String, JwtDetails> {
+
+        @Override
+        public long expireAfterCreate(String key, JwtDetails details, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), details.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtDetails details, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, details, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtDetails details, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
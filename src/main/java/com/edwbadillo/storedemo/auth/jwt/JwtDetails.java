@@ -1,11 +1,17 @@
 package com.edwbadillo.storedemo.auth.jwt;
 
+import java.time.Instant;
+
 /**
  * Represents the user information from a validated JWT.
+ * <p>
+ * The name is only present in tokens issued with {@code jwt.stateless-principal} enabled.
  */
 public record JwtDetails(
     Integer subject,
-    String role
+    String role,
+    String name,
+    Instant expiresAt
 ) {
     public boolean isCustomer() {
         return role.equals(JWT.CUSTOMER_ROLE);
@@ -14,4 +20,8 @@ public record JwtDetails(
     public boolean isAdmin() {
         return role.equals(JWT.USER_ADMIN_ROLE);
     }
+
+    public boolean isExpired() {
+        return expiresAt.isBefore(Instant.now());
+    }
 }
@@ -0,0 +1,78 @@
+package com.edwbadillo.storedemo.auth.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Cheap checks done before handing a token to the JJWT parser, so malformed or expired tokens
+ * are rejected without creating exceptions (and their stack traces).
+ * <p>
+ * The checks can only reject tokens, the parser stays the one that accepts them:
+ * <ol>
+ *     <li>the token has three non-empty Base64URL segments and a bounded length,</li>
+ *     <li>the {@code exp} claim is in the future.</li>
+ * </ol>
+ * The signature is only verified by the parser, a valid token computes the HMAC once. Forged
+ * tokens are rejected by the parser.
+ *
+ * @author edwbadillo
+ */
+class JwtPrecheck {
+
+    private static final int MAX_TOKEN_LENGTH = 4096;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Checks if a token can be valid.
+     *
+     * @param token the token to check
+     * @return false if the token is malformed or is expired
+     */
+    boolean accepts(String token) {
+        int length = token.length();
+        if (length == 0 || length > MAX_TOKEN_LENGTH) return false;
+
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = token.indexOf('.', headerEnd + 1);
+        if (headerEnd < 0 || payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) return false;
+
+        if (!isSegment(token, 0, headerEnd)
+                || !isSegment(token, headerEnd + 1, payloadEnd)
+                || !isSegment(token, payloadEnd + 1, length)) {
+            return false;
+        }
+
+        return isNotExpired(token, headerEnd, payloadEnd);
+    }
+
+    private static boolean isNotExpired(String token, int headerEnd, int payloadEnd) {
+        byte[] payload = Base64.getUrlDecoder().decode(token.substring(headerEnd + 1, payloadEnd));
+        try {
+            // Not verified yet, it can only be used to reject the token
+            JsonNode expiration = OBJECT_MAPPER.readTree(payload).get("exp");
+            return expiration != null && expiration.asLong() * 1000 > System.currentTimeMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks that a segment is not empty, only has Base64URL characters and
+     * has a length that can be decoded.
+     */
+    private static boolean isSegment(String token, int start, int end) {
+        int length = end - start;
+        if (length == 0 || length % 4 == 1) return false;
+
+        for (int i = start; i < end; i++) {
+            char c = token.charAt(i);
+            boolean base64Url = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')
+                    || (c >= '0' && c <= '9') || c == '-' || c == '_';
+            if (!base64Url) return false;
+        }
+        return true;
+    }
+}
@@ -3,20 +3,40 @@ package com.edwbadillo.storedemo.auth.jwt;
 import com.edwbadillo.storedemo.auth.dto.JWTResponse;
 import com.edwbadillo.storedemo.customer.Customer;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 
 /**
  * Service for managing JWT.
+ * <p>
+ * The signing keys and the parser are built once at startup and shared by all requests.
+ * Tokens are signed with the current key and carry its id in the {@code kid} header, tokens
+ * are verified with the key matching their {@code kid}, so keys can be rotated node by node:
+ * first add the new key to {@code jwt.previous-secrets} everywhere, then promote it to
+ * {@code jwt.secret} / {@code jwt.key-id} and keep the old one as a previous secret until
+ * the tokens signed with it expire.
+ * <p>
+ * Two kinds of tokens are issued, told apart by the {@link JWT#TOKEN_TYPE_CLAIM} claim: short-lived
+ * access tokens sent on every request, and long-lived refresh tokens only accepted by the refresh
+ * endpoint to get a new pair of tokens without sending the password again.
  *
  * @author edwbadillo
  */
@@ -32,34 +52,111 @@ public class JwtService {
     @Value("${jwt.secret}")
     private String secretKey;
 
+    /**
+     * The id (kid header) of the secret key used to sign JWT tokens.
+     */
+    @Value("${jwt.key-id}")
+    private String keyId;
+
+    /**
+     * Keys that are still accepted to verify tokens but no longer used to sign them,
+     * with the format {@code kid:secret}.
+     */
+    @Value("${jwt.previous-secrets}")
+    private List<String> previousSecrets;
+
     @Value("${jwt.expiration-minutes}")
     private int jwtExpirationMinutes;
 
+    @Value("${jwt.refresh-expiration-days}")
+    private int refreshExpirationDays;
+
+    /**
+     * Whether the tokens carry the claims needed to build the principal without a database lookup.
+     */
+    @Value("${jwt.stateless-principal}")
+    private boolean statelessPrincipal;
+
+    private Key signKey;
+    private Map<String, Key> verificationKeys;
+    private JwtParser parser;
+    private JwtPrecheck precheck;
 
     /**
-     * Parses a JWT token if it is valid.
+     * Builds the keys and the parser, the parser is immutable and thread-safe.
+     */
+    @PostConstruct
+    void init() {
+        signKey = buildKey(secretKey);
+
+        Map<String, Key> keys = new HashMap<>();
+        keys.put(keyId, signKey);
+        for (String previousSecret : previousSecrets) {
+            String[] parts = previousSecret.split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalStateException("Invalid jwt.previous-secrets entry, expected kid:secret");
+            }
+            keys.putIfAbsent(parts[0].trim(), buildKey(parts[1].trim()));
+        }
+        verificationKeys = Map.copyOf(keys);
+        precheck = new JwtPrecheck();
+
+        parser = Jwts
+            .parserBuilder()
+            .setSigningKeyResolver(new KeyIdResolver())
+            .build();
+    }
+
+    public boolean isStatelessPrincipal() {
+        return statelessPrincipal;
+    }
+
+    /**
+     * Parses an access token if it is valid.
+     * <p>
+     * Malformed and expired tokens are rejected by {@link JwtPrecheck} before parsing.
      *
      * @param token the token to parse
-     * @return the information (subject and role) from the token, or null if the token is invalid
+     * @return the information (subject, role, name and expiration) from the token, or null if the token
+     * is invalid or is not an access token
      */
     public JwtDetails parseToken(String token) {
-        if (token == null)  return null;
+        return parse(token, JWT.ACCESS_TOKEN);
+    }
 
-        Claims body = Jwts
-            .parserBuilder()
-            .setSigningKey(getSignKey())
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+    /**
+     * Parses a refresh token if it is valid, it does not check if the token was already used or revoked.
+     *
+     * @param token the token to parse
+     * @return the information (subject, role and expiration) from the token, or null if the token
+     * is invalid or is not a refresh token
+     */
+    public JwtDetails parseRefreshToken(String token) {
+        return parse(token, JWT.REFRESH_TOKEN);
+    }
+
+    private JwtDetails parse(String token, String type) {
+        if (token == null || !precheck.accepts(token))  return null;
+
+        Claims body;
+        try {
+            body = parser
+                .parseClaimsJws(token)
+                .getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
 
         Date expiration = body.getExpiration();
 
         if (expiration.before(new Date())) return null;
+        if (!type.equals(body.get(JWT.TOKEN_TYPE_CLAIM))) return null;
 
         String subject = (String) body.get(JWT.SUBJECT_CLAIM);
         String role = (String) body.get(JWT.ROLE_CLAIM);
+        String name = (String) body.get(JWT.NAME_CLAIM);
 
-        return new JwtDetails(Integer.parseInt(subject), role);
+        return new JwtDetails(Integer.parseInt(subject), role, name, expiration.toInstant());
     }
 
     /**
@@ -72,32 +169,72 @@ public class JwtService {
         HashMap<String, Object> claims = new HashMap<>();
         claims.put(JWT.ROLE_CLAIM, JWT.CUSTOMER_ROLE);
         claims.put(JWT.TOKEN_TYPE_CLAIM, JWT.ACCESS_TOKEN);
-        String jwt = generateToken(String.valueOf(customer.getId()), claims);
+        if (statelessPrincipal) {
+            claims.put(JWT.NAME_CLAIM, customer.getName());
+        }
+        String jwt = generateToken(String.valueOf(customer.getId()), claims, new Date(), 1000L * 60 * jwtExpirationMinutes);
         return new JWTResponse(jwt);
     }
 
+    /**
+     * Creates a refresh token for a customer, each token has a random id, so two
+     * tokens issued at the same time for the same customer are different.
+     *
+     * @param customer the customer
+     * @return the token
+     */
+    public String getRefreshToken(Customer customer) {
+        HashMap<String, Object> claims = new HashMap<>();
+        claims.put(JWT.ROLE_CLAIM, JWT.CUSTOMER_ROLE);
+        claims.put(JWT.TOKEN_TYPE_CLAIM, JWT.REFRESH_TOKEN);
+        claims.put(JWT.ID_CLAIM, UUID.randomUUID().toString());
+        return generateToken(String.valueOf(customer.getId()), claims, new Date(), 1000L * 60 * 60 * 24 * refreshExpirationDays);
+    }
+
     /**
      * Generates a JWT token.
      *
      * @param subject the subject of the token, usually the id of the customer or user
      * @param claims custom claims to include in the token (token type, role, etc.)
+     * @param issuedAt the issue date of the token
+     * @param validityMillis time the token is valid from its issue date
      * @return Token generated
      */
-    private String generateToken(String subject, HashMap<String, Object> claims) {
+    private String generateToken(String subject, HashMap<String, Object> claims, Date issuedAt, long validityMillis) {
         return Jwts.builder()
+            .setHeaderParam(JwsHeader.KEY_ID, keyId)
             .setClaims(claims)
             .setSubject(subject)
-            .setIssuedAt(new Date())
-            .setExpiration(new Date((new Date()).getTime() + 1000L * 60 * jwtExpirationMinutes))
-            .signWith(getSignKey(), SignatureAlgorithm.HS256)
+            .setIssuedAt(issuedAt)
+            .setExpiration(new Date(issuedAt.getTime() + validityMillis))
+            .signWith(signKey, SignatureAlgorithm.HS256)
             .compact();
     }
 
     /**
-     * Gets the key used to sign JWT tokens.
+     * Builds a key used to sign or verify JWT tokens.
      */
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+    private static Key buildKey(String secret) {
+        byte[] keyBytes = Decoders.BASE64.decode(secret);
         return Keys.hmacShaKeyFor(keyBytes);
     }
+
+    /**
+     * Resolves the verification key from the kid header, tokens issued before
+     * the kid header was added are verified with the current key.
+     */
+    private class KeyIdResolver extends SigningKeyResolverAdapter {
+
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            String kid = header.getKeyId();
+            if (kid == null) return signKey;
+
+            Key key = verificationKeys.get(kid);
+            if (key == null) {
+                throw new SignatureException("Unknown signing key " + kid);
+            }
+            return key;
+        }
+    }
 }
@@ -0,0 +1,165 @@
+package com.edwbadillo.storedemo.auth.password;
+
+import com.edwbadillo.storedemo.exception.ServiceBusyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose cost factor is calibrated at startup, so hashing a password
+ * takes about the target time on the current hardware.
+ * <p>
+ * Weaker hashes are reported by {@link #upgradeEncoding(String)}, so they are rehashed on the next
+ * successful login: the ones under the configured minimum cost, shared by all the nodes, and the
+ * ones more than one round under the calibrated cost. Nodes calibrate on their own and may differ
+ * by a round, they don't rehash each other's hashes; stronger hashes are never downgraded, a node
+ * calibrated under load doesn't weaken the passwords. Hashing runs on the calling thread but only a
+ * few threads hash at the same time: a burst of logins waits for its turn instead of taking the CPU
+ * of the threads serving other requests, and it is rejected with {@link ServiceBusyException} once
+ * too many are waiting.
+ *
+ * @author edwbadillo
+ */
+public class AdaptiveBCryptPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBCryptPasswordEncoder.class);
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final int MIN_STRENGTH = 4;
+    private static final int MAX_STRENGTH = 31;
+
+    private final int strength;
+
+    /**
+     * Hashes with a lower cost are upgraded.
+     */
+    private final int upgradeBelow;
+
+    private final PasswordEncoder delegate;
+
+    /**
+     * Permits of the threads hashing or waiting to hash, taken without waiting.
+     */
+    private final Semaphore admitted;
+
+    /**
+     * Permits of the threads hashing.
+     */
+    private final Semaphore hashing;
+
+    /**
+     * @param targetMillis target time to hash a password
+     * @param minStrength  lowest cost accepted, even if hashing takes longer than the target
+     * @param maxStrength  highest cost accepted, even if hashing takes less than the target
+     * @param threads      threads that can hash at the same time
+     * @param queueSize    threads that can wait to hash
+     */
+    public AdaptiveBCryptPasswordEncoder(long targetMillis, int minStrength, int maxStrength, int threads, int queueSize) {
+        this(calibratedStrength(targetMillis, minStrength, maxStrength), minStrength, threads, queueSize);
+        log.info("BCrypt strength calibrated to {} (target {} ms)", strength, targetMillis);
+    }
+
+    private AdaptiveBCryptPasswordEncoder(int strength, int minStrength, int threads, int queueSize) {
+        this(strength, minStrength, new BCryptPasswordEncoder(strength), threads, queueSize);
+    }
+
+    AdaptiveBCryptPasswordEncoder(int strength, int minStrength, PasswordEncoder delegate, int threads, int queueSize) {
+        if (threads < 1 || queueSize < 0) {
+            throw new IllegalArgumentException("Invalid hashing limits " + threads + "/" + queueSize);
+        }
+        this.strength = strength;
+        this.upgradeBelow = Math.max(minStrength, strength - 1);
+        this.delegate = delegate;
+        this.admitted = new Semaphore(threads + queueSize);
+        this.hashing = new Semaphore(threads, true);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) return false;
+
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.find()) return false;
+
+        return Integer.parseInt(matcher.group(1)) < upgradeBelow;
+    }
+
+    /**
+     * Gets how many threads are waiting to hash.
+     */
+    int waiting() {
+        return hashing.getQueueLength();
+    }
+
+    private <T> T execute(Supplier<T> task) {
+        if (!admitted.tryAcquire()) {
+            throw new ServiceBusyException("Too many login requests, try again later");
+        }
+
+        try {
+            hashing.acquire();
+        } catch (InterruptedException e) {
+            admitted.release();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to hash a password", e);
+        }
+
+        try {
+            return task.get();
+        } finally {
+            hashing.release();
+            admitted.release();
+        }
+    }
+
+    private static int calibratedStrength(long targetMillis, int minStrength, int maxStrength) {
+        if (minStrength < MIN_STRENGTH || maxStrength > MAX_STRENGTH || minStrength > maxStrength) {
+            throw new IllegalArgumentException("Invalid BCrypt strength range " + minStrength + "-" + maxStrength);
+        }
+        return calibrate(targetMillis, minStrength, maxStrength);
+    }
+
+    /**
+     * Measures the hashing time with the minimum strength and increases it while the
+     * time stays under the target (each extra round doubles the time).
+     */
+    private static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        encoder.encode("calibration"); // warm up
+
+        long nanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            nanos = Math.min(nanos, System.nanoTime() - start);
+        }
+
+        int result = minStrength;
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        while (result < maxStrength && nanos * 2 <= targetNanos) {
+            result++;
+            nanos *= 2;
+        }
+        return result;
+    }
+}
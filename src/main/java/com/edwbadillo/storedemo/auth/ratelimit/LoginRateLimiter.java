@@ -0,0 +1,104 @@
+package com.edwbadillo.storedemo.auth.ratelimit;
+
+import com.edwbadillo.storedemo.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the login attempts per account (email) and per client IP address, so
+ * credential stuffing bursts are rejected before loading the customer or hashing
+ * the password.
+ * <p>
+ * Attempts are counted with token buckets (see {@link TokenBucketLimiter}), the IP
+ * bucket is checked first so a single client cannot drain the buckets of many accounts
+ * for free. Allowed and rejected attempts are published as the {@code auth.login.attempts}
+ * metric, tagged by {@code result} and by the {@code limit} that rejected them.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final TokenBucketLimiter emailLimiter;
+    private final TokenBucketLimiter ipLimiter;
+
+    private final Counter allowed;
+    private final Counter rejectedByEmail;
+    private final Counter rejectedByIp;
+
+    public LoginRateLimiter(
+            @Value("${auth.login-limit.email.capacity}") int emailCapacity,
+            @Value("${auth.login-limit.email.refill-seconds}") long emailRefillSeconds,
+            @Value("${auth.login-limit.ip.capacity}") int ipCapacity,
+            @Value("${auth.login-limit.ip.refill-seconds}") long ipRefillSeconds,
+            @Value("${auth.login-limit.stripes}") int stripes,
+            @Value("${auth.login-limit.max-keys}") int maxKeys,
+            MeterRegistry meterRegistry
+    ) {
+        this.emailLimiter = new TokenBucketLimiter(
+                emailCapacity, emailRefillSeconds, TimeUnit.SECONDS, stripes, maxKeys, System::nanoTime);
+        this.ipLimiter = new TokenBucketLimiter(
+                ipCapacity, ipRefillSeconds, TimeUnit.SECONDS, stripes, maxKeys, System::nanoTime);
+
+        this.allowed = attemptsCounter(meterRegistry, "allowed", "none");
+        this.rejectedByEmail = attemptsCounter(meterRegistry, "rejected", "email");
+        this.rejectedByIp = attemptsCounter(meterRegistry, "rejected", "ip");
+        Gauge.builder("auth.login.buckets", emailLimiter, TokenBucketLimiter::size)
+                .tag("limit", "email")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.buckets", ipLimiter, TokenBucketLimiter::size)
+                .tag("limit", "ip")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers a login attempt.
+     *
+     * @param email    the email used to login
+     * @param clientIp the IP address of the client
+     * @throws TooManyRequestsException if the account or the client has no attempts left
+     */
+    public void acquire(String email, String clientIp) {
+        if (!ipLimiter.tryAcquire(clientIp)) {
+            rejectedByIp.increment();
+            throw new TooManyRequestsException(
+                    "Too many login attempts, try again later",
+                    ipLimiter.secondsUntilAvailable(clientIp)
+            );
+        }
+
+        String account = email.toLowerCase(Locale.ROOT);
+        if (!emailLimiter.tryAcquire(account)) {
+            rejectedByEmail.increment();
+            throw new TooManyRequestsException(
+                    "Too many login attempts for this account, try again later",
+                    emailLimiter.secondsUntilAvailable(account)
+            );
+        }
+
+        allowed.increment();
+    }
+
+    /**
+     * Drops the buckets that are full again, they are recreated on the next attempt.
+     */
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void evictIdle() {
+        emailLimiter.evictIdle();
+        ipLimiter.evictIdle();
+    }
+
+    private static Counter attemptsCounter(MeterRegistry meterRegistry, String result, String limit) {
+        return Counter.builder("auth.login.attempts")
+                .tag("result", result)
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+}
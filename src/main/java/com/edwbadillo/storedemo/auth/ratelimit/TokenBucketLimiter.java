@@ -0,0 +1,170 @@
+package com.edwbadillo.storedemo.auth.ratelimit;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by an arbitrary string (an email, an IP address...).
+ * <p>
+ * Each bucket holds up to {@code capacity} tokens and is refilled continuously at
+ * {@code capacity / refillPeriod}; an attempt takes one token and is rejected when
+ * the bucket is empty.
+ * <p>
+ * The buckets are split in stripes, each one a small access-ordered map guarded by its
+ * own lock, so concurrent attempts with different keys rarely contend. A bucket idle
+ * for a whole refill period is full again, which is the same as having no bucket, so
+ * those buckets are evicted by {@link #evictIdle()}. Each stripe also has a maximum size
+ * and drops its least recently used bucket when it is exceeded, keeping memory bounded
+ * even with millions of distinct keys.
+ *
+ * @author edwbadillo
+ */
+class TokenBucketLimiter {
+
+    private final int capacity;
+    private final long refillPeriodNanos;
+    private final double nanosPerToken;
+    private final LongSupplier clock;
+    private final Stripe[] stripes;
+
+    /**
+     * @param capacity      maximum attempts in a burst
+     * @param refillPeriod  time to refill an empty bucket
+     * @param stripes       number of independent locks, rounded up to a power of two
+     * @param maxKeys       maximum buckets kept in memory
+     * @param clock         source of nanoseconds, {@link System#nanoTime()} outside tests
+     */
+    TokenBucketLimiter(int capacity, long refillPeriod, TimeUnit unit, int stripes, int maxKeys, LongSupplier clock) {
+        if (capacity < 1 || refillPeriod < 1 || stripes < 1 || maxKeys < 1) {
+            throw new IllegalArgumentException("Invalid token bucket settings");
+        }
+        this.capacity = capacity;
+        this.refillPeriodNanos = unit.toNanos(refillPeriod);
+        this.nanosPerToken = (double) refillPeriodNanos / capacity;
+        this.clock = clock;
+
+        int stripeCount = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        int maxKeysPerStripe = Math.max(1, maxKeys / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(maxKeysPerStripe);
+        }
+    }
+
+    /**
+     * Takes a token from the bucket of the key.
+     *
+     * @param key the key of the bucket
+     * @return false if the bucket is empty and the attempt must be rejected
+     */
+    boolean tryAcquire(String key) {
+        Stripe stripe = stripeOf(key);
+        long now = clock.getAsLong();
+
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            }
+            return bucket.tryTake(now);
+        }
+    }
+
+    /**
+     * Seconds until the bucket of the key has a token again, 0 if it has one now.
+     */
+    long secondsUntilAvailable(String key) {
+        Stripe stripe = stripeOf(key);
+        long now = clock.getAsLong();
+
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) return 0;
+
+            bucket.refill(now);
+            if (bucket.tokens >= 1) return 0;
+            double nanos = (1 - bucket.tokens) * nanosPerToken;
+            return Math.max(1, (long) Math.ceil(nanos / TimeUnit.SECONDS.toNanos(1)));
+        }
+    }
+
+    /**
+     * Removes the buckets that have been idle for a whole refill period.
+     * <p>
+     * Maps are in access order, so each stripe is scanned from its least recently used
+     * bucket and the scan stops at the first one still in use.
+     */
+    void evictIdle() {
+        long now = clock.getAsLong();
+
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Bucket> iterator = stripe.buckets.values().iterator();
+                while (iterator.hasNext()) {
+                    if (now - iterator.next().lastRefill < refillPeriodNanos) break;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of buckets kept in memory.
+     */
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.buckets.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeOf(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    private static class Stripe {
+        private final LinkedHashMap<String, Bucket> buckets;
+
+        Stripe(int maxKeys) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+    }
+
+    private class Bucket {
+        private double tokens;
+        private long lastRefill;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefill = now;
+        }
+
+        void refill(long now) {
+            long elapsed = now - lastRefill;
+            if (elapsed <= 0) return;
+            tokens = Math.min(capacity, tokens + elapsed / nanosPerToken);
+            lastRefill = now;
+        }
+
+        boolean tryTake(long now) {
+            refill(now);
+            if (tokens < 1) return false;
+            tokens--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.edwbadillo.storedemo.auth.refresh;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An issued refresh token that has not been used yet. Only the SHA-256 digest of
+ * the token is stored, a leaked table does not allow refreshing sessions.
+ *
+ * @author edwbadillo
+ */
+@Entity
+@Table(name = "refresh_token")
+@Data
+@NoArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false)
+    private Integer customerId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public RefreshToken(String tokenHash, Integer customerId, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.customerId = customerId;
+        this.expiresAt = expiresAt;
+    }
+}
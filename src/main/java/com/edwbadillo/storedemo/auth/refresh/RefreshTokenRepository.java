@@ -0,0 +1,47 @@
+package com.edwbadillo.storedemo.auth.refresh;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for {@link RefreshToken} objects.
+ *
+ * @author edwbadillo
+ */
+@Repository
+public interface RefreshTokenRepository extends CrudRepository<RefreshToken, Long> {
+
+    /**
+     * Deletes a token, the count tells if this call is the one that used it.
+     *
+     * @return the number of deleted tokens, 0 if it was already used, revoked or never issued
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.tokenHash = :tokenHash")
+    int deleteByTokenHash(String tokenHash);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.customerId = :customerId")
+    int deleteByCustomerId(Integer customerId);
+
+    /**
+     * Deletes up to {@code limit} expired tokens, so the cleanup never holds
+     * locks on a large part of the table.
+     *
+     * @return the number of deleted tokens
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM refresh_token WHERE id IN (
+                SELECT id FROM refresh_token WHERE expires_at < :now LIMIT :limit
+            )""", nativeQuery = true)
+    int deleteExpired(LocalDateTime now, int limit);
+}
@@ -0,0 +1,145 @@
+package com.edwbadillo.storedemo.auth.refresh;
+
+import com.edwbadillo.storedemo.customer.CustomerChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storage of the issued refresh tokens, each token can be used once.
+ * <p>
+ * Tokens are stored as SHA-256 digests in the {@code refresh_token} table, which is the
+ * source of truth shared by all the nodes: using a token deletes its row and only the call
+ * that deletes it gets new tokens, so rotating a token costs a single delete (no select) plus
+ * the insert of the new one. An in-memory index of the digests seen by this node keeps the owner
+ * of each token and whether it was already used or revoked, so replays of a used token (stolen
+ * tokens, clients retrying) are rejected without touching the table. Expired tokens are deleted
+ * in small batches by a scheduled task.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class RefreshTokenStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenStore.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Cache<String, IndexEntry> index;
+    private final int cleanupBatchSize;
+    private final long expirationDays;
+
+    public RefreshTokenStore(
+            RefreshTokenRepository refreshTokenRepository,
+            @Value("${jwt.refresh.index-max-size}") long indexMaxSize,
+            @Value("${jwt.refresh-expiration-days}") long expirationDays,
+            @Value("${jwt.refresh.cleanup-batch-size}") int cleanupBatchSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.cleanupBatchSize = cleanupBatchSize;
+        this.expirationDays = expirationDays;
+        this.index = Caffeine.newBuilder()
+                .maximumSize(indexMaxSize)
+                .expireAfterWrite(Duration.ofDays(expirationDays))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, index, "refresh-token");
+    }
+
+    /**
+     * Stores a new refresh token.
+     *
+     * @param token      the raw token
+     * @param customerId the customer the token was issued to
+     */
+    public void save(String token, Integer customerId) {
+        String tokenHash = digest(token);
+        // Same validity as the token, the row is only needed until the token expires
+        LocalDateTime expiration = LocalDateTime.now().plusDays(expirationDays);
+
+        refreshTokenRepository.save(new RefreshToken(tokenHash, customerId, expiration));
+        index.put(tokenHash, new IndexEntry(customerId, false));
+    }
+
+    /**
+     * Uses a refresh token, after this call the token is no longer valid.
+     *
+     * @param token      the raw token, already verified
+     * @param customerId the customer in the subject of the token
+     * @return false if the token was already used or revoked
+     */
+    public boolean consume(String token, Integer customerId) {
+        String tokenHash = digest(token);
+
+        IndexEntry previous = index.asMap().put(tokenHash, new IndexEntry(customerId, true));
+        if (previous != null && previous.used()) return false;
+
+        return refreshTokenRepository.deleteByTokenHash(tokenHash) == 1;
+    }
+
+    /**
+     * Revokes all the refresh tokens of a customer.
+     *
+     * @param customerId the id of the customer
+     */
+    public void revokeAll(Integer customerId) {
+        index.asMap().replaceAll((tokenHash, entry) ->
+                Objects.equals(entry.customerId(), customerId) ? new IndexEntry(customerId, true) : entry);
+        refreshTokenRepository.deleteByCustomerId(customerId);
+    }
+
+    /**
+     * Disabled customers can no longer refresh their sessions.
+     */
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (event.disabled()) revokeAll(event.id());
+    }
+
+    /**
+     * Deletes the expired tokens in batches until none is left.
+     */
+    @Scheduled(
+            initialDelayString = "${jwt.refresh.cleanup-minutes}",
+            fixedDelayString = "${jwt.refresh.cleanup-minutes}",
+            timeUnit = TimeUnit.MINUTES
+    )
+    public void deleteExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpired(now, cleanupBatchSize);
+            total += deleted;
+        } while (deleted == cleanupBatchSize);
+
+        if (total > 0) log.info("Deleted {} expired refresh tokens", total);
+    }
+
+    private record IndexEntry(Integer customerId, boolean used) { }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
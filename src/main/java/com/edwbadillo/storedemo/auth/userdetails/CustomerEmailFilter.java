@@ -0,0 +1,156 @@
+package com.edwbadillo.storedemo.auth.userdetails;
+
+import com.edwbadillo.storedemo.customer.CustomerChangedEvent;
+import com.edwbadillo.storedemo.customer.CustomerRepository;
+import com.edwbadillo.storedemo.product.cache.ProductCacheBroadcast;
+import com.edwbadillo.storedemo.product.cache.ProductCacheInvalidation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Negative cache of the registered customer emails, used to answer logins with unknown
+ * emails without querying the database.
+ * <p>
+ * The emails are kept in a {@link BloomFilter}: when it says an email is not registered it is
+ * certain, when it says it might be, the customer is loaded as usual. The filter is built at
+ * startup, updated by {@link CustomerChangedEvent} (registrations and email changes) and rebuilt
+ * periodically, which resizes it and drops the emails that are no longer in use.
+ * <p>
+ * The events are only published on the node where the customer changed, the other nodes are told
+ * with the {@link ProductCacheBroadcast} and read the new email. If a message is lost the filter is
+ * rebuilt, a customer registered meanwhile can't log in on that node until then.
+ * <p>
+ * Lookups answered by the filter are published as the {@code auth.email-filter.saved-lookups}
+ * metric, and lookups that reached the database for nothing as {@code auth.email-filter.false-positives}.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class CustomerEmailFilter {
+
+    /**
+     * Minimum size of the filter, so registrations between rebuilds keep the false positive rate.
+     */
+    private static final int MIN_EXPECTED_INSERTIONS = 10_000;
+
+    private final CustomerRepository customerRepository;
+    private final ProductCacheBroadcast broadcast;
+    private final double falsePositiveRate;
+    private final Counter savedLookups;
+    private final Counter falsePositives;
+
+    private volatile BloomFilter filter;
+
+    /**
+     * Emails added while the filter is being rebuilt, so they are not lost when the new one replaces it.
+     * Guarded by {@code this}, null when no rebuild is running.
+     */
+    private List<String> addedDuringRebuild;
+
+    public CustomerEmailFilter(
+            CustomerRepository customerRepository,
+            ProductCacheBroadcast broadcast,
+            @Value("${auth.email-filter.false-positive-rate}") double falsePositiveRate,
+            MeterRegistry meterRegistry
+    ) {
+        this.customerRepository = customerRepository;
+        this.broadcast = broadcast;
+        this.falsePositiveRate = falsePositiveRate;
+        this.savedLookups = meterRegistry.counter("auth.email-filter.saved-lookups");
+        this.falsePositives = meterRegistry.counter("auth.email-filter.false-positives");
+
+        broadcast.subscribe(this::apply);
+        broadcast.onMissedInvalidations(this::rebuild);
+    }
+
+    @PostConstruct
+    @Scheduled(
+            initialDelayString = "${auth.email-filter.rebuild-minutes}",
+            fixedDelayString = "${auth.email-filter.rebuild-minutes}",
+            timeUnit = TimeUnit.MINUTES
+    )
+    public void rebuild() {
+        synchronized (this) {
+            if (addedDuringRebuild != null) return;
+            addedDuringRebuild = new ArrayList<>();
+        }
+
+        BloomFilter newFilter;
+        try {
+            List<String> emails = customerRepository.findAllEmails();
+            // Twice the current emails, so the filter keeps its rate while customers register
+            newFilter = new BloomFilter(Math.max(MIN_EXPECTED_INSERTIONS, emails.size() * 2L), falsePositiveRate);
+            emails.forEach(email -> newFilter.add(normalize(email)));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                addedDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            addedDuringRebuild.forEach(newFilter::add);
+            addedDuringRebuild = null;
+            filter = newFilter;
+        }
+    }
+
+    /**
+     * Checks if an email might belong to a customer.
+     *
+     * @param email the email to check
+     * @return false only if no customer has the email
+     */
+    public boolean mightExist(String email) {
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(normalize(email))) return true;
+
+        savedLookups.increment();
+        return false;
+    }
+
+    /**
+     * Records that an email accepted by {@link #mightExist(String)} did not belong to a customer.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        add(normalize(event.email()));
+        broadcast.publish(ProductCacheInvalidation.customer(event.id()));
+    }
+
+    /**
+     * Adds the email of a customer changed on any node, this node included (already added).
+     */
+    private void apply(ProductCacheInvalidation invalidation) {
+        if (invalidation.type() != ProductCacheInvalidation.Type.CUSTOMER) return;
+        customerRepository.findEmailById(invalidation.id()).ifPresent(email -> add(normalize(email)));
+    }
+
+    private void add(String email) {
+        synchronized (this) {
+            if (filter != null) filter.add(email);
+            if (addedDuringRebuild != null) addedDuringRebuild.add(email);
+        }
+    }
+
+    /**
+     * Emails are compared in lower case, a case-sensitive lookup only gets more false positives.
+     */
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
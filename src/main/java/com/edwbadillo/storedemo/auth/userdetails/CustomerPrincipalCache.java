@@ -0,0 +1,71 @@
+package com.edwbadillo.storedemo.auth.userdetails;
+
+import com.edwbadillo.storedemo.customer.Customer;
+import com.edwbadillo.storedemo.customer.CustomerChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of the authenticated customers, so requests with a valid token
+ * don't need to load the customer from the database every time.
+ * <p>
+ * Entries are invalidated as soon as a customer is updated, disabled or enabled.
+ * Hits, misses and evictions are published as the {@code cache.*} metrics with
+ * {@code cache=customer-principal}.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class CustomerPrincipalCache {
+
+    private final Cache<Integer, CustomerUserDetails> cache;
+
+    public CustomerPrincipalCache(
+            @Value("${jwt.principal-cache.max-size}") long maxSize,
+            @Value("${jwt.principal-cache.ttl-seconds}") long ttlSeconds,
+            MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "customer-principal");
+    }
+
+    /**
+     * Gets the user details of a customer, loading it only if it is not cached.
+     *
+     * @param customerId the id of the customer
+     * @param loader     function that loads the customer from the database
+     * @return the user details, empty if the customer doesn't exist
+     */
+    public Optional<CustomerUserDetails> get(Integer customerId, Function<Integer, Optional<Customer>> loader) {
+        return Optional.ofNullable(
+                cache.get(customerId, id -> loader.apply(id).map(CustomerUserDetails::new).orElse(null))
+        );
+    }
+
+    /**
+     * Removes a customer from the cache.
+     *
+     * @param customerId the id of the customer
+     */
+    public void invalidate(Integer customerId) {
+        cache.invalidate(customerId);
+    }
+
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        invalidate(event.id());
+    }
+}
@@ -25,6 +25,20 @@ public class CustomerUserDetails implements UserDetails {
         this.authorities = List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"));
     }
 
+    /**
+     * Creates a lightweight principal from the claims of a token, the customer
+     * only has its id and name (no email, password or status).
+     *
+     * @param id the id of the customer
+     * @param name the name of the customer
+     */
+    public static CustomerUserDetails fromClaims(Integer id, String name) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setName(name);
+        return new CustomerUserDetails(customer);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -0,0 +1,65 @@
+package com.edwbadillo.storedemo.auth.userdetails;
+
+import com.edwbadillo.storedemo.customer.CustomerChangedEvent;
+import com.edwbadillo.storedemo.customer.CustomerRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory set of the disabled customer ids, used to revoke self-contained tokens
+ * without loading the customer on every request.
+ * <p>
+ * The ids are kept in a copy-on-write {@link BitSet}: lookups are lock-free and
+ * the set is only copied when a customer is disabled or enabled, which is rare.
+ * It is loaded at startup, updated by {@link CustomerChangedEvent} and reloaded
+ * periodically to pick up the changes made by other nodes. Only created with
+ * {@code jwt.stateless-principal} enabled, otherwise the customer is loaded on every request.
+ *
+ * @author edwbadillo
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.stateless-principal", havingValue = "true")
+public class DisabledCustomerDenyList {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private volatile BitSet disabledIds = new BitSet();
+
+    @PostConstruct
+    @Scheduled(
+            initialDelayString = "${jwt.deny-list.refresh-seconds}",
+            fixedDelayString = "${jwt.deny-list.refresh-seconds}",
+            timeUnit = TimeUnit.SECONDS
+    )
+    public synchronized void reload() {
+        BitSet ids = new BitSet();
+        customerRepository.findDisabledIds().forEach(ids::set);
+        disabledIds = ids;
+    }
+
+    /**
+     * Checks if a customer is disabled.
+     *
+     * @param customerId the id of the customer
+     */
+    public boolean isDisabled(Integer customerId) {
+        return disabledIds.get(customerId);
+    }
+
+    @EventListener
+    public synchronized void onCustomerChanged(CustomerChangedEvent event) {
+        if (event.disabled() == isDisabled(event.id())) return;
+
+        BitSet ids = (BitSet) disabledIds.clone();
+        ids.set(event.id(), event.disabled());
+        disabledIds = ids;
+    }
+}
@@ -0,0 +1,61 @@
+package com.edwbadillo.storedemo.cart;
+
+import com.edwbadillo.storedemo.cart.dto.CartChange;
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+import com.edwbadillo.storedemo.product.dto.ProductInfo;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Helpers for the bulk changes of a cart, shared by the {@link CartService} implementations.
+ *
+ * @author edwbadillo
+ */
+final class CartChanges {
+
+    private CartChanges() {
+    }
+
+    /**
+     * Merges the changes by product, keeping the order of the request.
+     *
+     * @return product id to quantity to add, products whose changes cancel out are left out
+     */
+    static Map<Integer, Integer> merge(List<CartChange> changes) {
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        for (CartChange change : changes) {
+            quantities.merge(change.productId(), change.quantity(), Integer::sum);
+        }
+        quantities.values().removeIf(quantity -> quantity == 0);
+        return quantities;
+    }
+
+    /**
+     * Checks that all the products exist and that the ones being added are active,
+     * products being removed can be inactive.
+     *
+     * @param quantities product id to quantity to add
+     * @param products   the products found for the ids
+     */
+    static void validate(Map<Integer, Integer> quantities, List<ProductInfo> products) {
+        Set<Integer> found = products.stream().map(ProductInfo::id).collect(Collectors.toSet());
+        List<Integer> missing = quantities.keySet().stream().filter(id -> !found.contains(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new InvalidDataException("not_found", "items", "Products not found", missing);
+        }
+
+        List<Integer> inactive = products.stream()
+                .filter(product -> !product.isActive() && quantities.get(product.id()) > 0)
+                .map(ProductInfo::id)
+                .toList();
+        if (!inactive.isEmpty()) {
+            throw new InvalidDataException(
+                    "invalid_value", "items", "Products are not active, can't be added to cart", inactive
+            );
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package com.edwbadillo.storedemo.cart;
 
+import com.edwbadillo.storedemo.cart.dto.CartSummary;
+import com.edwbadillo.storedemo.cart.dto.CartUpdate;
 import com.edwbadillo.storedemo.cart.dto.CustomerCartDetails;
+import com.edwbadillo.storedemo.common.InvalidField;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @Tag(name = "Cart", description = "The customer's shopping cart APIs")
 @RestController
@@ -20,16 +27,36 @@ public class CartController {
     @Autowired
     private CartService cartService;
 
-    @Operation(summary = "Get cart", description = "Get the authenticated customer's shopping cart.")
+    @Operation(summary = "Get cart", description = "Get the authenticated customer's shopping cart. Supports If-None-Match with the ETag of a previous response.")
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
                     description = "Customer's cart" ,
                     content = { @Content(schema = @Schema(implementation = CustomerCartDetails.class), mediaType = "application/json") }),
+            @ApiResponse(responseCode = "304", description = "Cart not modified since the given ETag", content = @Content),
     })
     @GetMapping
-    public CustomerCartDetails getCart() {
-        return cartService.getCart();
+    public ResponseEntity<CustomerCartDetails> getCart(WebRequest request) {
+        // The version is checked before reading the cart, unchanged carts are not loaded nor serialized
+        String version = cartService.getCartVersion();
+        if (request.checkNotModified(version)) return null;
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(version)
+                .body(cartService.getCart());
+    }
+
+    @Operation(summary = "Get cart summary", description = "Get the item count and subtotal of the authenticated customer's shopping cart, without its items.")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Customer's cart summary" ,
+                    content = { @Content(schema = @Schema(implementation = CartSummary.class), mediaType = "application/json") }),
+    })
+    @GetMapping(params = "summary=true")
+    public CartSummary getCartSummary() {
+        return cartService.getCartSummary();
     }
 
     @Operation(summary = "Add to cart", description = "Add a product to the authenticated customer's shopping cart.")
@@ -44,6 +71,22 @@ public class CartController {
         return cartService.addToCart(productId, quantity);
     }
 
+    @Operation(summary = "Update cart", description = "Add or remove units of several products of the authenticated customer's shopping cart at once.")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Customer's cart" ,
+                    content = { @Content(schema = @Schema(implementation = CustomerCartDetails.class), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Products not found or not active, no change is applied" ,
+                    content = { @Content(schema = @Schema(implementation = InvalidField.class), mediaType = "application/json") }),
+    })
+    @PutMapping
+    public CustomerCartDetails updateCart(@Valid @RequestBody CartUpdate cartUpdate) {
+        return cartService.updateCart(cartUpdate.items());
+    }
+
     @Operation(summary = "Remove from cart", description = "Remove a product from the authenticated customer's shopping cart.")
     @ApiResponses({
             @ApiResponse(
@@ -7,12 +7,16 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
- * Represents a product in the customer's cart. A customer can have multiple products in the cart.
+ * Represents a product in the customer's cart. A customer can have multiple products in the cart,
+ * each product at most once.
  *
  * @author edwbadillo
  */
 @Entity
-@Table(name = "cart_product")
+@Table(
+        name = "cart_product",
+        uniqueConstraints = @UniqueConstraint(name = "uq_cart_product_customer_product", columnNames = {"customer_id", "product_id"})
+)
 @Data
 @NoArgsConstructor
 public class CartProduct {
@@ -26,7 +30,7 @@ public class CartProduct {
     @JoinColumn(name = "product_id")
     private Product product;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
     private Customer customer;
 
@@ -1,10 +1,13 @@
 package com.edwbadillo.storedemo.cart;
 
+import com.edwbadillo.storedemo.cart.dto.CartLine;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Repository for {@link CartProduct} objects.
@@ -12,11 +15,34 @@ import java.util.Optional;
  * @author edwbadillo
  */
 @Repository
-public interface CartProductRepository extends CrudRepository<CartProduct, Integer> {
+public interface CartProductRepository extends CrudRepository<CartProduct, Integer>, CartProductRepositoryCustom {
 
-    List<CartProduct> findByCustomerId(Integer customerId);
-
-    Optional<CartProduct> findByCustomerIdAndProductId(Integer customerId, Integer productId);
+    /**
+     * Gets the lines of a customer's cart with a single query, only the product columns
+     * shown in the cart are read (no product or category entities are loaded).
+     *
+     * @param customerId the id of the customer
+     */
+    @Query("""
+            SELECT new com.edwbadillo.storedemo.cart.dto.CartLine(
+                cp.quantity, p.id, p.name, p.isActive, p.price, p.quantity
+            )
+            FROM CartProduct cp
+            JOIN cp.product p
+            WHERE cp.customer.id = :customerId
+            ORDER BY cp.id""")
+    List<CartLine> findCartLines(Integer customerId);
 
     void deleteByCustomerIdAndProductId(Integer id, Integer productId);
+
+    /**
+     * Deletes the items of a customer's cart left without units.
+     *
+     * @param customerId the id of the customer
+     * @return the number of deleted items
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CartProduct cp WHERE cp.customer.id = :customerId AND cp.quantity <= 0")
+    int deleteEmpty(Integer customerId);
 }
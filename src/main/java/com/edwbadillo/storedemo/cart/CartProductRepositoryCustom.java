@@ -0,0 +1,51 @@
+package com.edwbadillo.storedemo.cart;
+
+import java.util.Map;
+
+/**
+ * Custom operations of {@link CartProductRepository} that can't be derived by Spring Data.
+ *
+ * @author edwbadillo
+ */
+public interface CartProductRepositoryCustom {
+
+    /**
+     * Sets the quantity of a product in a customer's cart, inserting the cart item if it
+     * doesn't exist, in a single statement. Nothing is written if the product doesn't
+     * exist or is not active.
+     *
+     * @param customerId the id of the customer
+     * @param productId  the id of the product
+     * @param quantity   the new quantity
+     * @return the number of cart items inserted or updated, 0 if the product doesn't exist or is not active
+     */
+    int upsert(Integer customerId, Integer productId, Integer quantity);
+
+    /**
+     * Adds quantities to products in a customer's cart with a single JDBC batch, inserting the
+     * cart items that don't exist. Each change is atomic, so concurrent changes are not lost.
+     * Products that don't exist are skipped, items whose quantity drops to 0 or less are kept
+     * and must be deleted with {@link CartProductRepository#deleteEmpty(Integer)}.
+     *
+     * @param customerId the id of the customer
+     * @param quantities product id to quantity to add (negative to subtract)
+     */
+    void addQuantities(Integer customerId, Map<Integer, Integer> quantities);
+
+    /**
+     * Increments the version of a customer's cart, must be called by every change of the cart
+     * in the same transaction.
+     *
+     * @param customerId the id of the customer
+     */
+    void incrementVersion(Integer customerId);
+
+    /**
+     * Gets the version tag of a customer's cart with a single query, without reading its items.
+     * The tag changes when the cart changes and when a product in the cart is updated.
+     *
+     * @param customerId the id of the customer
+     * @return the cart version, the number of its products and the sum of their versions, separated by dots
+     */
+    String findVersionTag(Integer customerId);
+}
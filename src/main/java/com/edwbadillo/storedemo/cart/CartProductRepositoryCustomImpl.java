@@ -0,0 +1,133 @@
+package com.edwbadillo.storedemo.cart;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link CartProductRepositoryCustom}.
+ * <p>
+ * The upserts rely on the unique {@code (customer_id, product_id)} constraint of {@code cart_product}.
+ * PostgreSQL uses {@code INSERT ... ON CONFLICT}, which is atomic under concurrent inserts, other
+ * databases (H2 in tests) use the standard {@code MERGE}. The cart version is upserted the same way
+ * on {@code cart_version}.
+ *
+ * @author edwbadillo
+ */
+class CartProductRepositoryCustomImpl implements CartProductRepositoryCustom {
+
+    private static final String POSTGRESQL_UPSERT = """
+            INSERT INTO cart_product (customer_id, product_id, quantity)
+            SELECT :customerId, p.id, :quantity FROM product p
+            WHERE p.id = :productId AND p.is_active
+            ON CONFLICT (customer_id, product_id) DO UPDATE SET quantity = EXCLUDED.quantity""";
+
+    private static final String STANDARD_UPSERT = """
+            MERGE INTO cart_product cp
+            USING (
+                SELECT CAST(:customerId AS INTEGER) AS customer_id, p.id AS product_id, CAST(:quantity AS INTEGER) AS quantity
+                FROM product p
+                WHERE p.id = :productId AND p.is_active
+            ) v ON cp.customer_id = v.customer_id AND cp.product_id = v.product_id
+            WHEN MATCHED THEN UPDATE SET quantity = v.quantity
+            WHEN NOT MATCHED THEN INSERT (customer_id, product_id, quantity) VALUES (v.customer_id, v.product_id, v.quantity)""";
+
+    private static final String POSTGRESQL_ADD_QUANTITY = """
+            INSERT INTO cart_product (customer_id, product_id, quantity)
+            SELECT ?, p.id, ? FROM product p
+            WHERE p.id = ?
+            ON CONFLICT (customer_id, product_id) DO UPDATE SET quantity = cart_product.quantity + EXCLUDED.quantity""";
+
+    private static final String STANDARD_ADD_QUANTITY = """
+            MERGE INTO cart_product cp
+            USING (
+                SELECT CAST(? AS INTEGER) AS customer_id, p.id AS product_id, CAST(? AS INTEGER) AS quantity
+                FROM product p
+                WHERE p.id = ?
+            ) v ON cp.customer_id = v.customer_id AND cp.product_id = v.product_id
+            WHEN MATCHED THEN UPDATE SET quantity = cp.quantity + v.quantity
+            WHEN NOT MATCHED THEN INSERT (customer_id, product_id, quantity) VALUES (v.customer_id, v.product_id, v.quantity)""";
+
+    private static final String POSTGRESQL_INCREMENT_VERSION = """
+            INSERT INTO cart_version (customer_id, version) VALUES (?, 1)
+            ON CONFLICT (customer_id) DO UPDATE SET version = cart_version.version + 1""";
+
+    private static final String STANDARD_INCREMENT_VERSION = """
+            MERGE INTO cart_version cv
+            USING (SELECT CAST(? AS INTEGER) AS customer_id) v ON cv.customer_id = v.customer_id
+            WHEN MATCHED THEN UPDATE SET version = cv.version + 1
+            WHEN NOT MATCHED THEN INSERT (customer_id, version) VALUES (v.customer_id, 1)""";
+
+    /**
+     * Product versions only grow, and while the cart version doesn't change its products can only
+     * be removed by deleting the product (cascade), which lowers the count for good. So while the
+     * cart version doesn't change, the count and the sum of versions never take a value again.
+     */
+    private static final String FIND_VERSION_TAG = """
+            SELECT
+                COALESCE((SELECT cv.version FROM cart_version cv WHERE cv.customer_id = ?), 0),
+                COUNT(p.id),
+                COALESCE(SUM(p.version), 0)
+            FROM cart_product cp JOIN product p ON p.id = cp.product_id
+            WHERE cp.customer_id = ?""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgresql;
+
+    @Transactional
+    @Override
+    public int upsert(Integer customerId, Integer productId, Integer quantity) {
+        return entityManager.createNativeQuery(isPostgresql() ? POSTGRESQL_UPSERT : STANDARD_UPSERT)
+                .setParameter("customerId", customerId)
+                .setParameter("productId", productId)
+                .setParameter("quantity", quantity)
+                .executeUpdate();
+    }
+
+    @Transactional
+    @Override
+    public void addQuantities(Integer customerId, Map<Integer, Integer> quantities) {
+        // Pending entity changes must reach the database before the JDBC statements
+        entityManager.flush();
+
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> rows.add(new Object[]{customerId, quantity, productId}));
+        jdbcTemplate.batchUpdate(isPostgresql() ? POSTGRESQL_ADD_QUANTITY : STANDARD_ADD_QUANTITY, rows);
+    }
+
+    @Transactional
+    @Override
+    public void incrementVersion(Integer customerId) {
+        jdbcTemplate.update(isPostgresql() ? POSTGRESQL_INCREMENT_VERSION : STANDARD_INCREMENT_VERSION, customerId);
+    }
+
+    @Override
+    public String findVersionTag(Integer customerId) {
+        return jdbcTemplate.queryForObject(
+                FIND_VERSION_TAG,
+                (rs, rowNum) -> rs.getLong(1) + "." + rs.getLong(2) + "." + rs.getLong(3),
+                customerId, customerId
+        );
+    }
+
+    private boolean isPostgresql() {
+        if (postgresql == null) {
+            String databaseName = entityManager.unwrap(Session.class)
+                    .doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+            postgresql = "PostgreSQL".equals(databaseName);
+        }
+        return postgresql;
+    }
+}
@@ -1,7 +1,11 @@
 package com.edwbadillo.storedemo.cart;
 
+import com.edwbadillo.storedemo.cart.dto.CartChange;
+import com.edwbadillo.storedemo.cart.dto.CartSummary;
 import com.edwbadillo.storedemo.cart.dto.CustomerCartDetails;
 
+import java.util.List;
+
 /**
  * Service for managing the authenticated customer's cart.
  *
@@ -14,6 +18,18 @@ public interface CartService {
      */
     CustomerCartDetails getCart();
 
+    /**
+     * Gets the item count and subtotal of the authenticated customer's cart, from
+     * {@link CartSummaryCache} when cached.
+     */
+    CartSummary getCartSummary();
+
+    /**
+     * Gets the version tag of the authenticated customer's cart, used as its ETag. It is
+     * read without loading the cart and changes whenever the cart details change.
+     */
+    String getCartVersion();
+
     /**
      * Adds an item to the customer's cart, or updates its quantity if it already exists.
      *
@@ -23,6 +39,14 @@ public interface CartService {
      */
     CustomerCartDetails addToCart(Integer productId, Integer quantity);
 
+    /**
+     * Applies several changes to the customer's cart at once, all or none of them are applied.
+     *
+     * @param changes the units to add or remove for each product
+     * @return the current customer cart
+     */
+    CustomerCartDetails updateCart(List<CartChange> changes);
+
     /**
      * Removes an item from the customer's cart.
      *
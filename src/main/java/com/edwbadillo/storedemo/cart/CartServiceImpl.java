@@ -1,28 +1,34 @@
 package com.edwbadillo.storedemo.cart;
 
 import com.edwbadillo.storedemo.auth.userdetails.CustomerUserDetails;
+import com.edwbadillo.storedemo.cart.dto.CartChange;
+import com.edwbadillo.storedemo.cart.dto.CartLine;
 import com.edwbadillo.storedemo.cart.dto.CartMapper;
+import com.edwbadillo.storedemo.cart.dto.CartSummary;
 import com.edwbadillo.storedemo.cart.dto.CustomerCartDetails;
 import com.edwbadillo.storedemo.customer.Customer;
 import com.edwbadillo.storedemo.exception.InvalidDataException;
-import com.edwbadillo.storedemo.product.Product;
 import com.edwbadillo.storedemo.product.ProductRepository;
 import com.edwbadillo.storedemo.product.exception.ProductNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 /**
- * Implementation of {@link CartService} interface for managing a customer's shopping cart.
+ * Implementation of {@link CartService} interface for managing a customer's shopping cart,
+ * every change is written to the database. Used unless {@code cart.store=memory}.
  *
  * @author edwbadillo
+ * @see InMemoryCartServiceImpl
  */
 @Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "jpa", matchIfMissing = true)
 public class CartServiceImpl implements CartService {
 
     @Autowired
@@ -34,34 +40,57 @@ public class CartServiceImpl implements CartService {
     @Autowired
     private CartMapper cartMapper;
 
+    @Autowired
+    private CartSummaryCache cartSummaryCache;
+
     @Override
     public CustomerCartDetails getCart() {
         return getCustomerCartDetails(getAuthenticatedCustomer());
     }
 
+    @Override
+    public CartSummary getCartSummary() {
+        return cartSummaryCache.get(getAuthenticatedCustomer().getId(), cartProductRepository::findCartLines);
+    }
+
+    @Override
+    public String getCartVersion() {
+        return cartProductRepository.findVersionTag(getAuthenticatedCustomer().getId());
+    }
+
+    @Transactional
     @Override
     public CustomerCartDetails addToCart(Integer productId, Integer quantity) {
         Customer customer = getAuthenticatedCustomer();
-        Product product = productRepository.findById(productId).orElseThrow(ProductNotFoundException::new);
 
-        if (!product.isActive()) {
+        // Inserts or updates the item only if the product exists and is active
+        int updated = cartProductRepository.upsert(customer.getId(), productId, quantity);
+        if (updated == 0) {
+            // Only failed requests load the product, to tell which error it is
+            productRepository.findById(productId).orElseThrow(ProductNotFoundException::new);
             throw new InvalidDataException(
                     "invalid_value", "productId", "Product is not active, can't be added to cart", productId
             );
         }
 
-        // Check if product is already in cart
-        Optional<CartProduct> result = cartProductRepository.findByCustomerIdAndProductId(customer.getId(), productId);
-        CartProduct cartProduct;
+        cartProductRepository.incrementVersion(customer.getId());
+        return getCustomerCartDetails(customer);
+    }
+
+    @Transactional
+    @Override
+    public CustomerCartDetails updateCart(List<CartChange> changes) {
+        Customer customer = getAuthenticatedCustomer();
 
-        if (result.isEmpty()) {
-            cartProduct = new CartProduct(customer, product, quantity);
-        } else {
-            cartProduct = result.get();
-            cartProduct.setQuantity(quantity);
+        Map<Integer, Integer> quantities = CartChanges.merge(changes);
+        if (!quantities.isEmpty()) {
+            // One query to validate all the products, one batch to apply the changes
+            CartChanges.validate(quantities, productRepository.findInfoByIdIn(quantities.keySet()));
+            cartProductRepository.addQuantities(customer.getId(), quantities);
+            cartProductRepository.deleteEmpty(customer.getId());
+            cartProductRepository.incrementVersion(customer.getId());
         }
 
-        cartProductRepository.save(cartProduct);
         return getCustomerCartDetails(customer);
     }
 
@@ -70,18 +99,21 @@ public class CartServiceImpl implements CartService {
     public CustomerCartDetails removeFromCart(Integer productId) {
         Customer customer = getAuthenticatedCustomer();
         cartProductRepository.deleteByCustomerIdAndProductId(customer.getId(), productId);
+        cartProductRepository.incrementVersion(customer.getId());
         return getCustomerCartDetails(customer);
     }
 
     /**
-     * Gets all products in the customer's cart.
+     * Gets all products in the customer's cart, with a single query whatever the cart size,
+     * and refreshes the cached cart summary with them.
      *
      * @param customer the customer authenticated
      * @return customer's cart details
      */
     private CustomerCartDetails getCustomerCartDetails(Customer customer) {
-        List<CartProduct> cartProducts = cartProductRepository.findByCustomerId(customer.getId());
-        return cartMapper.getCustomerCart(customer, cartProducts);
+        List<CartLine> cartLines = cartProductRepository.findCartLines(customer.getId());
+        CartSummary summary = cartSummaryCache.put(customer.getId(), cartLines);
+        return cartMapper.getCustomerCart(customer, cartLines, summary);
     }
 
     /**
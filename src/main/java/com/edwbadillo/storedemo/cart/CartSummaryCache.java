@@ -0,0 +1,219 @@
+package com.edwbadillo.storedemo.cart;
+
+import com.edwbadillo.storedemo.cart.dto.CartLine;
+import com.edwbadillo.storedemo.cart.dto.CartSummary;
+import com.edwbadillo.storedemo.product.ProductRepository;
+import com.edwbadillo.storedemo.product.cache.ProductCacheBroadcast;
+import com.edwbadillo.storedemo.product.cache.ProductCacheInvalidation;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache of the cart summaries (item count and subtotal), so polling the cart totals
+ * doesn't read the cart lines every time.
+ * <p>
+ * Summaries are replaced with the lines read by every cart change, once the change is committed,
+ * and the other nodes drop their summary of the cart. The changes are sent with the
+ * {@link ProductCacheBroadcast} of the product details within the transaction of the change, so a
+ * rolled back change is not sent; with the PostgreSQL broadcast the node of the change gets its
+ * own message too and reads the cart again on the next request.
+ * <p>
+ * Product changes are received from the same broadcast, once committed and in every node: the
+ * price of a product held by cached carts is read again and their subtotal adjusted with the
+ * difference between the prices times the quantity in the cart, and the carts holding a deleted
+ * product (its lines are deleted with it) are dropped. The carts holding each product are indexed,
+ * so changes of products in no cached cart (most stock changes) cost a map lookup. Amounts are
+ * {@link BigDecimal}, so adding and subtracting them doesn't accumulate rounding errors. Hits,
+ * misses and evictions are published as the {@code cache.*} metrics with {@code cache=cart-summary}.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class CartSummaryCache {
+
+    private final Cache<Integer, Entry> cache;
+    private final ProductRepository productRepository;
+    private final ProductCacheBroadcast broadcast;
+
+    /**
+     * Ids of the customers whose cached cart holds each product. Updated in the cache operations on
+     * the customer entry, which are atomic, so the index follows the cached carts.
+     */
+    private final Map<Integer, Set<Integer>> holders = new ConcurrentHashMap<>();
+
+    public CartSummaryCache(
+            @Value("${cart.summary.max-size}") long maxSize,
+            @Value("${cart.summary.ttl-seconds}") long ttlSeconds,
+            ProductRepository productRepository,
+            ProductCacheBroadcast broadcast,
+            MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .evictionListener((Integer customerId, Entry entry, RemovalCause cause) -> unindex(customerId, entry))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "cart-summary");
+
+        this.productRepository = productRepository;
+        this.broadcast = broadcast;
+        broadcast.subscribe(this::apply);
+        broadcast.onMissedInvalidations(this::invalidateAll);
+    }
+
+    /**
+     * Gets the summary of a cart, loading its lines only if it is not cached.
+     *
+     * @param customerId the id of the customer
+     * @param loader     function that reads the cart lines of the customer
+     * @return the cart summary
+     */
+    public CartSummary get(Integer customerId, Function<Integer, List<CartLine>> loader) {
+        return cache.get(customerId, id -> index(id, Entry.of(loader.apply(id)))).summary();
+    }
+
+    /**
+     * Replaces the summary of a cart, when the current transaction commits if there is one.
+     *
+     * @param customerId the id of the customer
+     * @param lines      the current lines of the cart
+     * @return the new cart summary
+     */
+    public CartSummary put(Integer customerId, List<CartLine> lines) {
+        Entry entry = Entry.of(lines);
+        broadcast.publish(ProductCacheInvalidation.cart(customerId));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    replace(customerId, entry);
+                }
+            });
+        } else {
+            replace(customerId, entry);
+        }
+        return entry.summary();
+    }
+
+    /**
+     * Removes all the summaries of this node.
+     */
+    public void invalidateAll() {
+        for (Integer customerId : cache.asMap().keySet()) {
+            drop(customerId);
+        }
+    }
+
+    private void apply(ProductCacheInvalidation invalidation) {
+        switch (invalidation.type()) {
+            case CART -> drop(invalidation.id());
+            case PRODUCT -> productChanged(invalidation.id());
+        }
+    }
+
+    /**
+     * Reconciles the cached carts holding a changed product, the price is only read when a cart
+     * holds the product.
+     */
+    private void productChanged(Integer productId) {
+        Set<Integer> customerIds = holders.get(productId);
+        if (customerIds == null) return;
+
+        // Empty if the product was deleted, the carts holding it are dropped
+        Optional<BigDecimal> price = productRepository.findPriceById(productId).map(BigDecimal::valueOf);
+        for (Integer customerId : List.copyOf(customerIds)) {
+            cache.asMap().computeIfPresent(customerId, (id, entry) -> {
+                if (price.isPresent()) return entry.withPrice(productId, price.get());
+                unindex(id, entry);
+                return null;
+            });
+        }
+    }
+
+    private void replace(Integer customerId, Entry entry) {
+        cache.asMap().compute(customerId, (id, previous) -> {
+            if (previous != null) unindex(id, previous);
+            return index(id, entry);
+        });
+    }
+
+    private void drop(Integer customerId) {
+        cache.asMap().computeIfPresent(customerId, (id, entry) -> {
+            unindex(id, entry);
+            return null;
+        });
+    }
+
+    private Entry index(Integer customerId, Entry entry) {
+        for (Integer productId : entry.lines().keySet()) {
+            holders.compute(productId, (id, customerIds) -> {
+                Set<Integer> result = customerIds != null ? customerIds : ConcurrentHashMap.newKeySet();
+                result.add(customerId);
+                return result;
+            });
+        }
+        return entry;
+    }
+
+    private void unindex(Integer customerId, Entry entry) {
+        for (Integer productId : entry.lines().keySet()) {
+            holders.computeIfPresent(productId, (id, customerIds) -> {
+                customerIds.remove(customerId);
+                return customerIds.isEmpty() ? null : customerIds;
+            });
+        }
+    }
+
+    /**
+     * A cached summary, with the quantity and price of each product to adjust it on price changes.
+     */
+    private record Entry(Map<Integer, Line> lines, CartSummary summary) {
+
+        static Entry of(List<CartLine> cartLines) {
+            Map<Integer, Line> lines = new HashMap<>();
+            int itemCount = 0;
+            BigDecimal subtotal = BigDecimal.ZERO;
+            for (CartLine cartLine : cartLines) {
+                Line line = new Line(cartLine.quantity(), BigDecimal.valueOf(cartLine.productPrice()));
+                lines.put(cartLine.productId(), line);
+                itemCount += line.quantity();
+                subtotal = subtotal.add(line.price().multiply(BigDecimal.valueOf(line.quantity())));
+            }
+            return new Entry(lines, new CartSummary(itemCount, subtotal));
+        }
+
+        Entry withPrice(Integer productId, BigDecimal price) {
+            Line line = lines.get(productId);
+            if (line == null || line.price().compareTo(price) == 0) return this;
+
+            BigDecimal difference = price.subtract(line.price()).multiply(BigDecimal.valueOf(line.quantity()));
+            Map<Integer, Line> newLines = new HashMap<>(lines);
+            newLines.put(productId, new Line(line.quantity(), price));
+            return new Entry(
+                    newLines,
+                    new CartSummary(summary.itemCount(), summary.subtotal().add(difference))
+            );
+        }
+    }
+
+    private record Line(int quantity, BigDecimal price) { }
+}
@@ -0,0 +1,25 @@
+package com.edwbadillo.storedemo.cart;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counter of the changes of a customer's cart, incremented by every change and used
+ * as the ETag of the cart. Only written with {@link CartProductRepositoryCustom#incrementVersion(Integer)}.
+ *
+ * @author edwbadillo
+ */
+@Entity
+@Table(name = "cart_version")
+@Data
+@NoArgsConstructor
+public class CartVersion {
+
+    @Id
+    @Column(name = "customer_id")
+    private Integer customerId;
+
+    @Column(nullable = false)
+    private long version;
+}
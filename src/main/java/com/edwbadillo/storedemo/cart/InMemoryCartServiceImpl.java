@@ -0,0 +1,151 @@
+package com.edwbadillo.storedemo.cart;
+
+import com.edwbadillo.storedemo.auth.userdetails.CustomerUserDetails;
+import com.edwbadillo.storedemo.cart.dto.CartChange;
+import com.edwbadillo.storedemo.cart.dto.CartLine;
+import com.edwbadillo.storedemo.cart.dto.CartMapper;
+import com.edwbadillo.storedemo.cart.dto.CartSummary;
+import com.edwbadillo.storedemo.cart.dto.CustomerCartDetails;
+import com.edwbadillo.storedemo.cart.memory.CartMemoryStore;
+import com.edwbadillo.storedemo.customer.Customer;
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+import com.edwbadillo.storedemo.product.ProductRepository;
+import com.edwbadillo.storedemo.product.dto.ProductInfo;
+import com.edwbadillo.storedemo.product.exception.ProductNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link CartService} backed by {@link CartMemoryStore}: carts are read and
+ * changed in memory and written to the database in batches. Used when {@code cart.store=memory}.
+ * <p>
+ * Only the product information shown in the cart (name, price, stock) is read from the database,
+ * with a single query.
+ *
+ * @author edwbadillo
+ */
+@Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "memory")
+public class InMemoryCartServiceImpl implements CartService {
+
+    @Autowired
+    private CartMemoryStore cartMemoryStore;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartMapper cartMapper;
+
+    @Autowired
+    private CartSummaryCache cartSummaryCache;
+
+    @Override
+    public CustomerCartDetails getCart() {
+        return getCustomerCartDetails(getAuthenticatedCustomer());
+    }
+
+    @Override
+    public CartSummary getCartSummary() {
+        return cartSummaryCache.get(getAuthenticatedCustomer().getId(), this::getCartLines);
+    }
+
+    @Override
+    public String getCartVersion() {
+        Integer customerId = getAuthenticatedCustomer().getId();
+        String version = cartMemoryStore.getVersion(customerId);
+        Map<Integer, Integer> lines = cartMemoryStore.getLines(customerId);
+        String productVersions = lines.isEmpty() ? "0.0" : productRepository.findVersionsTagByIdIn(lines.keySet());
+        return version + "." + productVersions;
+    }
+
+    @Override
+    public CustomerCartDetails addToCart(Integer productId, Integer quantity) {
+        Customer customer = getAuthenticatedCustomer();
+
+        List<ProductInfo> products = productRepository.findInfoByIdIn(List.of(productId));
+        if (products.isEmpty()) throw new ProductNotFoundException();
+
+        if (!products.get(0).isActive()) {
+            throw new InvalidDataException(
+                    "invalid_value", "productId", "Product is not active, can't be added to cart", productId
+            );
+        }
+
+        cartMemoryStore.setQuantities(customer.getId(), Map.of(productId, quantity));
+        return getCustomerCartDetails(customer);
+    }
+
+    @Override
+    public CustomerCartDetails updateCart(List<CartChange> changes) {
+        Customer customer = getAuthenticatedCustomer();
+
+        Map<Integer, Integer> quantities = CartChanges.merge(changes);
+        if (!quantities.isEmpty()) {
+            CartChanges.validate(quantities, productRepository.findInfoByIdIn(quantities.keySet()));
+            cartMemoryStore.addQuantities(customer.getId(), quantities);
+        }
+
+        return getCustomerCartDetails(customer);
+    }
+
+    @Override
+    public CustomerCartDetails removeFromCart(Integer productId) {
+        Customer customer = getAuthenticatedCustomer();
+        cartMemoryStore.setQuantities(customer.getId(), Map.of(productId, 0));
+        return getCustomerCartDetails(customer);
+    }
+
+    /**
+     * Gets all products in the customer's cart and refreshes the cached cart summary with them.
+     *
+     * @param customer the customer authenticated
+     * @return customer's cart details
+     */
+    private CustomerCartDetails getCustomerCartDetails(Customer customer) {
+        List<CartLine> cartLines = getCartLines(customer.getId());
+        CartSummary summary = cartSummaryCache.put(customer.getId(), cartLines);
+        return cartMapper.getCustomerCart(customer, cartLines, summary);
+    }
+
+    /**
+     * Gets the lines of a cart, the quantities come from memory and the products from
+     * a single query. Products deleted in the meantime are skipped.
+     */
+    private List<CartLine> getCartLines(Integer customerId) {
+        Map<Integer, Integer> lines = cartMemoryStore.getLines(customerId);
+        if (lines.isEmpty()) return List.of();
+
+        Map<Integer, ProductInfo> products = productRepository.findInfoByIdIn(lines.keySet())
+                .stream()
+                .collect(Collectors.toMap(ProductInfo::id, Function.identity()));
+
+        return lines.entrySet()
+                .stream()
+                .filter(line -> products.containsKey(line.getKey()))
+                .map(line -> {
+                    ProductInfo product = products.get(line.getKey());
+                    return new CartLine(
+                            line.getValue(), product.id(), product.name(), product.isActive(), product.price(), product.quantity()
+                    );
+                })
+                .toList();
+    }
+
+    /**
+     * Gets the authenticated customer.
+     */
+    private Customer getAuthenticatedCustomer() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        CustomerUserDetails customerUserDetails = (CustomerUserDetails) authentication.getPrincipal();
+        return customerUserDetails.getCustomer();
+    }
+}
@@ -0,0 +1,20 @@
+package com.edwbadillo.storedemo.cart.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * A change of the quantity of a product in the customer's cart.
+ *
+ * @author edwbadillo
+ */
+public record CartChange(
+    @NotNull
+    Integer productId,
+
+    /*
+     * Units to add (positive) or remove (negative), the product is removed
+     * from the cart when its quantity reaches 0.
+     */
+    @NotNull
+    Integer quantity
+) { }
@@ -0,0 +1,16 @@
+package com.edwbadillo.storedemo.cart.dto;
+
+/**
+ * Flat row of a customer's cart with the product columns it needs, read with
+ * a single query instead of loading the product entities.
+ *
+ * @author edwbadillo
+ */
+public record CartLine(
+    Integer quantity,
+    Integer productId,
+    String productName,
+    boolean productActive,
+    double productPrice,
+    int productStock
+) { }
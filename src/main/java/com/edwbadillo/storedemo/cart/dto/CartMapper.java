@@ -1,9 +1,7 @@
 package com.edwbadillo.storedemo.cart.dto;
 
-import com.edwbadillo.storedemo.cart.CartProduct;
 import com.edwbadillo.storedemo.customer.Customer;
-import com.edwbadillo.storedemo.product.dto.ProductMapper;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.edwbadillo.storedemo.product.dto.ProductInfo;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -16,21 +14,26 @@ import java.util.List;
 @Service
 public class CartMapper {
 
-    @Autowired
-    private ProductMapper productMapper;
+    public CustomerCartDetails getCustomerCart(Customer customer, List<CartLine> cartLines, CartSummary summary) {
 
-    public CustomerCartDetails getCustomerCart(Customer customer, List<CartProduct> cartProducts) {
-
-        List<CartItem> cartItems = cartProducts
+        List<CartItem> cartItems = cartLines
                 .stream()
-                .map(cartProduct -> new CartItem(cartProduct.getQuantity(), productMapper.getInfo(cartProduct.getProduct())))
+                .map(this::getItem)
                 .toList();
 
-        Double subtotal = cartProducts
-                .stream()
-                .mapToDouble(cartProduct -> cartProduct.getQuantity() * cartProduct.getProduct().getPrice())
-                .sum();
+        return new CustomerCartDetails(customer.getName(), cartItems, summary.subtotal());
+    }
 
-        return new CustomerCartDetails(customer.getName(), cartItems, subtotal);
+    public CartItem getItem(CartLine cartLine) {
+        return new CartItem(
+            cartLine.quantity(),
+            new ProductInfo(
+                cartLine.productId(),
+                cartLine.productName(),
+                cartLine.productActive(),
+                cartLine.productPrice(),
+                cartLine.productStock()
+            )
+        );
     }
 }
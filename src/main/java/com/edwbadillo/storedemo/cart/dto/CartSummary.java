@@ -0,0 +1,15 @@
+package com.edwbadillo.storedemo.cart.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Totals of the customer's cart, without its items.
+ *
+ * @author edwbadillo
+ */
+public record CartSummary(
+    int itemCount,
+    BigDecimal subtotal
+) {
+    public static final CartSummary EMPTY = new CartSummary(0, BigDecimal.ZERO);
+}
@@ -0,0 +1,18 @@
+package com.edwbadillo.storedemo.cart.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Several changes applied at once to the customer's cart.
+ *
+ * @author edwbadillo
+ */
+public record CartUpdate(
+    @NotEmpty
+    @Size(max = 500)
+    List<@Valid CartChange> items
+) { }
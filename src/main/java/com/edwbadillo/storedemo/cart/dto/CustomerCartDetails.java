@@ -1,5 +1,6 @@
 package com.edwbadillo.storedemo.cart.dto;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -10,5 +11,5 @@ import java.util.List;
 public record CustomerCartDetails(
      String customerName,
      List<CartItem> items,
-     Double subtotal
+     BigDecimal subtotal
 ) { }
@@ -0,0 +1,361 @@
+package com.edwbadillo.storedemo.cart.memory;
+
+import com.edwbadillo.storedemo.cart.CartProductRepository;
+import com.edwbadillo.storedemo.cart.dto.CartLine;
+import com.edwbadillo.storedemo.exception.ServiceBusyException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the active carts in memory and writes them to {@code cart_product} behind the requests.
+ * <p>
+ * Carts are kept in a sharded map keyed by customer id, each cart guarded by its own lock, and
+ * loaded from the database on first access. Every change is appended to a {@link CartWriteAheadLog}
+ * before it is applied, and the changed (dirty) carts are written to the database in JDBC batches
+ * on a schedule, when the log grows over its maximum size and on shutdown. At startup, changes left
+ * in the log by a crash are replayed and written.
+ * <p>
+ * The log keeps the changes until they are written, so while the database is down it grows. Once
+ * it is over its maximum size the changes are rejected with {@link ServiceBusyException}, and a
+ * failed write is retried by the schedule only, not by every change.
+ * <p>
+ * Carts that are flushed and idle are evicted, so abandoned carts don't stay in memory.
+ * <p>
+ * A cart must be changed by a single node: each node writes the whole carts it holds, so two nodes
+ * holding the same cart overwrite each other's changes. With several nodes, the requests of a
+ * customer must be routed to the same node (sticky sessions by customer).
+ *
+ * @author edwbadillo
+ */
+@Component
+@ConditionalOnProperty(name = "cart.store", havingValue = "memory")
+public class CartMemoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CartMemoryStore.class);
+
+    private final CartProductRepository cartProductRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path walDirectory;
+    private final long walMaxBytes;
+    private final long idleMillis;
+    private final int batchSize;
+
+    private final Map<Integer, MemoryCart>[] shards;
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Cart versions come from a single sequence, so a cart evicted and loaded again never
+     * gets a version it had before. The start time tells the versions of different runs apart.
+     */
+    private final AtomicLong versions = new AtomicLong();
+    private final long epoch = System.currentTimeMillis();
+
+    /**
+     * Changes take the read lock, a flush takes the write lock to rotate the log and take
+     * the dirty carts, so no change is in the log segment but missing from the flushed carts.
+     */
+    private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+
+    private CartWriteAheadLog wal;
+
+    /**
+     * True while the database writes fail, the log is not flushed when it grows.
+     */
+    private volatile boolean writeFailing;
+
+    @SuppressWarnings("unchecked")
+    public CartMemoryStore(
+            CartProductRepository cartProductRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${cart.memory.shards}") int shards,
+            @Value("${cart.memory.wal-directory}") String walDirectory,
+            @Value("${cart.memory.wal-max-bytes}") long walMaxBytes,
+            @Value("${cart.memory.idle-minutes}") long idleMinutes,
+            @Value("${cart.memory.batch-size}") int batchSize
+    ) {
+        this.cartProductRepository = cartProductRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.walDirectory = Path.of(walDirectory);
+        this.walMaxBytes = walMaxBytes;
+        this.idleMillis = TimeUnit.MINUTES.toMillis(idleMinutes);
+        this.batchSize = batchSize;
+
+        this.shards = new Map[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Opens the log and writes the changes left in it by a previous run.
+     */
+    @PostConstruct
+    public void init() {
+        wal = new CartWriteAheadLog(walDirectory);
+
+        List<CartWriteAheadLog.Entry> entries = wal.readAll();
+        for (CartWriteAheadLog.Entry entry : entries) {
+            update(entry.customerId(), lines -> apply(lines, entry.productId(), entry.quantity()), true);
+        }
+        if (!entries.isEmpty()) {
+            log.info("Replayed {} cart changes from the write-ahead log", entries.size());
+        }
+        flush();
+    }
+
+    /**
+     * Gets the lines of a cart (product id to quantity), in the order they were added.
+     *
+     * @param customerId the id of the customer
+     * @return a copy of the lines
+     */
+    public Map<Integer, Integer> getLines(Integer customerId) {
+        Map<Integer, Integer> result = new LinkedHashMap<>();
+        update(customerId, result::putAll, false);
+        return result;
+    }
+
+    /**
+     * Gets the version of a cart, it changes with every change of the cart.
+     *
+     * @param customerId the id of the customer
+     * @return the version, unique for this cart in this run
+     */
+    public String getVersion(Integer customerId) {
+        return epoch + "-" + update(customerId, lines -> { }, false);
+    }
+
+    /**
+     * Sets the quantities of products in a cart, all the changes are applied at once.
+     *
+     * @param customerId the id of the customer
+     * @param quantities product id to new quantity, 0 removes the product
+     */
+    public void setQuantities(Integer customerId, Map<Integer, Integer> quantities) {
+        checkLogSize();
+
+        rotationLock.readLock().lock();
+        try {
+            update(customerId, lines -> quantities.forEach((productId, quantity) -> {
+                wal.append(customerId, productId, quantity);
+                apply(lines, productId, quantity);
+            }), true);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds quantities to products in a cart, all the changes are applied at once. Products
+     * whose quantity drops to 0 or less are removed.
+     *
+     * @param customerId the id of the customer
+     * @param quantities product id to quantity to add (negative to subtract)
+     */
+    public void addQuantities(Integer customerId, Map<Integer, Integer> quantities) {
+        checkLogSize();
+
+        rotationLock.readLock().lock();
+        try {
+            update(customerId, lines -> quantities.forEach((productId, quantity) -> {
+                int newQuantity = Math.max(0, lines.getOrDefault(productId, 0) + quantity);
+                // The log keeps the resulting quantity, so replaying it twice is harmless
+                wal.append(customerId, productId, newQuantity);
+                apply(lines, productId, newQuantity);
+            }), true);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the dirty carts to the database.
+     */
+    @Scheduled(fixedDelayString = "${cart.memory.flush-millis}", initialDelayString = "${cart.memory.flush-millis}")
+    public synchronized void flush() {
+        long segment;
+        Map<Integer, Map<Integer, Integer>> snapshot = new HashMap<>();
+
+        rotationLock.writeLock().lock();
+        try {
+            segment = wal.rotate();
+            for (Iterator<Integer> iterator = dirty.iterator(); iterator.hasNext(); ) {
+                Integer customerId = iterator.next();
+                iterator.remove();
+                MemoryCart cart = shard(customerId).get(customerId);
+                if (cart == null) continue;
+                synchronized (cart) {
+                    snapshot.put(customerId, new LinkedHashMap<>(cart.lines));
+                }
+            }
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+
+        try {
+            if (!snapshot.isEmpty()) write(snapshot);
+            wal.deleteUpTo(segment);
+        } catch (RuntimeException e) {
+            // Written again with the next flush, the log segments are kept until then
+            dirty.addAll(snapshot.keySet());
+            writeFailing = true;
+            log.error("Failed to write {} carts, will retry", snapshot.size(), e);
+            return;
+        }
+        writeFailing = false;
+
+        evictIdle();
+    }
+
+    /**
+     * Flushes the log when it is over its maximum size, and rejects the change if it still is.
+     */
+    private void checkLogSize() {
+        if (wal.size() <= walMaxBytes) return;
+
+        if (!writeFailing) flushIfFull();
+        if (wal.size() > walMaxBytes) {
+            throw new ServiceBusyException("Too many cart changes pending, try again later");
+        }
+    }
+
+    /**
+     * Flushes the log if it is still over its maximum size, the changes waiting for another
+     * flush don't flush again.
+     */
+    private synchronized void flushIfFull() {
+        if (wal.size() > walMaxBytes) flush();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        wal.close();
+    }
+
+    /**
+     * Number of carts in memory.
+     */
+    public int size() {
+        return Arrays.stream(shards).mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Applies an action to a cart, loading it if it isn't in memory.
+     *
+     * @return the version of the cart after the action
+     */
+    private long update(Integer customerId, Consumer<Map<Integer, Integer>> action, boolean markDirty) {
+        while (true) {
+            MemoryCart cart = shard(customerId).computeIfAbsent(customerId, id -> new MemoryCart());
+            synchronized (cart) {
+                // Evicted between the lookup and the lock, look it up again
+                if (cart.evicted) continue;
+
+                if (!cart.loaded) {
+                    for (CartLine line : cartProductRepository.findCartLines(customerId)) {
+                        cart.lines.put(line.productId(), line.quantity());
+                    }
+                    cart.loaded = true;
+                    cart.version = versions.incrementAndGet();
+                }
+
+                action.accept(cart.lines);
+                cart.lastAccess = System.currentTimeMillis();
+                if (markDirty) {
+                    dirty.add(customerId);
+                    cart.version = versions.incrementAndGet();
+                }
+                return cart.version;
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long limit = System.currentTimeMillis() - idleMillis;
+
+        for (Map<Integer, MemoryCart> shard : shards) {
+            shard.forEach((customerId, cart) -> {
+                synchronized (cart) {
+                    if (cart.lastAccess < limit && !dirty.contains(customerId)) {
+                        cart.evicted = true;
+                        shard.remove(customerId, cart);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Replaces the rows of the carts in a single transaction, with JDBC batches. Products
+     * deleted in the meantime are skipped instead of failing the whole batch.
+     */
+    private void write(Map<Integer, Map<Integer, Integer>> carts) {
+        List<Integer> customerIds = new ArrayList<>(carts.keySet());
+        List<int[]> rows = new ArrayList<>();
+        carts.forEach((customerId, lines) ->
+                lines.forEach((productId, quantity) -> rows.add(new int[]{customerId, productId, quantity}))
+        );
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(
+                    "DELETE FROM cart_product WHERE customer_id = ?",
+                    customerIds, batchSize,
+                    (ps, customerId) -> ps.setInt(1, customerId)
+            );
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO cart_product (customer_id, product_id, quantity) SELECT ?, p.id, ? FROM product p WHERE p.id = ?",
+                    rows, batchSize,
+                    (ps, row) -> {
+                        ps.setInt(1, row[0]);
+                        ps.setInt(2, row[2]);
+                        ps.setInt(3, row[1]);
+                    }
+            );
+        });
+    }
+
+    private Map<Integer, MemoryCart> shard(Integer customerId) {
+        return shards[Math.floorMod(customerId.hashCode(), shards.length)];
+    }
+
+    private static void apply(Map<Integer, Integer> lines, int productId, int quantity) {
+        if (quantity == 0) {
+            lines.remove(productId);
+        } else {
+            lines.put(productId, quantity);
+        }
+    }
+
+    /**
+     * A cart in memory, guarded by its own lock.
+     */
+    private static class MemoryCart {
+        private final LinkedHashMap<Integer, Integer> lines = new LinkedHashMap<>();
+        private boolean loaded;
+        private boolean evicted;
+        private long lastAccess;
+        private long version;
+    }
+}
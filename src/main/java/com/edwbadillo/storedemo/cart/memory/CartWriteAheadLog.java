@@ -0,0 +1,186 @@
+package com.edwbadillo.storedemo.cart.memory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of the cart changes not yet written to the database, replayed at
+ * startup so a crash does not lose them.
+ * <p>
+ * The log is split in numbered segment files ({@code cart-wal-<n>.log}), one line per change
+ * ({@code customerId,productId,quantity}, quantity 0 meaning removed). Each flush to the database
+ * {@link #rotate() rotates} the log and, once the flush succeeds, {@link #deleteUpTo(long) deletes}
+ * the segments it covered, so the log only holds the changes since the last flush.
+ * <p>
+ * Changes are written to the file (the OS cache) immediately, which survives a crash of the
+ * JVM, and forced to the disk on every rotation.
+ *
+ * @author edwbadillo
+ */
+class CartWriteAheadLog implements Closeable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("cart-wal-(\\d+)\\.log");
+
+    /**
+     * A change of a cart, quantity 0 means that the product was removed.
+     */
+    record Entry(int customerId, int productId, int quantity) { }
+
+    private final Path directory;
+    private FileChannel channel;
+    private long segment;
+
+    /**
+     * Bytes of all the segments not deleted yet.
+     */
+    private long size;
+
+    /**
+     * Opens a new segment after the existing ones, call {@link #readAll()} first to replay them.
+     *
+     * @param directory the directory of the segment files, created if it doesn't exist
+     */
+    CartWriteAheadLog(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            List<Long> existing = existingSegments();
+            segment = existing.stream().mapToLong(Long::longValue).max().orElse(0);
+            for (long number : existing) {
+                size += Files.size(segmentPath(number));
+            }
+            openNextSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't open the cart write-ahead log in " + directory, e);
+        }
+    }
+
+    /**
+     * Reads the entries of all the segments except the current one, in order.
+     */
+    synchronized List<Entry> readAll() {
+        List<Entry> entries = new ArrayList<>();
+        try {
+            for (long number : existingSegments()) {
+                if (number == segment) continue;
+                readSegment(segmentPath(number), entries);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read the cart write-ahead log", e);
+        }
+        return entries;
+    }
+
+    synchronized void append(int customerId, int productId, int quantity) {
+        byte[] line = (customerId + "," + productId + "," + quantity + "\n").getBytes(StandardCharsets.US_ASCII);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            size += line.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't write the cart write-ahead log", e);
+        }
+    }
+
+    /**
+     * Size in bytes of all the segments, the ones not flushed yet included.
+     */
+    synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Closes the current segment and opens a new one.
+     *
+     * @return the number of the closed segment, it and the previous ones can be deleted once flushed
+     */
+    synchronized long rotate() {
+        long closed = segment;
+        try {
+            channel.force(false);
+            channel.close();
+            openNextSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't rotate the cart write-ahead log", e);
+        }
+        return closed;
+    }
+
+    /**
+     * Deletes the segments up to (and including) a segment number.
+     */
+    synchronized void deleteUpTo(long number) {
+        try {
+            for (long existing : existingSegments()) {
+                if (existing <= number && existing != segment) {
+                    Path path = segmentPath(existing);
+                    size -= Files.size(path);
+                    Files.delete(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't delete the cart write-ahead log segments", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private void openNextSegment() throws IOException {
+        segment++;
+        channel = FileChannel.open(
+                segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND
+        );
+        size += channel.size();
+    }
+
+    private List<Long> existingSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(path -> SEGMENT_NAME.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve("cart-wal-" + number + ".log");
+    }
+
+    private static void readSegment(Path path, List<Entry> entries) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                // A crash can leave the last line incomplete
+                if (parts.length != 3) continue;
+                try {
+                    entries.add(new Entry(
+                            Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])
+                    ));
+                } catch (NumberFormatException e) {
+                    // incomplete line, ignored
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.edwbadillo.storedemo.common;
+
+import java.util.List;
+
+/**
+ * Represents a page of items read with a cursor (keyset pagination). Unlike {@link PageDTO}
+ * it has no total count, counting the items would read all of them.
+ *
+ * @param <T> the type of items in the page
+ * @param items the items of the page
+ * @param nextCursor opaque token to read the next page, null if this is the last page
+ * @param numItems the number of items in the page
+ * @author edwbadillo
+ */
+public record CursorPageDTO<T>(
+        List<T> items,
+        String nextCursor,
+        int numItems
+) {
+    public CursorPageDTO(List<T> items, String nextCursor) {
+        this(items, nextCursor, items.size());
+    }
+}
@@ -1,18 +1,52 @@
 package com.edwbadillo.storedemo.common;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
 import java.util.List;
 
 /**
  * Represents a page items, this is used for returning items from a paginated
  * query in controllers or services.
+ * <p>
+ * The totals are exact when the page comes from a {@link Page}. Pages read as a {@link Slice}
+ * (see {@link PageTotals}) have no totals, or estimated ones, and {@code hasNext} tells if
+ * there are more items.
  *
  * @param <T> the type of items in the page
  * @author edwbadillo
  */
 public record PageDTO<T>(
         List<T> items,
-        long totalCount,
-        int totalPages,
+        Long totalCount,
+        Integer totalPages,
         int numPage,
-        int numItems
-) { }
+        int numItems,
+        boolean hasNext,
+        boolean totalEstimated
+) {
+    public PageDTO(List<T> items, long totalCount, int totalPages, int numPage, int numItems) {
+        this(items, totalCount, totalPages, numPage, numItems, numPage + 1 < totalPages, false);
+    }
+
+    /**
+     * Creates a page without exact totals.
+     *
+     * @param slice               the items of the page
+     * @param estimatedTotalCount the estimated number of items of all pages, null if not computed
+     */
+    public static <T> PageDTO<T> ofSlice(Slice<T> slice, Long estimatedTotalCount) {
+        Integer totalPages = estimatedTotalCount == null
+                ? null
+                : (int) Math.ceil((double) estimatedTotalCount / Math.max(slice.getSize(), 1));
+        return new PageDTO<>(
+                slice.getContent(),
+                estimatedTotalCount,
+                totalPages,
+                slice.getNumber(),
+                slice.getNumberOfElements(),
+                slice.hasNext(),
+                estimatedTotalCount != null
+        );
+    }
+}
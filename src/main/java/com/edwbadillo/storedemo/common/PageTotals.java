@@ -0,0 +1,34 @@
+package com.edwbadillo.storedemo.common;
+
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+
+import java.util.Arrays;
+
+/**
+ * How the totals of a {@link PageDTO} are computed, selected with the {@code totals}
+ * request parameter of the paginated endpoints.
+ *
+ * @author edwbadillo
+ */
+public enum PageTotals {
+    /** Counted with a {@code COUNT} query on every request. */
+    EXACT,
+    /** Estimated by {@link RowCountEstimator}, without counting on the request. */
+    ESTIMATED,
+    /** Not computed, only {@code hasNext} is known. */
+    NONE;
+
+    /**
+     * Gets the mode by its parameter value (case-insensitive).
+     *
+     * @throws InvalidDataException if the mode is not supported
+     */
+    public static PageTotals fromParameter(String parameter) {
+        return Arrays.stream(values())
+                .filter(totals -> totals.name().equalsIgnoreCase(parameter))
+                .findFirst()
+                .orElseThrow(() -> new InvalidDataException(
+                        "invalid_value", "totals", "Totals must be one of exact, estimated, none", parameter
+                ));
+    }
+}
@@ -0,0 +1,72 @@
+package com.edwbadillo.storedemo.common;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Estimates the number of rows of a table without counting them on every request.
+ * <p>
+ * On PostgreSQL the estimate is {@code pg_class.reltuples}, kept up to date by autovacuum and
+ * {@code ANALYZE}. On other databases, or for tables never analyzed, the exact count is cached
+ * and refreshed in the background, requests are served the previous count meanwhile.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class RowCountEstimator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, LongSupplier> counters = new ConcurrentHashMap<>();
+    private final LoadingCache<String, Long> counts;
+
+    private volatile Boolean postgresql;
+
+    public RowCountEstimator(
+            JdbcTemplate jdbcTemplate,
+            @Value("${pagination.count-cache.refresh-seconds}") long refreshSeconds
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.counts = Caffeine.newBuilder()
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .build(table -> counters.get(table).getAsLong());
+    }
+
+    /**
+     * Estimates the number of rows of a table.
+     *
+     * @param table      the name of the table
+     * @param exactCount counts the rows, used when the database has no estimate
+     * @return the estimated number of rows
+     */
+    public long estimate(String table, LongSupplier exactCount) {
+        if (isPostgresql()) {
+            // -1 (or 0 before PostgreSQL 14) until the table is analyzed
+            Long reltuples = jdbcTemplate.queryForObject(
+                    "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(?)", Long.class, table
+            );
+            if (reltuples != null && reltuples > 0) return reltuples;
+        }
+
+        counters.putIfAbsent(table, exactCount);
+        return counts.get(table);
+    }
+
+    private boolean isPostgresql() {
+        if (postgresql == null) {
+            String databaseName = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()
+            );
+            postgresql = "PostgreSQL".equals(databaseName);
+        }
+        return postgresql;
+    }
+}
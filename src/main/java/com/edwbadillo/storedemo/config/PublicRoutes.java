@@ -0,0 +1,34 @@
+package com.edwbadillo.storedemo.config;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+/**
+ * Routes open to anonymous users, computed once and shared by the security
+ * configuration (permitAll) and the JWT filter (which skips them). Routes are
+ * listed one by one, a product id only matches digits, so a new route under
+ * {@code /api/products} is protected unless it is added here.
+ *
+ * @author edwbadillo
+ */
+public final class PublicRoutes {
+
+    public static final RequestMatcher MATCHER = new OrRequestMatcher(
+            antMatcher("/v3/api-docs/**"),
+            antMatcher("/swagger-ui/**"),
+            antMatcher("/swagger-ui.html"),
+            antMatcher("/api/auth/customers/login"),
+            antMatcher("/api/auth/refresh"),
+            antMatcher(HttpMethod.GET, "/api/products"),
+            antMatcher(HttpMethod.GET, "/api/products/{id:\\d+}"),
+            antMatcher(HttpMethod.GET, "/api/products/search"),
+            antMatcher(HttpMethod.GET, "/api/products/suggest"),
+            antMatcher(HttpMethod.GET, "/api/products/facets")
+    );
+
+    private PublicRoutes() {
+    }
+}
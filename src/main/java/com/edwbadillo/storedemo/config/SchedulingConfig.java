@@ -0,0 +1,14 @@
+package com.edwbadillo.storedemo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the background tasks (refresh of in-memory data, cleanups, etc.)
+ *
+ * @author edwbadillo
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -3,10 +3,11 @@ package com.edwbadillo.storedemo.config;
 
 import com.edwbadillo.storedemo.auth.UserDetailsServiceImpl;
 import com.edwbadillo.storedemo.auth.jwt.JwtAuthorizationFilter;
+import com.edwbadillo.storedemo.auth.password.AdaptiveBCryptPasswordEncoder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -16,8 +17,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -30,13 +29,34 @@ public class SpringSecurityConfig {
     @Autowired
     private JwtAuthorizationFilter jwtAuthorizationFilter;
 
+    @Value("${auth.password.target-hash-millis}")
+    private long passwordTargetHashMillis;
+
+    @Value("${auth.password.min-strength}")
+    private int passwordMinStrength;
+
+    @Value("${auth.password.max-strength}")
+    private int passwordMaxStrength;
+
+    @Value("${auth.password.hashing-threads}")
+    private int passwordHashingThreads;
+
+    @Value("${auth.password.hashing-queue-size}")
+    private int passwordHashingQueueSize;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new AdaptiveBCryptPasswordEncoder(
+                passwordTargetHashMillis,
+                passwordMinStrength,
+                passwordMaxStrength,
+                passwordHashingThreads,
+                passwordHashingQueueSize
+        );
     }
 
     @Bean
-    public UserDetailsService userDetailsService() {
+    public UserDetailsServiceImpl userDetailsService() {
         return new UserDetailsServiceImpl();
     }
 
@@ -46,12 +66,9 @@ public class SpringSecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
-                        .requestMatchers("/api/auth/customers/login").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/api/products/categories").authenticated()
-                        .requestMatchers(
-                               HttpMethod.GET,"/api/products", "/api/products/{id}"
-                        ).permitAll()
+                        .requestMatchers(PublicRoutes.MATCHER).permitAll()
                         .anyRequest()
                         .authenticated()
                 )
@@ -65,6 +82,8 @@ public class SpringSecurityConfig {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(userDetailsService());
         authenticationProvider.setPasswordEncoder(passwordEncoder());
+        // Rehashes the password on login when its cost is weaker than the calibrated one
+        authenticationProvider.setUserDetailsPasswordService(userDetailsService());
         return authenticationProvider;
 
     }
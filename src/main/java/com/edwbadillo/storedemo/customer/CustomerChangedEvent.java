@@ -0,0 +1,21 @@
+package com.edwbadillo.storedemo.customer;
+
+/**
+ * Published after a customer is registered, updated, disabled or enabled,
+ * so components holding customer data in memory can refresh it.
+ *
+ * @param id the id of the customer
+ * @param email the current email of the customer
+ * @param disabled whether the customer is disabled
+ *
+ * @author edwbadillo
+ */
+public record CustomerChangedEvent(
+    Integer id,
+    String email,
+    boolean disabled
+) {
+    public CustomerChangedEvent(Customer customer) {
+        this(customer.getId(), customer.getEmail(), customer.isDisabled());
+    }
+}
@@ -1,8 +1,10 @@
 package com.edwbadillo.storedemo.customer;
 
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
 import com.edwbadillo.storedemo.customer.dto.*;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springdoc.core.annotations.ParameterObject;
@@ -26,10 +28,13 @@ public class CustomerController {
     @Autowired
     private CustomerService customerService;
 
-    @Operation(summary = "Paginate customers", description = "Get a slice of customers (paginated).")
+    @Operation(summary = "Paginate customers", description = "Get a slice of customers (paginated). Use `totals=estimated` or `totals=none` to skip the count query on big tables.")
     @GetMapping
-    public PageDTO<CustomerInfo> paginate(@ParameterObject Pageable pageable) {
-        return customerService.paginate(pageable);
+    public PageDTO<CustomerInfo> paginate(
+            @ParameterObject Pageable pageable,
+            @Parameter(description = "exact (COUNT query), estimated or none") @RequestParam(defaultValue = "exact") String totals
+    ) {
+        return customerService.paginate(pageable, PageTotals.fromParameter(totals));
     }
 
     @Operation(summary = "Get customer", description = "Get a existing customer by its ID.")
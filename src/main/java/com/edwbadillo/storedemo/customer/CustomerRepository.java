@@ -1,8 +1,14 @@
 package com.edwbadillo.storedemo.customer;
 
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -13,6 +19,13 @@ import java.util.Optional;
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Integer> {
 
+    /**
+     * Gets a page of customers without counting them, one more row is read to know if there is a next page.
+     *
+     * @param pageable the pagination information
+     */
+    Slice<Customer> findAllBy(Pageable pageable);
+
     Optional<Customer> findByEmail(String email);
 
     boolean existsByDni(String dni);
@@ -20,4 +33,18 @@ public interface CustomerRepository extends JpaRepository<Customer, Integer> {
 
     boolean existsByEmail(String email);
     boolean existsByEmailAndIdNot(String email, Integer id);
+
+    @Query("SELECT c.email FROM Customer c")
+    List<String> findAllEmails();
+
+    @Query("SELECT c.email FROM Customer c WHERE c.id = :id")
+    Optional<String> findEmailById(Integer id);
+
+    @Query("SELECT c.id FROM Customer c WHERE c.disabledAt IS NOT NULL")
+    List<Integer> findDisabledIds();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Customer c SET c.password = :password WHERE c.id = :id")
+    void updatePassword(Integer id, String password);
 }
@@ -1,6 +1,7 @@
 package com.edwbadillo.storedemo.customer;
 
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
 import com.edwbadillo.storedemo.customer.dto.*;
 import org.springframework.data.domain.Pageable;
 
@@ -19,6 +20,16 @@ public interface CustomerService {
      */
     PageDTO<CustomerInfo> paginate(Pageable pageable);
 
+    /**
+     * Paginates the customers, computing the totals as requested. Without exact totals
+     * there is no {@code COUNT} query.
+     *
+     * @param pageable the pagination information
+     * @param totals   how the totals are computed
+     * @return a {@link PageDTO} of the {@link CustomerInfo} objects
+     */
+    PageDTO<CustomerInfo> paginate(Pageable pageable, PageTotals totals);
+
     /**
      * Get a customer by its id.
      *
@@ -1,12 +1,16 @@
 package com.edwbadillo.storedemo.customer;
 
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
+import com.edwbadillo.storedemo.common.RowCountEstimator;
 import com.edwbadillo.storedemo.customer.dto.*;
 import com.edwbadillo.storedemo.customer.exception.CustomerNotFoundException;
 import com.edwbadillo.storedemo.exception.InvalidDataException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -26,15 +30,32 @@ public class CustomerServiceImpl implements CustomerService {
     @Autowired
     private CustomerMapper customerMapper;
 
+    @Autowired
+    private RowCountEstimator rowCountEstimator;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public PageDTO<CustomerInfo> paginate(Pageable pageable) {
         Page<Customer> page = customerRepository.findAll(pageable);
         return customerMapper.getPage(page);
     }
 
+    @Override
+    public PageDTO<CustomerInfo> paginate(Pageable pageable, PageTotals totals) {
+        if (totals == PageTotals.EXACT) return paginate(pageable);
+
+        Slice<CustomerInfo> slice = customerRepository.findAllBy(pageable).map(customerMapper::getInfo);
+        Long totalCount = totals == PageTotals.ESTIMATED
+                ? rowCountEstimator.estimate("customer", customerRepository::count)
+                : null;
+        return PageDTO.ofSlice(slice, totalCount);
+    }
+
     @Override
     public CustomerDetails getById(Integer id) {
         Customer customer = customerRepository.findById(id).orElseThrow(
@@ -59,6 +80,7 @@ public class CustomerServiceImpl implements CustomerService {
         customer.setPassword(hashedPassword);
 
         customerRepository.save(customer);
+        eventPublisher.publishEvent(new CustomerChangedEvent(customer));
         return customerMapper.getDetails(customer);
     }
 
@@ -78,6 +100,7 @@ public class CustomerServiceImpl implements CustomerService {
 
         customerMapper.updateEntity(data, customer);
         customerRepository.save(customer);
+        eventPublisher.publishEvent(new CustomerChangedEvent(customer));
         return customerMapper.getDetails(customer);
     }
 
@@ -89,6 +112,7 @@ public class CustomerServiceImpl implements CustomerService {
         if (!customer.isDisabled()) {
             customer.setDisabledAt(LocalDateTime.now());
             customerRepository.save(customer);
+            eventPublisher.publishEvent(new CustomerChangedEvent(customer));
         }
 
         return customerMapper.getStatusInfo(customer);
@@ -102,6 +126,7 @@ public class CustomerServiceImpl implements CustomerService {
         if (customer.isDisabled()) {
             customer.setDisabledAt(null);
             customerRepository.save(customer);
+            eventPublisher.publishEvent(new CustomerChangedEvent(customer));
         }
 
         return customerMapper.getStatusInfo(customer);
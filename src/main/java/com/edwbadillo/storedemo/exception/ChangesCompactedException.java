@@ -0,0 +1,17 @@
+package com.edwbadillo.storedemo.exception;
+
+/**
+ * Thrown when a change feed is read from a position whose changes were removed by the compaction,
+ * the reader has to load the data again instead of applying the changes.
+ *
+ * <p>This exception is mainly used to be captured by the ControllerAdvice
+ * and display a response with status 410.
+ *
+ * @author edwbadillo
+ */
+public class ChangesCompactedException extends RuntimeException {
+
+    public ChangesCompactedException(String message) {
+        super(message);
+    }
+}
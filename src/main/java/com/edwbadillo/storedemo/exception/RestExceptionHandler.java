@@ -3,6 +3,7 @@ package com.edwbadillo.storedemo.exception;
 import com.edwbadillo.storedemo.common.InvalidField;
 import com.edwbadillo.storedemo.common.InvalidRequestBody;
 import com.edwbadillo.storedemo.common.SimpleMessageResponse;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -64,4 +65,29 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
     public SimpleMessageResponse handleDataIntegrityViolation(DataIntegrityException e) {
         return new SimpleMessageResponse(e.getMessage());
     }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public SimpleMessageResponse handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return new SimpleMessageResponse("The resource was modified by another request, reload it and try again");
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public SimpleMessageResponse handleServiceBusy(ServiceBusyException e) {
+        return new SimpleMessageResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(ChangesCompactedException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    public SimpleMessageResponse handleChangesCompacted(ChangesCompactedException e) {
+        return new SimpleMessageResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<SimpleMessageResponse> handleTooManyRequests(TooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new SimpleMessageResponse(e.getMessage()));
+    }
 }
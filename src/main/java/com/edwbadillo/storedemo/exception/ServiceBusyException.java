@@ -0,0 +1,17 @@
+package com.edwbadillo.storedemo.exception;
+
+/**
+ * Thrown when an operation is rejected because the resources reserved for it are
+ * exhausted (for example, too many passwords being hashed at the same time).
+ *
+ * <p>This exception is mainly used to be captured by the ControllerAdvice
+ * and display a response with status 503.
+ *
+ * @author edwbadillo
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
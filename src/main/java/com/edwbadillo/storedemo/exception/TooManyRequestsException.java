@@ -0,0 +1,26 @@
+package com.edwbadillo.storedemo.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a client exceeds the number of attempts allowed for an operation,
+ * for example, too many login attempts for the same account.
+ *
+ * <p>This exception is mainly used to be captured by the ControllerAdvice
+ * and display a response with status 429.
+ *
+ * @author edwbadillo
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    /**
+     * Seconds the client should wait before trying again.
+     */
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -5,6 +5,9 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 /**
  * The product in the store belongs to a category.
@@ -18,8 +21,13 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class Product {
 
+    /**
+     * Allocated from the sequence in blocks (its increment is the allocation size), unlike an
+     * identity column the id is known before the insert and inserts can be batched.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_id_seq")
+    @SequenceGenerator(name = "product_id_seq", sequenceName = "product_id_seq", allocationSize = 50)
     private Integer id;
     private String name;
     private String description;
@@ -31,6 +39,29 @@ public class Product {
     @JoinColumn(name = "category_id")
     private Category category;
 
+    /**
+     * Incremented by every update, concurrent updates of the same product fail instead of
+     * overwriting each other. Also used as the ETag of the product.
+     */
+    @Version
+    private long version;
+
+    /**
+     * Set on every insert and update, used to export the products changed since a date.
+     */
+    @UpdateTimestamp
+    private Instant updatedAt;
+
+    public Product(Integer id, String name, String description, boolean isActive, double price, int quantity, Category category) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.isActive = isActive;
+        this.price = price;
+        this.quantity = quantity;
+        this.category = category;
+    }
+
     public Product(String name, String description, Category category) {
         this.name = name;
         this.description = description;
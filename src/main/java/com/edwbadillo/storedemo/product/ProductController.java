@@ -1,12 +1,29 @@
 package com.edwbadillo.storedemo.product;
 
+import com.edwbadillo.storedemo.common.CursorPageDTO;
 import com.edwbadillo.storedemo.common.InvalidField;
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
 import com.edwbadillo.storedemo.common.SimpleMessageResponse;
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+import com.edwbadillo.storedemo.product.dto.ProductChanges;
 import com.edwbadillo.storedemo.product.dto.ProductDetails;
+import com.edwbadillo.storedemo.product.dto.ProductFacets;
+import com.edwbadillo.storedemo.product.dto.ProductImportResult;
 import com.edwbadillo.storedemo.product.dto.ProductInfo;
 import com.edwbadillo.storedemo.product.dto.ProductRegister;
+import com.edwbadillo.storedemo.product.dto.ProductSuggestion;
+import com.edwbadillo.storedemo.product.dto.StockReservationDetails;
+import com.edwbadillo.storedemo.product.dto.StockReservationRequest;
+import com.edwbadillo.storedemo.product.export.AcceptEncoding;
+import com.edwbadillo.storedemo.product.export.ProductExportFormat;
+import com.edwbadillo.storedemo.product.export.ProductExportService;
+import com.edwbadillo.storedemo.product.importer.ProductImportFormat;
+import com.edwbadillo.storedemo.product.importer.ProductImportService;
+import com.edwbadillo.storedemo.product.stock.StockService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -16,9 +33,22 @@ import jakarta.validation.Valid;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Defines the endpoints for managing product resources.
@@ -33,16 +63,237 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
-    @Operation(summary = "Paginate products", description = "Get a slice of products (paginated).")
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Operation(summary = "Paginate products", description = "Get a slice of products (paginated), optionally filtered. The price range includes `minPrice` and excludes `maxPrice`. Use `totals=estimated` or `totals=none` to skip the count query on big tables.")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page of products",
+                    content = { @Content(schema = @Schema(implementation = PageDTO.class), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid price range or totals" ,
+                    content = { @Content(schema = @Schema(implementation = InvalidField.class), mediaType = "application/json") }),
+    })
     @GetMapping
-    public PageDTO<ProductInfo> paginate(@ParameterObject Pageable pageable) {
-        return productService.paginate(pageable);
+    public PageDTO<ProductInfo> paginate(
+            @ParameterObject Pageable pageable,
+            @Parameter(description = "exact (COUNT query), estimated or none") @RequestParam(defaultValue = "exact") String totals,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) Boolean inStock
+    ) {
+        ProductFilter filter = new ProductFilter(categoryId, minPrice, maxPrice, active, inStock);
+        return productService.paginate(pageable, PageTotals.fromParameter(totals), filter);
+    }
+
+    @Operation(
+            summary = "Product facets",
+            description = "Count the products matching the filters of the listing by category and by price bucket. " +
+                    "The category counts ignore `categoryId` and the price counts ignore the price range, so they " +
+                    "tell how many products each choice would give."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Product counts",
+                    content = { @Content(schema = @Schema(implementation = ProductFacets.class), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid price range" ,
+                    content = { @Content(schema = @Schema(implementation = InvalidField.class), mediaType = "application/json") }),
+    })
+    @GetMapping("/facets")
+    public ProductFacets facets(
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) Boolean inStock
+    ) {
+        return productService.getFacets(new ProductFilter(categoryId, minPrice, maxPrice, active, inStock));
+    }
+
+    @Operation(
+            summary = "Seek products",
+            description = "Get a page of products after a cursor, without total count. Send an empty `after` for the " +
+                    "first page and the `nextCursor` of the response for the next one, the cursor keeps the sort order. " +
+                    "Unlike the offset pagination, deep pages are as fast as the first one."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page of products",
+                    content = { @Content(schema = @Schema(implementation = CursorPageDTO.class), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid cursor, sort or size" ,
+                    content = { @Content(schema = @Schema(implementation = InvalidField.class), mediaType = "application/json") }),
+    })
+    @GetMapping(params = "after")
+    public CursorPageDTO<ProductInfo> seek(
+            @RequestParam String after,
+            @Parameter(description = "id, name or price") @RequestParam(defaultValue = "id") String sort,
+            @Parameter(description = "asc or desc") @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if (!direction.equalsIgnoreCase("asc") && !direction.equalsIgnoreCase("desc")) {
+            throw new InvalidDataException("invalid_value", "direction", "Direction must be asc or desc", direction);
+        }
+        return productService.seek(after, ProductSort.fromParameter(sort), direction.equalsIgnoreCase("desc"), size);
+    }
+
+    @Operation(
+            summary = "Search products",
+            description = "Search products by name and description, the most relevant first. Send the `nextCursor` " +
+                    "of the response as `after` to get the next page."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Products found",
+                    content = { @Content(schema = @Schema(implementation = CursorPageDTO.class), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid query, cursor or size" ,
+                    content = { @Content(schema = @Schema(implementation = InvalidField.class), mediaType = "application/json") }),
+    })
+    @GetMapping("/search")
+    public CursorPageDTO<ProductInfo> search(
+            @Parameter(description = "Words to search, supports \"quoted phrases\", OR and -excluded") @RequestParam String q,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return productService.search(q, categoryId, active, after, size);
+    }
+
+    @Operation(
+            summary = "Suggest products",
+            description = "Suggest active products while a search is typed, the last word is a prefix. Answered " +
+                    "from memory, products whose name matches come first."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Products suggested",
+                    content = { @Content(array = @ArraySchema(schema = @Schema(implementation = ProductSuggestion.class)), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid prefix or limit" ,
+                    content = { @Content(schema = @Schema(implementation = InvalidField.class), mediaType = "application/json") }),
+    })
+    @GetMapping("/suggest")
+    public List<ProductSuggestion> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return productService.suggest(prefix, limit);
+    }
+
+    @Operation(
+            summary = "Product changes",
+            description = "Read the products (inactive ones included) created, updated and deleted after a seq, with their data after the " +
+                    "change. Start with `since=0` (or the seq given when the feed is gone) and send the `nextSince` " +
+                    "of the response to read the next changes. Old changes are compacted: only the last change " +
+                    "of a product is kept, and if deletes after `since` were removed the response is 410 and the " +
+                    "products must be exported again."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Changes after the seq",
+                    content = { @Content(schema = @Schema(implementation = ProductChanges.class), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid seq or limit" ,
+                    content = { @Content(schema = @Schema(implementation = InvalidField.class), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "410",
+                    description = "Changes after the seq were compacted" ,
+                    content = { @Content(schema = @Schema(implementation = SimpleMessageResponse.class), mediaType = "application/json") }),
+    })
+    @GetMapping("/changes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ProductChanges changes(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "1000") int limit
+    ) {
+        return productService.getChanges(since, limit);
     }
 
-    @Operation(summary = "Get product", description = "Get a existing product by its ID.")
+    @Operation(
+            summary = "Export products",
+            description = "Stream every product (inactive ones included) as NDJSON or CSV, in a single response whatever the catalog size. " +
+                    "Use `changedSince` to get only the products created or updated since a date (deleted products " +
+                    "are not exported). The response is compressed if the request accepts gzip."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The products, one per line"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid format" ,
+                    content = { @Content(schema = @Schema(implementation = InvalidField.class), mediaType = "application/json") }),
+    })
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "ndjson or csv") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "ISO-8601 instant, e.g. 2024-05-01T00:00:00Z") @RequestParam(required = false) Instant changedSince,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        ProductExportFormat exportFormat = ProductExportFormat.fromParameter(format);
+        boolean gzip = AcceptEncoding.acceptsGzip(acceptEncoding);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + exportFormat.name().toLowerCase(Locale.ROOT) + "\"")
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        return response.body(output -> {
+            if (!gzip) {
+                productExportService.export(output, exportFormat, changedSince);
+                return;
+            }
+            GZIPOutputStream compressed = new GZIPOutputStream(output, 64 * 1024);
+            productExportService.export(compressed, exportFormat, changedSince);
+            compressed.finish();
+        });
+    }
+
+    @Operation(summary = "Get product", description = "Get a existing product by its ID. Supports If-None-Match with the ETag of a previous response.")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Product found",
+                    content = { @Content(schema = @Schema(implementation = ProductDetails.class), mediaType = "application/json") }),
+            @ApiResponse(responseCode = "304", description = "Product not modified since the given ETag", content = @Content),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Product not found" ,
+                    content = { @Content(schema = @Schema(implementation = SimpleMessageResponse.class), mediaType = "application/json") }),
+    })
     @GetMapping("/{id}")
-    public ProductDetails findById(@PathVariable Integer id) {
-        return productService.getById(id);
+    public ResponseEntity<ProductDetails> findById(@PathVariable Integer id, WebRequest request) {
+        // The version is checked before loading the product, unchanged products are not loaded nor serialized
+        Optional<String> version = productService.getVersion(id);
+        if (version.isPresent() && request.checkNotModified(version.get())) return null;
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        version.ifPresent(response::eTag);
+        return response.body(productService.getById(id));
     }
 
     @Operation(summary = "Create product", description = "Create a new product with the given data.")
@@ -63,6 +314,87 @@ public class ProductController {
         return productService.create(data);
     }
 
+    @Operation(
+            summary = "Import products",
+            description = "Create many products from a CSV (`text/csv`, with a header row) or NDJSON " +
+                    "(`application/x-ndjson`) body, read as it arrives. Products with errors are reported by their " +
+                    "number in the body and skipped, the others are created."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Import finished",
+                    content = { @Content(schema = @Schema(implementation = ProductImportResult.class), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unsupported content type or invalid CSV header" ,
+                    content = { @Content(schema = @Schema(implementation = InvalidField.class), mediaType = "application/json") }),
+    })
+    @PostMapping(value = "/import", consumes = { "text/csv", "application/x-ndjson" })
+    @PreAuthorize("hasRole('ADMIN')")
+    public ProductImportResult importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) {
+        return productImportService.importProducts(body, ProductImportFormat.fromContentType(contentType));
+    }
+
+    @Operation(
+            summary = "Reserve stock",
+            description = "Reserve units of a product for the authenticated customer. The units are held until " +
+                    "the reservation is confirmed, released or expires, and no one else can reserve them."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "201",
+                    description = "Units reserved",
+                    content = { @Content(schema = @Schema(implementation = StockReservationDetails.class), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Product not found" ,
+                    content = { @Content(schema = @Schema(implementation = SimpleMessageResponse.class), mediaType = "application/json") }),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "The product isn't active or hasn't enough units" ,
+                    content = { @Content(schema = @Schema(implementation = SimpleMessageResponse.class), mediaType = "application/json") }),
+    })
+    @PostMapping("/{id}/reservations")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    @ResponseStatus(HttpStatus.CREATED)
+    public StockReservationDetails reserve(@PathVariable Integer id, @Valid @RequestBody StockReservationRequest data) {
+        return stockService.reserve(id, data.quantity());
+    }
+
+    @Operation(summary = "Release reservation", description = "Release a reservation of the authenticated customer, its units can be reserved again.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Reservation released", content = @Content),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Reservation not found or expired" ,
+                    content = { @Content(schema = @Schema(implementation = SimpleMessageResponse.class), mediaType = "application/json") }),
+    })
+    @DeleteMapping("/reservations/{reservationId}")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void release(@PathVariable Long reservationId) {
+        stockService.release(reservationId);
+    }
+
+    @Operation(summary = "Confirm reservation", description = "Confirm a reservation once its units are sold, they are not given back.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Reservation confirmed", content = @Content),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Reservation not found or expired" ,
+                    content = { @Content(schema = @Schema(implementation = SimpleMessageResponse.class), mediaType = "application/json") }),
+    })
+    @PostMapping("/reservations/{reservationId}/confirm")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void confirm(@PathVariable Long reservationId) {
+        stockService.confirm(reservationId);
+    }
+
     @Operation(summary = "Update product", description = "Update an existing product with the given data.")
     @ApiResponses({
             @ApiResponse(
@@ -0,0 +1,79 @@
+package com.edwbadillo.storedemo.product;
+
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+import com.edwbadillo.storedemo.product.dto.ProductInfo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the keyset pagination of products: the sort key and direction, and the sort
+ * value and id of the last product read. It is sent to the clients as an opaque token.
+ *
+ * @param sort       the sort key
+ * @param descending whether the products are sorted in descending order
+ * @param value      the sort value of the last product read, null for the first page
+ * @param id         the id of the last product read, null for the first page
+ *
+ * @author edwbadillo
+ */
+public record ProductCursor(
+    ProductSort sort,
+    boolean descending,
+    Object value,
+    Integer id
+) {
+
+    /**
+     * Cursor of the first page.
+     */
+    public static ProductCursor first(ProductSort sort, boolean descending) {
+        return new ProductCursor(sort, descending, null, null);
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    /**
+     * Cursor of the page after a product, with the same order.
+     */
+    public ProductCursor after(ProductInfo product) {
+        return new ProductCursor(sort, descending, sort.valueOf(product), product.id());
+    }
+
+    /**
+     * Encodes the cursor as a URL-safe token.
+     */
+    public String encode() {
+        // The value goes last, a name may contain the separator
+        String text = sort.getAttribute() + ":" + (descending ? "desc" : "asc") + ":" + id + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token of {@link #encode()}.
+     *
+     * @throws InvalidDataException if the token is not valid
+     */
+    public static ProductCursor decode(String token) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = text.split(":", 4);
+            if (parts.length != 4 || !(parts[1].equals("asc") || parts[1].equals("desc"))) {
+                throw new IllegalArgumentException(text);
+            }
+
+            ProductSort sort = ProductSort.fromParameter(parts[0]);
+            Integer id = Integer.valueOf(parts[2]);
+            Object value = switch (sort) {
+                case ID -> id;
+                case NAME -> parts[3];
+                case PRICE -> Double.valueOf(parts[3]);
+            };
+            return new ProductCursor(sort, parts[1].equals("desc"), value, id);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataException("invalid_value", "after", "Invalid cursor", token);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.edwbadillo.storedemo.product;
+
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filters of the product listing, null values don't filter. The price range includes
+ * {@code minPrice} and excludes {@code maxPrice}, like the price buckets of the facets.
+ *
+ * @author edwbadillo
+ */
+public record ProductFilter(
+    Integer categoryId,
+    Double minPrice,
+    Double maxPrice,
+    Boolean active,
+    Boolean inStock
+) {
+
+    public static final ProductFilter NONE = new ProductFilter(null, null, null, null, null);
+
+    /**
+     * Checks the price range.
+     *
+     * @throws InvalidDataException if a price is negative or not finite, or the range is empty
+     */
+    public void validate() {
+        if (minPrice != null && !(minPrice >= 0 && Double.isFinite(minPrice))) {
+            throw new InvalidDataException("invalid_value", "minPrice", "Price must be positive", minPrice);
+        }
+        if (maxPrice != null && !(maxPrice >= 0 && Double.isFinite(maxPrice))) {
+            throw new InvalidDataException("invalid_value", "maxPrice", "Price must be positive", maxPrice);
+        }
+        if (minPrice != null && maxPrice != null && minPrice >= maxPrice) {
+            throw new InvalidDataException("invalid_value", "maxPrice", "Max price must be greater than min price", maxPrice);
+        }
+    }
+
+    public boolean isEmpty() {
+        return equals(NONE);
+    }
+
+    /**
+     * The same filter for any category, used to count the products of every category.
+     */
+    public ProductFilter withoutCategory() {
+        return new ProductFilter(null, minPrice, maxPrice, active, inStock);
+    }
+
+    /**
+     * The same filter for any price, used to count the products of every price bucket.
+     */
+    public ProductFilter withoutPrice() {
+        return new ProductFilter(categoryId, null, null, active, inStock);
+    }
+
+    /**
+     * Checks the filters other than the price range.
+     */
+    public boolean matches(int productCategoryId, boolean productActive, boolean productInStock) {
+        return (categoryId == null || categoryId == productCategoryId)
+                && (active == null || active == productActive)
+                && (inStock == null || inStock == productInStock);
+    }
+
+    /**
+     * Gets the filter as a JPA condition.
+     */
+    public Specification<Product> toSpecification() {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (categoryId != null) predicates.add(builder.equal(root.get("category").get("id"), categoryId));
+            if (minPrice != null) predicates.add(builder.greaterThanOrEqualTo(root.get("price"), numeric(builder, minPrice)));
+            if (maxPrice != null) predicates.add(builder.lessThan(root.get("price"), numeric(builder, maxPrice)));
+            if (active != null) predicates.add(builder.equal(root.get("isActive"), active));
+            if (inStock != null) {
+                predicates.add(inStock
+                        ? builder.greaterThan(root.get("quantity"), 0)
+                        : builder.lessThanOrEqualTo(root.get("quantity"), 0));
+            }
+            return builder.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * A price as a {@code NUMERIC} literal. A parameter takes the double type of the attribute,
+     * PostgreSQL would then cast the price column to float8 and the price indexes could not serve
+     * the range.
+     */
+    private static Expression<BigDecimal> numeric(CriteriaBuilder builder, Double price) {
+        return builder.literal(BigDecimal.valueOf(price));
+    }
+}
@@ -1,17 +1,150 @@
 package com.edwbadillo.storedemo.product;
 
+import com.edwbadillo.storedemo.product.dto.ProductExportRow;
+import com.edwbadillo.storedemo.product.dto.ProductInfo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 /**
  * Repository for {@link Product}.
  *
  * @author edwbadillo
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Integer> {
+public interface ProductRepository extends JpaRepository<Product, Integer>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
+
+    /**
+     * Gets a page of products without counting them, one more row is read to know if there is a next page.
+     *
+     * @param pageable the pagination information
+     */
+    Slice<Product> findAllBy(Pageable pageable);
 
     boolean existsByNameIgnoreCase(String name);
 
     boolean existsByNameIgnoreCaseAndIdNot(String name, Integer id);
+
+    /**
+     * Gets which names are in use, ignoring case, with a single query.
+     *
+     * @param lowerCaseNames the names to check, in lower case
+     * @return the names of the products with any of them
+     */
+    @Query("SELECT p.name FROM Product p WHERE LOWER(p.name) IN :lowerCaseNames")
+    List<String> findNamesIn(Collection<String> lowerCaseNames);
+
+    /**
+     * Gets the basic information of products with a single query, without loading their categories.
+     *
+     * @param ids the ids of the products
+     */
+    @Query("""
+            SELECT new com.edwbadillo.storedemo.product.dto.ProductInfo(p.id, p.name, p.isActive, p.price, p.quantity)
+            FROM Product p
+            WHERE p.id IN :ids""")
+    List<ProductInfo> findInfoByIdIn(Collection<Integer> ids);
+
+    /**
+     * Gets the version tag of a product without loading it, the product and category
+     * versions separated by a dot.
+     *
+     * @param id the id of the product
+     */
+    @Query("""
+            SELECT CONCAT(CAST(p.version AS String), '.', CAST(c.version AS String))
+            FROM Product p JOIN p.category c
+            WHERE p.id = :id""")
+    Optional<String> findVersionTagById(Integer id);
+
+    /**
+     * Gets a tag of the versions of products: how many of them exist and the sum of their versions,
+     * separated by a dot. Versions only grow and deleted products lower the count, so for the same
+     * ids the tag changes when any product is updated or deleted and never takes a value again.
+     *
+     * @param ids the ids of the products
+     */
+    @Query("""
+            SELECT CONCAT(CAST(COUNT(p) AS String), '.', CAST(COALESCE(SUM(p.version), 0) AS String))
+            FROM Product p
+            WHERE p.id IN :ids""")
+    String findVersionsTagByIdIn(Collection<Integer> ids);
+
+    /**
+     * Streams all the products by id for the catalog export. The rows are read with a forward-only
+     * cursor in blocks of the fetch size and are not managed entities, so the memory used doesn't
+     * grow with the catalog. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.edwbadillo.storedemo.product.dto.ProductExportRow(
+                p.id, p.name, p.description, p.isActive, p.price, p.quantity, p.category.id, p.updatedAt)
+            FROM Product p
+            ORDER BY p.id""")
+    Stream<ProductExportRow> streamExport();
+
+    /**
+     * Streams the products changed (created or updated) since a date, the oldest change first,
+     * like {@link #streamExport()}.
+     *
+     * @param since the date, included
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.edwbadillo.storedemo.product.dto.ProductExportRow(
+                p.id, p.name, p.description, p.isActive, p.price, p.quantity, p.category.id, p.updatedAt)
+            FROM Product p
+            WHERE p.updatedAt >= :since
+            ORDER BY p.updatedAt, p.id""")
+    Stream<ProductExportRow> streamExportChangedSince(Instant since);
+
+    /**
+     * Takes units of an active product if it has them, with a single conditional update: concurrent
+     * takes wait for the row lock and then check the quantity left, so the stock never goes below 0.
+     * The version and update date change like in an update of the product.
+     *
+     * @return 1 if the units were taken, 0 if the product doesn't exist, isn't active or hasn't them
+     */
+    @Modifying
+    @Query("""
+            UPDATE Product p SET p.quantity = p.quantity - :quantity, p.version = p.version + 1, p.updatedAt = :now
+            WHERE p.id = :id AND p.isActive = true AND p.quantity >= :quantity""")
+    int takeStock(Integer id, int quantity, Instant now);
+
+    /**
+     * Gives back units taken with {@link #takeStock(Integer, int, Instant)}.
+     *
+     * @return 1 if the units were given back, 0 if the product doesn't exist
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :quantity, p.version = p.version + 1, p.updatedAt = :now WHERE p.id = :id")
+    int returnStock(Integer id, int quantity, Instant now);
+
+    @Query("SELECT p.quantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findQuantityById(Integer id);
+
+    @Query("SELECT p.isActive FROM Product p WHERE p.id = :id")
+    Optional<Boolean> findActiveById(Integer id);
+
+    @Query("SELECT p.price FROM Product p WHERE p.id = :id")
+    Optional<Double> findPriceById(Integer id);
 }
@@ -0,0 +1,54 @@
+package com.edwbadillo.storedemo.product;
+
+import com.edwbadillo.storedemo.product.dto.ProductInfo;
+import com.edwbadillo.storedemo.product.dto.ProductSearchHit;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Custom operations of {@link ProductRepository} that can't be derived by Spring Data.
+ *
+ * @author edwbadillo
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Gets the products after a cursor (keyset pagination), with a condition on the sort key and
+     * id instead of an offset: the query reads only the returned rows from the {@code (key, id)}
+     * index, however deep the page is.
+     *
+     * @param cursor the position of the last product read
+     * @param limit  the maximum number of products
+     * @return the products in the cursor order
+     */
+    List<ProductInfo> findAfter(ProductCursor cursor, int limit);
+
+    /**
+     * Searches products by name and description, the most relevant first (ties by id).
+     * <p>
+     * On PostgreSQL the query is parsed with {@code websearch_to_tsquery} and matched against the
+     * {@code search_vector} column (GIN index), the name weighs more than the description. Other
+     * databases (H2 in tests) match every word with {@code LIKE}, ranking matches in the name higher.
+     *
+     * @param query      the search text
+     * @param categoryId only products of this category, null for all
+     * @param active     only active or inactive products, null for all
+     * @param after      the last product of the previous page, null for the first page
+     * @param limit      the maximum number of products
+     * @return the products found with their rank
+     */
+    List<ProductSearchHit> search(String query, Integer categoryId, Boolean active, SearchCursor after, int limit);
+
+    /**
+     * Gets a page of the products matching a condition without counting them, one more row
+     * is read to know if there is a next page.
+     *
+     * @param specification the condition
+     * @param pageable      the pagination information
+     */
+    Slice<Product> findSlice(Specification<Product> specification, Pageable pageable);
+}
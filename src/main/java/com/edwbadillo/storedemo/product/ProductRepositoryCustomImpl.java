@@ -0,0 +1,189 @@
+package com.edwbadillo.storedemo.product;
+
+import com.edwbadillo.storedemo.product.dto.ProductInfo;
+import com.edwbadillo.storedemo.product.dto.ProductSearchHit;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.Query;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Implementation of {@link ProductRepositoryCustom}.
+ *
+ * @author edwbadillo
+ */
+class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    /**
+     * Words of the search text used by the {@code LIKE} fallback, more words are ignored.
+     */
+    private static final int MAX_FALLBACK_WORDS = 10;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgresql;
+
+    @Override
+    public List<ProductInfo> findAfter(ProductCursor cursor, int limit) {
+        // The attribute comes from ProductSort, never from the request
+        String key = "p." + cursor.sort().getAttribute();
+        String operator = cursor.descending() ? "<" : ">";
+        String direction = cursor.descending() ? "DESC" : "ASC";
+
+        StringBuilder jpql = new StringBuilder("""
+                SELECT new com.edwbadillo.storedemo.product.dto.ProductInfo(p.id, p.name, p.isActive, p.price, p.quantity)
+                FROM Product p""");
+        if (!cursor.isFirst()) {
+            if (cursor.sort() == ProductSort.ID) {
+                jpql.append(" WHERE p.id ").append(operator).append(" :id");
+            } else {
+                // Row value comparison, a single range scan of the (key, id) index
+                jpql.append(" WHERE (").append(key).append(", p.id) ").append(operator).append(" (:value, :id)");
+            }
+        }
+        jpql.append(" ORDER BY ");
+        if (cursor.sort() != ProductSort.ID) jpql.append(key).append(' ').append(direction).append(", ");
+        jpql.append("p.id ").append(direction);
+
+        TypedQuery<ProductInfo> query = entityManager.createQuery(jpql.toString(), ProductInfo.class)
+                .setMaxResults(limit);
+        if (!cursor.isFirst()) {
+            query.setParameter("id", cursor.id());
+            if (cursor.sort() == ProductSort.PRICE) {
+                // Inferred from the double attribute the value would be bound as float8, PostgreSQL then
+                // casts the NUMERIC column and can't use the (price, id) index
+                query.unwrap(Query.class).setParameter(
+                        "value", BigDecimal.valueOf((Double) cursor.value()), StandardBasicTypes.BIG_DECIMAL
+                );
+            } else if (cursor.sort() != ProductSort.ID) {
+                query.setParameter("value", cursor.value());
+            }
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public Slice<Product> findSlice(Specification<Product> specification, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> criteria = builder.createQuery(Product.class);
+        Root<Product> root = criteria.from(Product.class);
+        criteria.where(specification.toPredicate(root, criteria, builder));
+        criteria.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        TypedQuery<Product> query = entityManager.createQuery(criteria);
+        if (pageable.isUnpaged()) return new SliceImpl<>(query.getResultList());
+
+        List<Product> products = query
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = products.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? products.subList(0, pageable.getPageSize()) : products, pageable, hasNext);
+    }
+
+    @Override
+    public List<ProductSearchHit> search(String query, Integer categoryId, Boolean active, SearchCursor after, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        StringBuilder matches = new StringBuilder(isPostgresql() ? postgresqlMatches(query, parameters) : likeMatches(query, parameters));
+
+        if (categoryId != null) {
+            matches.append(" AND p.category_id = :categoryId");
+            parameters.addValue("categoryId", categoryId);
+        }
+        if (active != null) {
+            matches.append(" AND p.is_active = :active");
+            parameters.addValue("active", active);
+        }
+
+        // The rank is computed for every match, the cursor is applied on the ranked rows
+        StringBuilder sql = new StringBuilder("SELECT * FROM (").append(matches).append(") r");
+        if (after != null) {
+            sql.append(" WHERE r.score < :rank OR (r.score = :rank AND r.id < :id)");
+            parameters.addValue("rank", after.rank());
+            parameters.addValue("id", after.id());
+        }
+        sql.append(" ORDER BY r.score DESC, r.id DESC LIMIT :limit");
+        parameters.addValue("limit", limit);
+
+        return jdbcTemplate.query(sql.toString(), parameters, (rs, rowNum) -> new ProductSearchHit(
+                new ProductInfo(
+                        rs.getInt("id"),
+                        rs.getString("name"),
+                        rs.getBoolean("is_active"),
+                        rs.getDouble("price"),
+                        rs.getInt("quantity")
+                ),
+                rs.getFloat("score")
+        ));
+    }
+
+    private static String postgresqlMatches(String query, MapSqlParameterSource parameters) {
+        parameters.addValue("query", query);
+        return """
+                SELECT p.id, p.name, p.is_active, p.price, p.quantity, ts_rank(p.search_vector, q) AS score
+                FROM product p CROSS JOIN websearch_to_tsquery('simple', :query) AS q
+                WHERE p.search_vector @@ q""";
+    }
+
+    /**
+     * Every word must appear in the name or the description, a word in the name scores 2 and
+     * in the description 1.
+     */
+    private static String likeMatches(String query, MapSqlParameterSource parameters) {
+        List<String> words = Arrays.stream(query.toLowerCase(Locale.ROOT).split("\\s+"))
+                .filter(word -> !word.isEmpty())
+                .limit(MAX_FALLBACK_WORDS)
+                .toList();
+
+        StringBuilder score = new StringBuilder("0");
+        StringBuilder conditions = new StringBuilder("1 = 1");
+        for (int i = 0; i < words.size(); i++) {
+            String name = "LOWER(p.name) LIKE :word" + i + " ESCAPE '\\'";
+            String description = "LOWER(p.description) LIKE :word" + i + " ESCAPE '\\'";
+            score.append(" + CASE WHEN ").append(name).append(" THEN 2 ELSE 0 END")
+                    .append(" + CASE WHEN ").append(description).append(" THEN 1 ELSE 0 END");
+            conditions.append(" AND (").append(name).append(" OR ").append(description).append(')');
+            parameters.addValue("word" + i, "%" + escapeLike(words.get(i)) + "%");
+        }
+        if (words.isEmpty()) conditions.append(" AND 1 = 0");
+
+        return "SELECT p.id, p.name, p.is_active, p.price, p.quantity, CAST(" + score + " AS REAL) AS score "
+                + "FROM product p WHERE " + conditions;
+    }
+
+    private static String escapeLike(String word) {
+        return word.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private boolean isPostgresql() {
+        if (postgresql == null) {
+            String databaseName = jdbcTemplate.getJdbcTemplate().execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()
+            );
+            postgresql = "PostgreSQL".equals(databaseName);
+        }
+        return postgresql;
+    }
+}
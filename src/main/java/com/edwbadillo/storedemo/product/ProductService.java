@@ -1,11 +1,19 @@
 package com.edwbadillo.storedemo.product;
 
+import com.edwbadillo.storedemo.common.CursorPageDTO;
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
+import com.edwbadillo.storedemo.product.dto.ProductChanges;
 import com.edwbadillo.storedemo.product.dto.ProductDetails;
+import com.edwbadillo.storedemo.product.dto.ProductFacets;
 import com.edwbadillo.storedemo.product.dto.ProductInfo;
 import com.edwbadillo.storedemo.product.dto.ProductRegister;
+import com.edwbadillo.storedemo.product.dto.ProductSuggestion;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * The service for managing {@link Product} objects.
  *
@@ -21,6 +29,81 @@ public interface ProductService {
      */
     PageDTO<ProductInfo> paginate(Pageable pageable);
 
+    /**
+     * Paginates the products, computing the totals as requested. Without exact totals
+     * there is no {@code COUNT} query.
+     *
+     * @param pageable the pagination information
+     * @param totals   how the totals are computed
+     * @return a {@link PageDTO} of the {@link ProductInfo} objects
+     */
+    PageDTO<ProductInfo> paginate(Pageable pageable, PageTotals totals);
+
+    /**
+     * Paginates the products matching a filter, computing the totals as requested. Estimated
+     * totals of a filter come from the in-memory facet counts.
+     *
+     * @param pageable the pagination information
+     * @param totals   how the totals are computed
+     * @param filter   the filter, {@link ProductFilter#NONE} for all the products
+     * @return a {@link PageDTO} of the {@link ProductInfo} objects
+     */
+    PageDTO<ProductInfo> paginate(Pageable pageable, PageTotals totals, ProductFilter filter);
+
+    /**
+     * Counts the products matching a filter by category and by price bucket, from memory.
+     *
+     * @param filter the filter of the listing
+     * @return the counts
+     */
+    ProductFacets getFacets(ProductFilter filter);
+
+    /**
+     * Gets a page of products after a cursor (keyset pagination), without counting the products.
+     * The response time doesn't grow with the page depth, unlike {@link #paginate(Pageable)}.
+     *
+     * @param after      the cursor of the previous page, empty for the first page
+     * @param sort       the sort key of the first page, the next pages keep the order of the cursor
+     * @param descending whether the first page is sorted in descending order
+     * @param size       the maximum number of products
+     * @return the products and the cursor of the next page
+     */
+    CursorPageDTO<ProductInfo> seek(String after, ProductSort sort, boolean descending, int size);
+
+    /**
+     * Searches products by name and description, the most relevant first.
+     *
+     * @param query      the search text
+     * @param categoryId only products of this category, null for all
+     * @param active     only active or inactive products, null for all
+     * @param after      the cursor of the previous page, null or empty for the first page
+     * @param size       the maximum number of products
+     * @return the products found and the cursor of the next page
+     */
+    CursorPageDTO<ProductInfo> search(String query, Integer categoryId, Boolean active, String after, int size);
+
+    /**
+     * Suggests active products while a search is typed, from an in-memory index. The last word
+     * is a prefix, products whose name matches come first.
+     *
+     * @param prefix the text typed
+     * @param limit  the maximum number of suggestions
+     * @return the suggestions, empty if the text has no words
+     */
+    List<ProductSuggestion> suggest(String prefix, int limit);
+
+    /**
+     * Reads the product change feed after a seq, in seq order. Products created, updated and
+     * deleted are recorded with their data after the change.
+     *
+     * @param since the last seq read, 0 to read from the start
+     * @param limit the maximum number of changes
+     * @return the changes and the seq to read the next ones from
+     * @throws com.edwbadillo.storedemo.exception.ChangesCompactedException if changes after {@code since}
+     *         were compacted and the products must be loaded again
+     */
+    ProductChanges getChanges(long since, int limit);
+
     /**
      * Gets a product by its id.
      *
@@ -29,6 +112,15 @@ public interface ProductService {
      */
     ProductDetails getById(Integer id);
 
+    /**
+     * Gets the version tag of a product, used as its ETag. It is read without loading the
+     * product and changes whenever the product details change.
+     *
+     * @param id the id of the product
+     * @return the version tag, empty if the product doesn't exist
+     */
+    Optional<String> getVersion(Integer id);
+
     /**
      * Creates a new product.
      *
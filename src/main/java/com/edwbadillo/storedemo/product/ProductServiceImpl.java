@@ -1,19 +1,35 @@
 package com.edwbadillo.storedemo.product;
 
+import com.edwbadillo.storedemo.common.CursorPageDTO;
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
+import com.edwbadillo.storedemo.common.RowCountEstimator;
 import com.edwbadillo.storedemo.exception.InvalidDataException;
 import com.edwbadillo.storedemo.product.category.Category;
+import com.edwbadillo.storedemo.product.change.ProductChange.Operation;
+import com.edwbadillo.storedemo.product.change.ProductChangeLog;
+import com.edwbadillo.storedemo.product.cache.ProductDetailsCache;
 import com.edwbadillo.storedemo.product.category.CategoryRepository;
+import com.edwbadillo.storedemo.product.dto.ProductChanges;
 import com.edwbadillo.storedemo.product.dto.ProductDetails;
+import com.edwbadillo.storedemo.product.dto.ProductFacets;
 import com.edwbadillo.storedemo.product.dto.ProductInfo;
 import com.edwbadillo.storedemo.product.dto.ProductMapper;
 import com.edwbadillo.storedemo.product.dto.ProductRegister;
+import com.edwbadillo.storedemo.product.dto.ProductSearchHit;
+import com.edwbadillo.storedemo.product.dto.ProductSuggestion;
 import com.edwbadillo.storedemo.product.exception.ProductNotFoundException;
+import com.edwbadillo.storedemo.product.facet.ProductFacetIndex;
+import com.edwbadillo.storedemo.product.suggest.ProductSuggestIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -24,6 +40,11 @@ import java.util.Optional;
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_CHANGES = 1000;
+
     @Autowired
     private CategoryRepository categoryRepository;
 
@@ -33,18 +54,139 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductMapper productMapper;
 
+    @Autowired
+    private RowCountEstimator rowCountEstimator;
+
+    @Autowired
+    private ProductDetailsCache productDetailsCache;
+
+    @Autowired
+    private ProductSuggestIndex productSuggestIndex;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private ProductChangeLog productChangeLog;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Override
     public PageDTO<ProductInfo> paginate(Pageable pageable) {
         Page<Product> page = productRepository.findAll(pageable);
         return productMapper.getPage(page);
     }
 
+    @Override
+    public PageDTO<ProductInfo> paginate(Pageable pageable, PageTotals totals) {
+        if (totals == PageTotals.EXACT) return paginate(pageable);
+
+        Slice<ProductInfo> slice = productRepository.findAllBy(pageable).map(productMapper::getInfo);
+        Long totalCount = totals == PageTotals.ESTIMATED
+                ? rowCountEstimator.estimate("product", productRepository::count)
+                : null;
+        return PageDTO.ofSlice(slice, totalCount);
+    }
+
+    @Override
+    public PageDTO<ProductInfo> paginate(Pageable pageable, PageTotals totals, ProductFilter filter) {
+        if (filter.isEmpty()) return paginate(pageable, totals);
+        filter.validate();
+
+        Specification<Product> specification = filter.toSpecification();
+        if (totals == PageTotals.EXACT) {
+            return productMapper.getPage(productRepository.findAll(specification, pageable));
+        }
+
+        Slice<ProductInfo> slice = productRepository.findSlice(specification, pageable).map(productMapper::getInfo);
+        // The facet counts answer any filter from memory, they may lag changes of other nodes
+        Long totalCount = totals == PageTotals.ESTIMATED ? productFacetIndex.count(filter) : null;
+        return PageDTO.ofSlice(slice, totalCount);
+    }
+
+    @Override
+    public ProductFacets getFacets(ProductFilter filter) {
+        filter.validate();
+        return productFacetIndex.getFacets(filter);
+    }
+
+    @Override
+    public CursorPageDTO<ProductInfo> seek(String after, ProductSort sort, boolean descending, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidDataException("invalid_value", "size", "Size must be between 1 and " + MAX_PAGE_SIZE, size);
+        }
+
+        ProductCursor cursor = after == null || after.isEmpty()
+                ? ProductCursor.first(sort, descending)
+                : ProductCursor.decode(after);
+
+        // One more product tells if there is a next page
+        List<ProductInfo> products = productRepository.findAfter(cursor, size + 1);
+        if (products.size() <= size) return new CursorPageDTO<>(products, null);
+
+        List<ProductInfo> page = products.subList(0, size);
+        return new CursorPageDTO<>(page, cursor.after(page.get(size - 1)).encode());
+    }
+
+    @Override
+    public CursorPageDTO<ProductInfo> search(String query, Integer categoryId, Boolean active, String after, int size) {
+        if (query == null || query.isBlank() || query.length() > MAX_QUERY_LENGTH) {
+            throw new InvalidDataException(
+                    "invalid_value", "q", "Query must have between 1 and " + MAX_QUERY_LENGTH + " characters", query
+            );
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidDataException("invalid_value", "size", "Size must be between 1 and " + MAX_PAGE_SIZE, size);
+        }
+
+        SearchCursor cursor = after == null || after.isEmpty() ? null : SearchCursor.decode(after);
+        List<ProductSearchHit> hits = productRepository.search(query.strip(), categoryId, active, cursor, size + 1);
+
+        List<ProductInfo> products = hits.stream().limit(size).map(ProductSearchHit::product).toList();
+        if (hits.size() <= size) return new CursorPageDTO<>(products, null);
+
+        ProductSearchHit last = hits.get(size - 1);
+        return new CursorPageDTO<>(products, new SearchCursor(last.rank(), last.product().id()).encode());
+    }
+
+    @Override
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.length() > MAX_QUERY_LENGTH) {
+            throw new InvalidDataException(
+                    "invalid_value", "prefix", "Prefix must have at most " + MAX_QUERY_LENGTH + " characters", prefix
+            );
+        }
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new InvalidDataException("invalid_value", "limit", "Limit must be between 1 and " + MAX_SUGGESTIONS, limit);
+        }
+        return productSuggestIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    public ProductChanges getChanges(long since, int limit) {
+        if (since < 0) {
+            throw new InvalidDataException("invalid_value", "since", "Since must be 0 or greater", since);
+        }
+        if (limit < 1 || limit > MAX_CHANGES) {
+            throw new InvalidDataException("invalid_value", "limit", "Limit must be between 1 and " + MAX_CHANGES, limit);
+        }
+        return productChangeLog.read(since, limit);
+    }
+
     @Override
     public ProductDetails getById(Integer id) {
-        Product product = productRepository.findById(id).orElseThrow(
-                () -> new ProductNotFoundException("Product " + id + " not found")
-        );
-        return productMapper.getDetails(product);
+        return productDetailsCache.get(id, productId -> {
+            Product product = productRepository.findById(productId).orElseThrow(
+                    () -> new ProductNotFoundException("Product " + productId + " not found")
+            );
+            return productMapper.getDetails(product);
+        });
+    }
+
+    @Override
+    public Optional<String> getVersion(Integer id) {
+        return productRepository.findVersionTagById(id);
     }
 
     @Override
@@ -65,7 +207,14 @@ public class ProductServiceImpl implements ProductService {
 
         Product product = productMapper.getEntity(data);
         product.setCategory(category);
-        productRepository.save(product);
+        // The change is recorded in the transaction of the insert, the caches are updated once committed
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.save(product);
+            productChangeLog.record(Operation.CREATE, List.of(product));
+        });
+        productDetailsCache.invalidateProduct(product.getId());
+        productSuggestIndex.put(product);
+        productFacetIndex.put(product);
         return productMapper.getDetails(product);
     }
 
@@ -96,14 +245,28 @@ public class ProductServiceImpl implements ProductService {
         }
 
         productMapper.updateEntity(data, product);
-        return productMapper.getDetails(productRepository.save(product));
+        Product saved = transactionTemplate.execute(status -> {
+            Product updated = productRepository.save(product);
+            productChangeLog.record(Operation.UPDATE, List.of(updated));
+            return updated;
+        });
+        productDetailsCache.invalidateProduct(id);
+        productSuggestIndex.put(product);
+        productFacetIndex.put(product);
+        return productMapper.getDetails(saved);
     }
 
 
     @Override
     public void deleteById(Integer id) {
         // TODO: Check if product is in use or add soft delete
-        productRepository.deleteById(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.deleteById(id);
+            productChangeLog.recordDelete(id);
+        });
+        productDetailsCache.invalidateProduct(id);
+        productSuggestIndex.remove(id);
+        productFacetIndex.remove(id);
     }
 
     // Helpers
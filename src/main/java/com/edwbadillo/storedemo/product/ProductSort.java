@@ -0,0 +1,55 @@
+package com.edwbadillo.storedemo.product;
+
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+import com.edwbadillo.storedemo.product.dto.ProductInfo;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Sort keys of the keyset pagination of products. The id breaks the ties, each key has
+ * an index on {@code (key, id)}.
+ *
+ * @author edwbadillo
+ */
+public enum ProductSort {
+    ID("id", ProductInfo::id),
+    NAME("name", ProductInfo::name),
+    PRICE("price", ProductInfo::price);
+
+    private final String attribute;
+    private final Function<ProductInfo, Object> value;
+
+    ProductSort(String attribute, Function<ProductInfo, Object> value) {
+        this.attribute = attribute;
+        this.value = value;
+    }
+
+    /**
+     * Name of the {@link Product} attribute, also the value of the {@code sort} parameter.
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * Gets the value of the sort key of a product.
+     */
+    public Object valueOf(ProductInfo product) {
+        return value.apply(product);
+    }
+
+    /**
+     * Gets a sort key by its parameter value.
+     *
+     * @throws InvalidDataException if the sort key is not supported
+     */
+    public static ProductSort fromParameter(String parameter) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.attribute.equalsIgnoreCase(parameter))
+                .findFirst()
+                .orElseThrow(() -> new InvalidDataException(
+                        "invalid_value", "sort", "Sort must be one of id, name, price", parameter
+                ));
+    }
+}
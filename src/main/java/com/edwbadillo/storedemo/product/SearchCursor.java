@@ -0,0 +1,47 @@
+package com.edwbadillo.storedemo.product;
+
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the results of a product search: the rank and id of the last product read.
+ * It is sent to the clients as an opaque token.
+ *
+ * @param rank the rank of the last product read
+ * @param id   the id of the last product read
+ *
+ * @author edwbadillo
+ */
+public record SearchCursor(
+    float rank,
+    int id
+) {
+
+    /**
+     * Encodes the cursor as a URL-safe token.
+     */
+    public String encode() {
+        String text = rank + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token of {@link #encode()}.
+     *
+     * @throws InvalidDataException if the token is not valid
+     */
+    public static SearchCursor decode(String token) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = text.indexOf(':');
+            return new SearchCursor(
+                    Float.parseFloat(text.substring(0, separator)),
+                    Integer.parseInt(text.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidDataException("invalid_value", "after", "Invalid cursor", token);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.edwbadillo.storedemo.product;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * In-memory structure built from a query on the {@code product} table, like the facet counts and
+ * the suggestion index.
+ * <p>
+ * A rebuild streams the rows into a new structure while the current one keeps answering, the
+ * changes applied meanwhile are replayed on the new one before it replaces the current one.
+ *
+ * @param <T> the type of the structure
+ * @author edwbadillo
+ */
+public class StreamedIndex<T> {
+
+    /**
+     * Rows read per round trip, the table is never held in memory as a result set.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * Adds a row of the query to a structure being built.
+     */
+    @FunctionalInterface
+    public interface RowReader<T> {
+        void read(T target, ResultSet rs) throws SQLException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String select;
+    private final Supplier<T> factory;
+    private final RowReader<T> reader;
+
+    private volatile T current;
+
+    /**
+     * Changes made while the structure is being rebuilt, applied to the new one before it
+     * replaces the current one. Guarded by {@code this}, null when no rebuild is running.
+     */
+    private List<Consumer<T>> changedDuringRebuild;
+
+    /**
+     * @param select  the query of the rows, read in its order
+     * @param factory creates an empty structure, the current one until the first rebuild
+     * @param reader  adds each row to the new structure
+     */
+    public StreamedIndex(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            String select,
+            Supplier<T> factory,
+            RowReader<T> reader
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        // PostgreSQL only streams a result set (fetch size) inside a transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.select = select;
+        this.factory = factory;
+        this.reader = reader;
+        this.current = factory.get();
+    }
+
+    public T current() {
+        return current;
+    }
+
+    /**
+     * Builds a new structure from the query and replaces the current one.
+     *
+     * @return the new structure, null if another rebuild is running
+     */
+    public T rebuild() {
+        synchronized (this) {
+            if (changedDuringRebuild != null) return null;
+            changedDuringRebuild = new ArrayList<>();
+        }
+
+        T rebuilt = factory.get();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                    connection -> {
+                        PreparedStatement statement = connection.prepareStatement(select);
+                        statement.setFetchSize(FETCH_SIZE);
+                        return statement;
+                    },
+                    rs -> {
+                        reader.read(rebuilt, rs);
+                    }
+            ));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            changedDuringRebuild.forEach(change -> change.accept(rebuilt));
+            changedDuringRebuild = null;
+            current = rebuilt;
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Applies a change to the current structure, and to the one being rebuilt if any.
+     */
+    public synchronized void apply(Consumer<T> change) {
+        change.accept(current);
+        if (changedDuringRebuild != null) changedDuringRebuild.add(change);
+    }
+}
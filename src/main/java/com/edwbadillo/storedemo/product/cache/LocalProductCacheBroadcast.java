@@ -0,0 +1,33 @@
+package com.edwbadillo.storedemo.product.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link ProductCacheBroadcast} within the JVM, for single node deployments (the default,
+ * {@code product.cache.broadcast=local}). Invalidations are delivered synchronously to every
+ * subscriber, so sharing an instance between several caches also stands in for several nodes
+ * in tests.
+ *
+ * @author edwbadillo
+ */
+@Component
+@ConditionalOnProperty(name = "product.cache.broadcast", havingValue = "local", matchIfMissing = true)
+public class LocalProductCacheBroadcast implements ProductCacheBroadcast {
+
+    private final List<Consumer<ProductCacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(ProductCacheInvalidation invalidation) {
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<ProductCacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+}
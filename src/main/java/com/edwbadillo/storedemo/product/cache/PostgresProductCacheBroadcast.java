@@ -0,0 +1,139 @@
+package com.edwbadillo.storedemo.product.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * {@link ProductCacheBroadcast} between nodes with PostgreSQL {@code LISTEN/NOTIFY}, enabled with
+ * {@code product.cache.broadcast=postgres}. No other infrastructure is needed, the nodes already
+ * share the database.
+ * <p>
+ * A notification sent inside a transaction is delivered when it commits. Each node keeps one
+ * connection listening on the channel, in a daemon thread; if the connection is lost it is
+ * opened again and the subscribers are told that invalidations may have been missed.
+ *
+ * @author edwbadillo
+ */
+@Component
+@ConditionalOnProperty(name = "product.cache.broadcast", havingValue = "postgres")
+public class PostgresProductCacheBroadcast implements ProductCacheBroadcast {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresProductCacheBroadcast.class);
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int POLL_MILLIS = 1000;
+    private static final long RECONNECT_MILLIS = 5000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final String channel;
+
+    private final List<Consumer<ProductCacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> missedListeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PostgresProductCacheBroadcast(
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            @Value("${product.cache.channel}") String channel
+    ) {
+        // LISTEN doesn't accept a bind parameter, the name is validated instead
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid product cache channel: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "product-cache-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listenerThread.interrupt();
+        listenerThread.join(POLL_MILLIS * 2);
+    }
+
+    @Override
+    public void publish(ProductCacheInvalidation invalidation) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, invalidation.toPayload());
+    }
+
+    @Override
+    public void subscribe(Consumer<ProductCacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void onMissedInvalidations(Runnable listener) {
+        missedListeners.add(listener);
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (reconnecting) {
+                    log.info("Product cache listener reconnected, invalidating the cache");
+                    missedListeners.forEach(Runnable::run);
+                }
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        deliver(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Product cache listener disconnected, retrying in {} ms", RECONNECT_MILLIS, e);
+                reconnecting = true;
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        try {
+            ProductCacheInvalidation invalidation = ProductCacheInvalidation.fromPayload(payload);
+            listeners.forEach(listener -> listener.accept(invalidation));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignored invalid product cache notification: {}", payload);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.edwbadillo.storedemo.product.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Sends the {@link ProductDetailsCache} invalidations to every node, so a product changed
+ * in one node is not served stale by the others. Selected with {@code product.cache.broadcast}.
+ * Subscribers ignore the {@link ProductCacheInvalidation.Type types} they don't hold.
+ *
+ * @author edwbadillo
+ * @see LocalProductCacheBroadcast
+ * @see PostgresProductCacheBroadcast
+ */
+public interface ProductCacheBroadcast {
+
+    /**
+     * Sends an invalidation to all the subscribers, including the ones of this node.
+     *
+     * @param invalidation the invalidation
+     */
+    void publish(ProductCacheInvalidation invalidation);
+
+    /**
+     * Registers a listener of the invalidations.
+     *
+     * @param listener called with every invalidation received
+     */
+    void subscribe(Consumer<ProductCacheInvalidation> listener);
+
+    /**
+     * Registers a listener called when invalidations may have been lost (for example after
+     * a reconnection), the listener should drop everything.
+     *
+     * @param listener called when invalidations may have been lost
+     */
+    default void onMissedInvalidations(Runnable listener) {
+    }
+}
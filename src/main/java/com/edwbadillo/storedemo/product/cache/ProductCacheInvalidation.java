@@ -0,0 +1,66 @@
+package com.edwbadillo.storedemo.product.cache;
+
+/**
+ * An invalidation of {@link ProductDetailsCache} entries, sent to the other nodes by
+ * {@link ProductCacheBroadcast}. Other in-memory data follows the broadcast too, such as the
+ * customer emails of {@link com.edwbadillo.storedemo.auth.userdetails.CustomerEmailFilter} and the
+ * cart summaries of {@link com.edwbadillo.storedemo.cart.CartSummaryCache}.
+ *
+ * @param type what changed
+ * @param id   the id of the product, category or customer (also of a cart)
+ *
+ * @author edwbadillo
+ */
+public record ProductCacheInvalidation(
+    Type type,
+    Integer id
+) {
+
+    public enum Type {
+        /** A product was created, updated or deleted. */
+        PRODUCT,
+        /** A category was updated, its products embed it. */
+        CATEGORY,
+        /** A customer was registered or updated, the id is the customer id. */
+        CUSTOMER,
+        /** The cart of a customer was changed, the id is the customer id. */
+        CART
+    }
+
+    public static ProductCacheInvalidation product(Integer id) {
+        return new ProductCacheInvalidation(Type.PRODUCT, id);
+    }
+
+    public static ProductCacheInvalidation category(Integer id) {
+        return new ProductCacheInvalidation(Type.CATEGORY, id);
+    }
+
+    public static ProductCacheInvalidation customer(Integer id) {
+        return new ProductCacheInvalidation(Type.CUSTOMER, id);
+    }
+
+    public static ProductCacheInvalidation cart(Integer customerId) {
+        return new ProductCacheInvalidation(Type.CART, customerId);
+    }
+
+    /**
+     * Short text form, such as {@code PRODUCT:12}, used as message payload.
+     */
+    public String toPayload() {
+        return type + ":" + id;
+    }
+
+    /**
+     * Parses the text form of {@link #toPayload()}.
+     *
+     * @throws IllegalArgumentException if the payload is not valid
+     */
+    public static ProductCacheInvalidation fromPayload(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0) throw new IllegalArgumentException("Invalid product cache invalidation: " + payload);
+        return new ProductCacheInvalidation(
+                Type.valueOf(payload.substring(0, separator)),
+                Integer.valueOf(payload.substring(separator + 1))
+        );
+    }
+}
@@ -0,0 +1,102 @@
+package com.edwbadillo.storedemo.product.cache;
+
+import com.edwbadillo.storedemo.product.dto.ProductDetails;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of the product details, so the product pages don't query the
+ * database on every request.
+ * <p>
+ * Entries are bounded by size and expire after a TTL. Product changes invalidate the product,
+ * category changes invalidate the products of the category (the details embed the category).
+ * Invalidations are applied here at once and sent with {@link ProductCacheBroadcast} to the
+ * other nodes, the TTL bounds how long a node can serve a product whose invalidation was lost.
+ * Hits, misses and evictions are published as the {@code cache.*} metrics with
+ * {@code cache=product-details}.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class ProductDetailsCache {
+
+    private final Cache<Integer, ProductDetails> cache;
+    private final ProductCacheBroadcast broadcast;
+
+    public ProductDetailsCache(
+            @Value("${product.cache.max-size}") long maxSize,
+            @Value("${product.cache.ttl-seconds}") long ttlSeconds,
+            ProductCacheBroadcast broadcast,
+            MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "product-details");
+
+        this.broadcast = broadcast;
+        broadcast.subscribe(this::apply);
+        broadcast.onMissedInvalidations(this::invalidateAll);
+    }
+
+    /**
+     * Gets the details of a product, loading them only if they are not cached. Products not
+     * found are not cached, the loader exception is thrown.
+     *
+     * @param productId the id of the product
+     * @param loader    function that loads the product details from the database
+     * @return the product details
+     */
+    public ProductDetails get(Integer productId, Function<Integer, ProductDetails> loader) {
+        return cache.get(productId, loader);
+    }
+
+    /**
+     * Removes a product from the cache of every node.
+     *
+     * @param productId the id of the product
+     */
+    public void invalidateProduct(Integer productId) {
+        invalidate(ProductCacheInvalidation.product(productId));
+    }
+
+    /**
+     * Removes the products of a category from the cache of every node.
+     *
+     * @param categoryId the id of the category
+     */
+    public void invalidateCategory(Integer categoryId) {
+        invalidate(ProductCacheInvalidation.category(categoryId));
+    }
+
+    /**
+     * Removes all the products from the cache of this node.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private void invalidate(ProductCacheInvalidation invalidation) {
+        // Applied here first, a change is visible in this node when the request returns
+        apply(invalidation);
+        broadcast.publish(invalidation);
+    }
+
+    private void apply(ProductCacheInvalidation invalidation) {
+        switch (invalidation.type()) {
+            case PRODUCT -> cache.invalidate(invalidation.id());
+            case CATEGORY -> cache.asMap().values().removeIf(
+                    product -> product.category() != null && invalidation.id().equals(product.category().id())
+            );
+        }
+    }
+}
@@ -24,6 +24,19 @@ public class Category {
     private String description;
     private boolean isActive = true;
 
+    /**
+     * Incremented by every update, part of the ETag of its products.
+     */
+    @Version
+    private long version;
+
+    public Category(Integer id, String name, String description, boolean isActive) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.isActive = isActive;
+    }
+
     public Category(Integer id, String name, String description) {
         this.id = id;
         this.name = name;
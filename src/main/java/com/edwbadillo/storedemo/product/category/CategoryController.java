@@ -2,11 +2,13 @@ package com.edwbadillo.storedemo.product.category;
 
 import com.edwbadillo.storedemo.common.InvalidField;
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
 import com.edwbadillo.storedemo.common.SimpleMessageResponse;
 import com.edwbadillo.storedemo.product.category.dto.CategoryData;
 import com.edwbadillo.storedemo.product.category.dto.CategoryDetails;
 import com.edwbadillo.storedemo.product.category.dto.CategoryInfo;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -35,10 +37,13 @@ public class CategoryController {
     private CategoryService categoryService;
 
 
-    @Operation(summary = "Paginate categories", description = "Get a slice of categories (paginated).")
+    @Operation(summary = "Paginate categories", description = "Get a slice of categories (paginated). Use `totals=estimated` or `totals=none` to skip the count query on big tables.")
     @GetMapping
-    public PageDTO<CategoryInfo> paginate(@ParameterObject Pageable pageable) {
-        return categoryService.paginate(pageable);
+    public PageDTO<CategoryInfo> paginate(
+            @ParameterObject Pageable pageable,
+            @Parameter(description = "exact (COUNT query), estimated or none") @RequestParam(defaultValue = "exact") String totals
+    ) {
+        return categoryService.paginate(pageable, PageTotals.fromParameter(totals));
     }
 
 
@@ -1,5 +1,7 @@
 package com.edwbadillo.storedemo.product.category;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -12,6 +14,13 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Integer> {
 
+    /**
+     * Gets a page of categories without counting them, one more row is read to know if there is a next page.
+     *
+     * @param pageable the pagination information
+     */
+    Slice<Category> findAllBy(Pageable pageable);
+
     boolean existsByNameIgnoreCase(String name);
 
     boolean existsByNameIgnoreCaseAndIdNot(String name, Integer id);
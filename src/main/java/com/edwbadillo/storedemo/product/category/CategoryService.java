@@ -2,6 +2,7 @@ package com.edwbadillo.storedemo.product.category;
 
 
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
 import com.edwbadillo.storedemo.exception.InvalidDataException;
 import com.edwbadillo.storedemo.product.category.dto.CategoryData;
 import com.edwbadillo.storedemo.product.category.dto.CategoryDetails;
@@ -24,6 +25,16 @@ public interface CategoryService {
      */
     PageDTO<CategoryInfo> paginate(Pageable pageable);
 
+    /**
+     * Paginates the categories, computing the totals as requested. Without exact totals
+     * there is no {@code COUNT} query.
+     *
+     * @param pageable the pagination information
+     * @param totals   how the totals are computed
+     * @return a {@link PageDTO} of the {@link CategoryInfo} objects
+     */
+    PageDTO<CategoryInfo> paginate(Pageable pageable, PageTotals totals);
+
     /**
      * Finds a category by its id.
      *
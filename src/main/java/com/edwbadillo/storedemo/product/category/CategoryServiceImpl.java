@@ -1,7 +1,10 @@
 package com.edwbadillo.storedemo.product.category;
 
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
+import com.edwbadillo.storedemo.common.RowCountEstimator;
 import com.edwbadillo.storedemo.exception.InvalidDataException;
+import com.edwbadillo.storedemo.product.cache.ProductDetailsCache;
 import com.edwbadillo.storedemo.product.category.dto.CategoryData;
 import com.edwbadillo.storedemo.product.category.dto.CategoryDetails;
 import com.edwbadillo.storedemo.product.category.dto.CategoryInfo;
@@ -10,6 +13,7 @@ import com.edwbadillo.storedemo.product.category.exception.CategoryNotFoundExcep
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 
@@ -27,12 +31,29 @@ public class CategoryServiceImpl implements CategoryService {
     @Autowired
     private CategoryMapper categoryMapper;
 
+    @Autowired
+    private RowCountEstimator rowCountEstimator;
+
+    @Autowired
+    private ProductDetailsCache productDetailsCache;
+
     @Override
     public PageDTO<CategoryInfo> paginate(Pageable pageable) {
         Page<Category> page = repository.findAll(pageable);
         return categoryMapper.getPage(page);
     }
 
+    @Override
+    public PageDTO<CategoryInfo> paginate(Pageable pageable, PageTotals totals) {
+        if (totals == PageTotals.EXACT) return paginate(pageable);
+
+        Slice<CategoryInfo> slice = repository.findAllBy(pageable).map(categoryMapper::getInfo);
+        Long totalCount = totals == PageTotals.ESTIMATED
+                ? rowCountEstimator.estimate("product_category", repository::count)
+                : null;
+        return PageDTO.ofSlice(slice, totalCount);
+    }
+
     @Override
     public CategoryDetails getById(Integer id) {
         Category category = repository.findById(id).orElseThrow(
@@ -59,7 +80,10 @@ public class CategoryServiceImpl implements CategoryService {
                 () -> new CategoryNotFoundException("Category " + id + " not found")
         );
         categoryMapper.updateEntity(data, category);
-        return categoryMapper.getDetails(repository.save(category));
+        Category saved = repository.save(category);
+        // The product details embed the category
+        productDetailsCache.invalidateCategory(id);
+        return categoryMapper.getDetails(saved);
     }
 
     @Override
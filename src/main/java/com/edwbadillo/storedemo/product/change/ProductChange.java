@@ -0,0 +1,55 @@
+package com.edwbadillo.storedemo.product.change;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * An entry of the product change feed: a product created, updated or deleted, with the product
+ * as it was left by the change (no data for a delete). Only written by {@link ProductChangeLog}.
+ *
+ * @author edwbadillo
+ */
+@Entity
+@Table(name = "product_change")
+@Data
+@NoArgsConstructor
+public class ProductChange {
+
+    /**
+     * Operations recorded in the feed.
+     */
+    public enum Operation {
+        CREATE, UPDATE, DELETE
+    }
+
+    /**
+     * Position in the feed, assigned by {@link ProductChangeLog} in commit order.
+     */
+    @Id
+    private Long seq;
+
+    @Column(name = "product_id", nullable = false)
+    private Integer productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Operation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    private String name;
+    private String description;
+
+    @Column(name = "is_active")
+    private Boolean active;
+
+    private Double price;
+    private Integer quantity;
+
+    @Column(name = "category_id")
+    private Integer categoryId;
+}
@@ -0,0 +1,32 @@
+package com.edwbadillo.storedemo.product.change;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The single row holding the last seq of the product change feed and the highest seq removed
+ * with a deleted product. Locked by every writer of the feed, see {@link ProductChangeLog}.
+ *
+ * @author edwbadillo
+ */
+@Entity
+@Table(name = "product_change_head")
+@Data
+@NoArgsConstructor
+public class ProductChangeHead {
+
+    static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+
+    /**
+     * Highest seq of a delete removed by the compaction, a reader behind it may have missed a delete.
+     */
+    @Column(name = "compacted_seq", nullable = false)
+    private long compactedSeq;
+}
@@ -0,0 +1,206 @@
+package com.edwbadillo.storedemo.product.change;
+
+import com.edwbadillo.storedemo.exception.ChangesCompactedException;
+import com.edwbadillo.storedemo.product.Product;
+import com.edwbadillo.storedemo.product.change.ProductChange.Operation;
+import com.edwbadillo.storedemo.product.dto.ProductChanges;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only feed of the product changes, read by other services to keep their copies of the
+ * products current without exporting the catalog again.
+ * <p>
+ * The changes are written in the transaction that changes the products. Their seq is taken from
+ * the {@code product_change_head} row, locked until the commit, so writers are serialized and
+ * commit in seq order: a reader that sees a seq has seen every smaller one, and reading from the
+ * last seq read never skips a change.
+ * <p>
+ * The feed is compacted periodically: a change older than the retention followed by another change
+ * of the same product is deleted, so the feed keeps at most the last change of every product plus
+ * the recent ones. Deletes are kept longer, a reader whose position is older than the last delete
+ * compacted has to load the products again.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class ProductChangeLog {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeLog.class);
+
+    private final ProductChangeRepository productChangeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final Duration deleteRetention;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductChangeLog(
+            ProductChangeRepository productChangeRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${product.changes.retention-hours}") long retentionHours,
+            @Value("${product.changes.delete-retention-days}") long deleteRetentionDays
+    ) {
+        this.productChangeRepository = productChangeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = Duration.ofHours(retentionHours);
+        this.deleteRetention = Duration.ofDays(deleteRetentionDays);
+    }
+
+    /**
+     * Records products created or updated, in the current transaction.
+     *
+     * @param operation CREATE or UPDATE
+     * @param products the products saved
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void record(Operation operation, List<Product> products) {
+        if (products.isEmpty()) return;
+
+        long seq = reserve(products.size());
+        Instant now = Instant.now();
+        for (Product product : products) {
+            ProductChange change = newChange(++seq, product.getId(), operation, now);
+            change.setName(product.getName());
+            change.setDescription(product.getDescription());
+            change.setActive(product.isActive());
+            change.setPrice(product.getPrice());
+            change.setQuantity(product.getQuantity());
+            change.setCategoryId(product.getCategory().getId());
+            entityManager.persist(change);
+        }
+    }
+
+    /**
+     * Records a product deleted, in the current transaction.
+     *
+     * @param productId the id of the product
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void recordDelete(Integer productId) {
+        long seq = reserve(1);
+        entityManager.persist(newChange(seq + 1, productId, Operation.DELETE, Instant.now()));
+    }
+
+    /**
+     * Reads the changes after a seq.
+     *
+     * @param since the last seq read, 0 to read from the start
+     * @param limit the maximum number of changes
+     * @return the changes
+     * @throws ChangesCompactedException if a delete after {@code since} was compacted
+     */
+    public ProductChanges read(long since, int limit) {
+        List<ProductChange> changes = productChangeRepository.findBySeqGreaterThanOrderBySeq(since, Limit.of(limit + 1));
+
+        // Checked after reading, a compaction that commits meanwhile is seen here
+        ProductChangeHead head = entityManager.find(ProductChangeHead.class, ProductChangeHead.ID);
+        if (head != null && since < head.getCompactedSeq()) {
+            throw new ChangesCompactedException(
+                    "Changes up to " + head.getCompactedSeq() + " were compacted, export the products and " +
+                    "read the changes since " + head.getLastSeq()
+            );
+        }
+
+        boolean hasMore = changes.size() > limit;
+        List<ProductChanges.Change> page = changes.stream()
+                .limit(limit)
+                .map(change -> new ProductChanges.Change(
+                        change.getSeq(),
+                        change.getProductId(),
+                        change.getOperation(),
+                        change.getChangedAt(),
+                        change.getName(),
+                        change.getDescription(),
+                        change.getActive(),
+                        change.getPrice(),
+                        change.getQuantity(),
+                        change.getCategoryId()
+                ))
+                .toList();
+        long nextSince = page.isEmpty() ? since : page.get(page.size() - 1).seq();
+        return new ProductChanges(page, nextSince, hasMore);
+    }
+
+    @Scheduled(
+            initialDelayString = "${product.changes.compact-minutes}",
+            fixedDelayString = "${product.changes.compact-minutes}",
+            timeUnit = TimeUnit.MINUTES
+    )
+    public void compact() {
+        compact(Instant.now());
+    }
+
+    /**
+     * Deletes the superseded changes older than the retention and the deletes older than their
+     * retention.
+     */
+    void compact(Instant now) {
+        // Only changes followed by a later one are deleted, appended changes can't be affected so the head isn't locked
+        int superseded = transactionTemplate.execute(
+                status -> productChangeRepository.deleteSupersededBefore(now.minus(retention))
+        );
+
+        int deletes = transactionTemplate.execute(status -> {
+            Long lastSeq = productChangeRepository.findLastSeqBefore(Operation.DELETE, now.minus(deleteRetention));
+            if (lastSeq == null) return 0;
+
+            ProductChangeHead head = lockHead();
+            head.setCompactedSeq(Math.max(head.getCompactedSeq(), lastSeq));
+            return productChangeRepository.deleteUpTo(Operation.DELETE, lastSeq);
+        });
+
+        if (superseded + deletes > 0) {
+            log.info("Compacted the product changes, {} superseded changes and {} deletes removed", superseded, deletes);
+        }
+    }
+
+    /**
+     * Takes seqs for new changes, the head stays locked until the transaction ends.
+     *
+     * @return the seq before the first one taken
+     */
+    private long reserve(int count) {
+        ProductChangeHead head = lockHead();
+        long seq = head.getLastSeq();
+        head.setLastSeq(seq + count);
+        return seq;
+    }
+
+    private ProductChangeHead lockHead() {
+        ProductChangeHead head = entityManager.find(ProductChangeHead.class, ProductChangeHead.ID, LockModeType.PESSIMISTIC_WRITE);
+        if (head != null) return head;
+
+        // The schema inserts the head, only missing on a database created by Hibernate
+        head = new ProductChangeHead();
+        head.setId(ProductChangeHead.ID);
+        entityManager.persist(head);
+        entityManager.flush();
+        return head;
+    }
+
+    private static ProductChange newChange(long seq, Integer productId, Operation operation, Instant changedAt) {
+        ProductChange change = new ProductChange();
+        change.setSeq(seq);
+        change.setProductId(productId);
+        change.setOperation(operation);
+        change.setChangedAt(changedAt);
+        return change;
+    }
+}
@@ -0,0 +1,39 @@
+package com.edwbadillo.storedemo.product.change;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Reads and compacts the product change feed, the changes are written by {@link ProductChangeLog}.
+ *
+ * @author edwbadillo
+ */
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    List<ProductChange> findBySeqGreaterThanOrderBySeq(long seq, Limit limit);
+
+    /**
+     * Deletes the changes made before a date that are followed by a later change of the same product.
+     *
+     * @return the number of changes deleted
+     */
+    @Modifying
+    @Query("""
+            DELETE FROM ProductChange c
+            WHERE c.changedAt < :before
+            AND EXISTS (SELECT 1 FROM ProductChange n WHERE n.productId = c.productId AND n.seq > c.seq)
+            """)
+    int deleteSupersededBefore(Instant before);
+
+    @Query("SELECT MAX(c.seq) FROM ProductChange c WHERE c.operation = :operation AND c.changedAt < :before")
+    Long findLastSeqBefore(ProductChange.Operation operation, Instant before);
+
+    @Modifying
+    @Query("DELETE FROM ProductChange c WHERE c.operation = :operation AND c.seq <= :seq")
+    int deleteUpTo(ProductChange.Operation operation, long seq);
+}
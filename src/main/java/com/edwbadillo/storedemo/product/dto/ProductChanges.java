@@ -0,0 +1,37 @@
+package com.edwbadillo.storedemo.product.dto;
+
+import com.edwbadillo.storedemo.product.change.ProductChange.Operation;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A page of the product change feed.
+ *
+ * @param changes the changes, in seq order
+ * @param nextSince the seq to read the next page from, the last seq of the page (or the requested one if empty)
+ * @param hasMore true if there are more changes after this page
+ * @author edwbadillo
+ */
+public record ProductChanges(
+        List<Change> changes,
+        long nextSince,
+        boolean hasMore
+) {
+
+    /**
+     * A product created, updated or deleted, with its data after the change (null for a delete).
+     */
+    public record Change(
+            long seq,
+            Integer productId,
+            Operation operation,
+            Instant changedAt,
+            String name,
+            String description,
+            Boolean isActive,
+            Double price,
+            Integer quantity,
+            Integer categoryId
+    ) { }
+}
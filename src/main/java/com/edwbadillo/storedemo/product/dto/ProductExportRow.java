@@ -0,0 +1,19 @@
+package com.edwbadillo.storedemo.product.dto;
+
+import java.time.Instant;
+
+/**
+ * A product in the catalog export, with the id of its category instead of the category.
+ *
+ * @author edwbadillo
+ */
+public record ProductExportRow(
+    Integer id,
+    String name,
+    String description,
+    boolean isActive,
+    double price,
+    int quantity,
+    Integer categoryId,
+    Instant updatedAt
+) { }
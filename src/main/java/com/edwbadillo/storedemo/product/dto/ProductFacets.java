@@ -0,0 +1,27 @@
+package com.edwbadillo.storedemo.product.dto;
+
+import java.util.List;
+
+/**
+ * Counts of the products matching a filter, by category and by price bucket. The counts of a
+ * facet ignore the filter of that facet, so they tell how many products other values would give.
+ *
+ * @author edwbadillo
+ */
+public record ProductFacets(
+    long count,
+    List<CategoryFacet> categories,
+    List<PriceBucketFacet> prices
+) {
+
+    /**
+     * Number of products of a category.
+     */
+    public record CategoryFacet(Integer categoryId, long count) { }
+
+    /**
+     * Number of products with a price from {@code minPrice} (included) to {@code maxPrice}
+     * (excluded, null for the last bucket).
+     */
+    public record PriceBucketFacet(double minPrice, Double maxPrice, long count) { }
+}
@@ -0,0 +1,31 @@
+package com.edwbadillo.storedemo.product.dto;
+
+import com.edwbadillo.storedemo.common.InvalidField;
+
+import java.util.List;
+
+/**
+ * Result of a product import. Products without errors are imported even if others fail.
+ *
+ * @param rows          the number of products read
+ * @param imported      the number of products created
+ * @param failed        the number of products not created
+ * @param errors        the products not created with their errors, only the first ones if there are many
+ * @param elapsedMillis the duration of the import
+ * @param rowsPerSecond the products read per second
+ * @author edwbadillo
+ */
+public record ProductImportResult(
+    long rows,
+    long imported,
+    long failed,
+    List<RowErrors> errors,
+    long elapsedMillis,
+    double rowsPerSecond
+) {
+
+    /**
+     * The errors of a product, by its number in the body (from 1, the CSV header is not counted).
+     */
+    public record RowErrors(long row, List<InvalidField> errors) { }
+}
@@ -0,0 +1,11 @@
+package com.edwbadillo.storedemo.product.dto;
+
+/**
+ * A product found by a search, with its rank (higher is more relevant).
+ *
+ * @author edwbadillo
+ */
+public record ProductSearchHit(
+    ProductInfo product,
+    float rank
+) { }
@@ -0,0 +1,11 @@
+package com.edwbadillo.storedemo.product.dto;
+
+/**
+ * A product suggested while typing a search.
+ *
+ * @author edwbadillo
+ */
+public record ProductSuggestion(
+    Integer id,
+    String name
+) { }
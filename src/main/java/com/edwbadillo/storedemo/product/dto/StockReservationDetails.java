@@ -0,0 +1,19 @@
+package com.edwbadillo.storedemo.product.dto;
+
+import java.time.Instant;
+
+/**
+ * A stock reservation of the authenticated customer.
+ *
+ * @param id the id of the reservation
+ * @param productId the id of the product reserved
+ * @param quantity the units reserved
+ * @param expiresAt when the units are given back to the product if the reservation isn't confirmed
+ * @author edwbadillo
+ */
+public record StockReservationDetails(
+        Long id,
+        Integer productId,
+        int quantity,
+        Instant expiresAt
+) { }
@@ -0,0 +1,17 @@
+package com.edwbadillo.storedemo.product.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Data for a stock reservation.
+ *
+ * @author edwbadillo
+ */
+public record StockReservationRequest(
+    @NotNull
+    @Min(value = 1, message = "The quantity must be greater than or equal to 1")
+    @Max(value = 100, message = "The quantity must be less than or equal to 100")
+    Integer quantity
+) { }
@@ -0,0 +1,15 @@
+package com.edwbadillo.storedemo.product.exception;
+
+import com.edwbadillo.storedemo.exception.DataIntegrityException;
+
+/**
+ * Exception thrown when a product hasn't the units requested, or isn't active.
+ *
+ * @author edwbadillo
+ */
+public class InsufficientStockException extends DataIntegrityException {
+
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.edwbadillo.storedemo.product.exception;
+
+import com.edwbadillo.storedemo.exception.ResourceNotFoundException;
+
+/**
+ * Exception thrown when a stock reservation is not found, or already expired.
+ *
+ * @author edwbadillo
+ */
+public class ReservationNotFoundException extends ResourceNotFoundException {
+
+    public ReservationNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,44 @@
+package com.edwbadillo.storedemo.product.export;
+
+import java.util.Locale;
+
+/**
+ * Reads the Accept-Encoding header of the export requests, the export compresses its response
+ * itself since it is streamed.
+ *
+ * @author edwbadillo
+ */
+public final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    /**
+     * Tells if an Accept-Encoding header accepts gzip, explicitly or with {@code *}, with a q-value
+     * greater than 0.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].strip().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].strip().toLowerCase(Locale.ROOT);
+                if (!parameter.startsWith("q=")) continue;
+                try {
+                    quality = Double.parseDouble(parameter.substring(2).strip());
+                } catch (NumberFormatException e) {
+                    quality = 0;
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) gzip = quality;
+            else if (name.equals("*")) any = quality;
+        }
+        if (gzip != null) return gzip > 0;
+        return any != null && any > 0;
+    }
+}
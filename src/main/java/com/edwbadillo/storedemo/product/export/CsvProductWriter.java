@@ -0,0 +1,49 @@
+package com.edwbadillo.storedemo.product.export;
+
+import com.edwbadillo.storedemo.product.dto.ProductExportRow;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes products as CSV with a header row. Values with commas, quotes or line breaks are quoted.
+ *
+ * @author edwbadillo
+ */
+class CsvProductWriter implements ProductRowWriter {
+
+    private static final String HEADER = "id,name,description,isActive,price,quantity,categoryId,updatedAt\n";
+
+    private final Writer writer;
+
+    CsvProductWriter(OutputStream output) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        this.writer.write(HEADER);
+    }
+
+    @Override
+    public void write(ProductExportRow row) throws IOException {
+        writer.append(String.valueOf(row.id())).append(',')
+                .append(quote(row.name())).append(',')
+                .append(quote(row.description())).append(',')
+                .append(String.valueOf(row.isActive())).append(',')
+                .append(String.valueOf(row.price())).append(',')
+                .append(String.valueOf(row.quantity())).append(',')
+                .append(String.valueOf(row.categoryId())).append(',')
+                .append(row.updatedAt() == null ? "" : row.updatedAt().toString())
+                .append('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private static String quote(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,37 @@
+package com.edwbadillo.storedemo.product.export;
+
+import com.edwbadillo.storedemo.product.dto.ProductExportRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes products as NDJSON, one JSON object per line.
+ *
+ * @author edwbadillo
+ */
+class NdjsonProductWriter implements ProductRowWriter {
+
+    private final JsonGenerator generator;
+
+    NdjsonProductWriter(OutputStream output, ObjectMapper objectMapper) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(output);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // The lines are separated below, not by the generator
+        this.generator.setRootValueSeparator(null);
+        this.generator.setCodec(objectMapper);
+    }
+
+    @Override
+    public void write(ProductExportRow row) throws IOException {
+        generator.writeObject(row);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.close();
+    }
+}
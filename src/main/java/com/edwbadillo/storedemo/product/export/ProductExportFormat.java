@@ -0,0 +1,49 @@
+package com.edwbadillo.storedemo.product.export;
+
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+
+import java.util.Arrays;
+
+/**
+ * Formats of the catalog export.
+ *
+ * @author edwbadillo
+ */
+public enum ProductExportFormat {
+    /**
+     * Comma separated values with a header row, the columns of the product import plus the id and
+     * the date of the last change.
+     */
+    CSV("csv", "text/csv"),
+
+    /**
+     * One JSON object per line.
+     */
+    NDJSON("ndjson", "application/x-ndjson");
+
+    private final String parameter;
+    private final String contentType;
+
+    ProductExportFormat(String parameter, String contentType) {
+        this.parameter = parameter;
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Gets a format by its parameter value.
+     *
+     * @throws InvalidDataException if the format is not supported
+     */
+    public static ProductExportFormat fromParameter(String parameter) {
+        return Arrays.stream(values())
+                .filter(format -> format.parameter.equalsIgnoreCase(parameter))
+                .findFirst()
+                .orElseThrow(() -> new InvalidDataException(
+                        "invalid_value", "format", "Format must be ndjson or csv", parameter
+                ));
+    }
+}
@@ -0,0 +1,25 @@
+package com.edwbadillo.storedemo.product.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+/**
+ * The service for exporting the product catalog.
+ *
+ * @author edwbadillo
+ */
+public interface ProductExportService {
+
+    /**
+     * Writes the products to a stream as they are read from the database, the memory used
+     * doesn't depend on the number of products. Deleted products are not exported.
+     *
+     * @param output       the stream, not closed
+     * @param format       the format of the export
+     * @param changedSince only the products created or updated since this date (included), null for all
+     * @return the number of products written
+     * @throws IOException if the stream can't be written (for example, the client went away)
+     */
+    long export(OutputStream output, ProductExportFormat format, Instant changedSince) throws IOException;
+}
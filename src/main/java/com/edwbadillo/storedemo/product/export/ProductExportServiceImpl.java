@@ -0,0 +1,51 @@
+package com.edwbadillo.storedemo.product.export;
+
+import com.edwbadillo.storedemo.product.ProductRepository;
+import com.edwbadillo.storedemo.product.dto.ProductExportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * The {@link ProductExportService} implementation. The products are read with a forward-only
+ * cursor, in a read-only transaction that lasts as long as the export (PostgreSQL only streams
+ * a result set inside a transaction).
+ *
+ * @author edwbadillo
+ */
+@Service
+public class ProductExportServiceImpl implements ProductExportService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long export(OutputStream output, ProductExportFormat format, Instant changedSince) throws IOException {
+        ProductRowWriter writer = format == ProductExportFormat.CSV
+                ? new CsvProductWriter(output)
+                : new NdjsonProductWriter(output, objectMapper);
+
+        long written = 0;
+        try (Stream<ProductExportRow> rows = changedSince == null
+                ? productRepository.streamExport()
+                : productRepository.streamExportChangedSince(changedSince)) {
+            for (Iterator<ProductExportRow> iterator = rows.iterator(); iterator.hasNext(); ) {
+                writer.write(iterator.next());
+                written++;
+            }
+        }
+        writer.finish();
+        return written;
+    }
+}
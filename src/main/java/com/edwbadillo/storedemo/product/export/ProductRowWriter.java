@@ -0,0 +1,20 @@
+package com.edwbadillo.storedemo.product.export;
+
+import com.edwbadillo.storedemo.product.dto.ProductExportRow;
+
+import java.io.IOException;
+
+/**
+ * Writes the products of an export one at a time.
+ *
+ * @author edwbadillo
+ */
+interface ProductRowWriter {
+
+    void write(ProductExportRow row) throws IOException;
+
+    /**
+     * Writes what is still buffered, the output stream is not closed.
+     */
+    void finish() throws IOException;
+}
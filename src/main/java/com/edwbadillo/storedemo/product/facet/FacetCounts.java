@@ -0,0 +1,259 @@
+package com.edwbadillo.storedemo.product.facet;
+
+import com.edwbadillo.storedemo.product.ProductFilter;
+import com.edwbadillo.storedemo.product.dto.ProductFacets;
+import com.edwbadillo.storedemo.product.dto.ProductFacets.CategoryFacet;
+import com.edwbadillo.storedemo.product.dto.ProductFacets.PriceBucketFacet;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Aggregate of the products for the facet counts: products are grouped by category, active flag
+ * and stock, each group keeps the sorted prices of its products. Counting the products of a
+ * filter adds, for the matching groups, the prices in the range (two binary searches), so its
+ * cost depends on the number of groups rather than the number of products.
+ * <p>
+ * The category, price and flags of every product are kept by id, so a product is updated or
+ * removed knowing only its id. Reads take a shared lock, changes an exclusive one.
+ *
+ * @author edwbadillo
+ */
+class FacetCounts {
+
+    private static final byte PRESENT = 1;
+    private static final byte ACTIVE = 2;
+    private static final byte IN_STOCK = 4;
+
+    /**
+     * Bounds between the price buckets, the first bucket starts at 0 and the last has no end.
+     */
+    private final double[] bucketBounds;
+
+    private final Map<Group, Prices> groups = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // By product id (ids are dense, they come from a sequence)
+    private int[] categories = new int[1024];
+    private double[] prices = new double[1024];
+    private byte[] flags = new byte[1024];
+    private int size;
+
+    /**
+     * @param bucketBounds the bounds between the price buckets, in ascending order
+     */
+    FacetCounts(double[] bucketBounds) {
+        this.bucketBounds = bucketBounds.clone();
+    }
+
+    /**
+     * Adds a product, replacing it if it was already counted.
+     */
+    void put(int id, int categoryId, double price, boolean active, boolean inStock) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+
+            if (id >= flags.length) {
+                int length = Math.max(id + 1, flags.length * 2);
+                categories = Arrays.copyOf(categories, length);
+                prices = Arrays.copyOf(prices, length);
+                flags = Arrays.copyOf(flags, length);
+            }
+            categories[id] = categoryId;
+            prices[id] = price;
+            flags[id] = (byte) (PRESENT | (active ? ACTIVE : 0) | (inStock ? IN_STOCK : 0));
+            size++;
+
+            groups.computeIfAbsent(new Group(categoryId, active, inStock), group -> new Prices()).add(price);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product, nothing happens if it isn't counted.
+     */
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the products matching a filter.
+     */
+    long count(ProductFilter filter) {
+        lock.readLock().lock();
+        try {
+            return countLocked(filter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the products matching a filter, by category and by price bucket. The category counts
+     * ignore the category of the filter and the bucket counts ignore its price range. Categories
+     * without products are left out, the most populated first.
+     */
+    ProductFacets facets(ProductFilter filter) {
+        lock.readLock().lock();
+        try {
+            ProductFilter anyCategory = filter.withoutCategory();
+            Map<Integer, Long> byCategory = new HashMap<>();
+            groups.forEach((group, groupPrices) -> {
+                if (!anyCategory.matches(group.categoryId(), group.active(), group.inStock())) return;
+                long count = groupPrices.count(filter.minPrice(), filter.maxPrice());
+                if (count > 0) byCategory.merge(group.categoryId(), count, Long::sum);
+            });
+
+            ProductFilter anyPrice = filter.withoutPrice();
+            long[] byBucket = new long[bucketBounds.length + 1];
+            groups.forEach((group, groupPrices) -> {
+                if (!anyPrice.matches(group.categoryId(), group.active(), group.inStock())) return;
+                for (int i = 0; i < byBucket.length; i++) {
+                    byBucket[i] += groupPrices.count(bucketStart(i), bucketEnd(i));
+                }
+            });
+
+            List<CategoryFacet> categoryFacets = byCategory.entrySet()
+                    .stream()
+                    .map(entry -> new CategoryFacet(entry.getKey(), entry.getValue()))
+                    .sorted(Comparator.comparingLong(CategoryFacet::count).reversed()
+                            .thenComparing(CategoryFacet::categoryId))
+                    .toList();
+            List<PriceBucketFacet> priceFacets = new ArrayList<>(byBucket.length);
+            for (int i = 0; i < byBucket.length; i++) {
+                priceFacets.add(new PriceBucketFacet(bucketStart(i), bucketEnd(i), byBucket[i]));
+            }
+
+            return new ProductFacets(countLocked(filter), categoryFacets, priceFacets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of products counted.
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long countLocked(ProductFilter filter) {
+        long count = 0;
+        for (Map.Entry<Group, Prices> entry : groups.entrySet()) {
+            Group group = entry.getKey();
+            if (filter.matches(group.categoryId(), group.active(), group.inStock())) {
+                count += entry.getValue().count(filter.minPrice(), filter.maxPrice());
+            }
+        }
+        return count;
+    }
+
+    private void removeLocked(int id) {
+        if (id >= flags.length || (flags[id] & PRESENT) == 0) return;
+
+        Group group = new Group(categories[id], (flags[id] & ACTIVE) != 0, (flags[id] & IN_STOCK) != 0);
+        Prices groupPrices = groups.get(group);
+        groupPrices.remove(prices[id]);
+        if (groupPrices.isEmpty()) groups.remove(group);
+
+        flags[id] = 0;
+        size--;
+    }
+
+    private double bucketStart(int bucket) {
+        return bucket == 0 ? 0 : bucketBounds[bucket - 1];
+    }
+
+    private Double bucketEnd(int bucket) {
+        return bucket == bucketBounds.length ? null : bucketBounds[bucket];
+    }
+
+    private record Group(int categoryId, boolean active, boolean inStock) { }
+
+    /**
+     * Sorted prices of a group, with repetitions.
+     */
+    static class Prices {
+
+        private double[] values = new double[4];
+        private int size;
+
+        /**
+         * Inserts after the equal prices, prices added in ascending order are appended.
+         */
+        void add(double price) {
+            int index = upperBound(price);
+            if (size == values.length) values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = price;
+            size++;
+        }
+
+        void remove(double price) {
+            int index = lowerBound(price);
+            if (index == size || values[index] != price) return;
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+        }
+
+        /**
+         * Counts the prices from {@code min} (included) to {@code max} (excluded), null for no limit.
+         */
+        long count(Double min, Double max) {
+            int from = min == null ? 0 : lowerBound(min);
+            int to = max == null ? size : lowerBound(max);
+            return Math.max(0, to - from);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Index of the first price greater or equal than the given one.
+         */
+        private int lowerBound(double price) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < price) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Index of the first price greater than the given one.
+         */
+        private int upperBound(double price) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] <= price) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.edwbadillo.storedemo.product.facet;
+
+import com.edwbadillo.storedemo.product.Product;
+import com.edwbadillo.storedemo.product.ProductFilter;
+import com.edwbadillo.storedemo.product.StreamedIndex;
+import com.edwbadillo.storedemo.product.dto.ProductFacets;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory counts of the products by category, price, active flag and stock, answers the
+ * facets of the product listing without a {@code GROUP BY} on every request.
+ * <p>
+ * The counts are a {@link StreamedIndex} of the {@code product} table, counted when the
+ * application is ready and then updated by the product service on every change. The periodic
+ * recount picks the changes of other nodes, until the first one finishes the counts are empty.
+ * <p>
+ * The number of counted products is published as the {@code product.facets.size} metric.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    /**
+     * Read by price, the prices of each group are appended instead of inserted.
+     */
+    private static final String SELECT_ALL =
+            "SELECT id, category_id, price, is_active, quantity FROM product ORDER BY price, id";
+
+    private final StreamedIndex<FacetCounts> counts;
+
+    public ProductFacetIndex(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${product.facets.price-buckets}") double[] priceBuckets,
+            MeterRegistry meterRegistry
+    ) {
+        this.counts = new StreamedIndex<>(
+                jdbcTemplate,
+                transactionManager,
+                SELECT_ALL,
+                () -> new FacetCounts(priceBuckets),
+                (target, rs) -> target.put(
+                        rs.getInt("id"),
+                        rs.getInt("category_id"),
+                        rs.getDouble("price"),
+                        rs.getBoolean("is_active"),
+                        rs.getInt("quantity") > 0
+                )
+        );
+
+        Gauge.builder("product.facets.size", this, facetIndex -> facetIndex.counts.current().size())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(
+            initialDelayString = "${product.facets.rebuild-minutes}",
+            fixedDelayString = "${product.facets.rebuild-minutes}",
+            timeUnit = TimeUnit.MINUTES
+    )
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        FacetCounts newCounts = counts.rebuild();
+        if (newCounts != null) {
+            log.info("Counted {} products for facets in {} ms", newCounts.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Counts the products matching a filter, by category and by price bucket, see
+     * {@link FacetCounts#facets(ProductFilter)}.
+     *
+     * @param filter the filter of the listing
+     * @return the counts
+     */
+    public ProductFacets getFacets(ProductFilter filter) {
+        return counts.current().facets(filter);
+    }
+
+    /**
+     * Counts the products matching a filter.
+     *
+     * @param filter the filter of the listing
+     * @return the number of products
+     */
+    public long count(ProductFilter filter) {
+        return counts.current().count(filter);
+    }
+
+    /**
+     * Counts a product created or updated.
+     *
+     * @param product the product saved
+     */
+    public void put(Product product) {
+        int id = product.getId();
+        int categoryId = product.getCategory().getId();
+        double price = product.getPrice();
+        boolean active = product.isActive();
+        boolean inStock = product.getQuantity() > 0;
+
+        counts.apply(target -> target.put(id, categoryId, price, active, inStock));
+    }
+
+    /**
+     * Removes a product deleted from the counts.
+     *
+     * @param productId the id of the product
+     */
+    public void remove(Integer productId) {
+        int id = productId;
+        counts.apply(target -> target.remove(id));
+    }
+}
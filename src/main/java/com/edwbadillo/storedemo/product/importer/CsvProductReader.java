@@ -0,0 +1,168 @@
+package com.edwbadillo.storedemo.product.importer;
+
+import com.edwbadillo.storedemo.common.InvalidField;
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+import com.edwbadillo.storedemo.product.dto.ProductRegister;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Reads products from CSV. The header names the columns (in any order, case-insensitive): {@code name},
+ * {@code description}, {@code isActive}, {@code price}, {@code quantity} and {@code categoryId}. The
+ * description and isActive columns are optional, products are active if there is no isActive column.
+ * Other columns are ignored.
+ *
+ * @author edwbadillo
+ */
+class CsvProductReader implements ProductReader {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "price", "quantity", "categoryid");
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    private List<String> nextRecord;
+    private long number;
+
+    /**
+     * Reads the header.
+     *
+     * @throws InvalidDataException if there is no header or a required column is missing
+     */
+    CsvProductReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        List<String> header = readRecord();
+        if (header == null) throw new InvalidDataException("invalid_value", "header", "The CSV has no header", null);
+        for (int i = 0; i < header.size(); i++) {
+            // Without the byte order mark some editors write before the first column
+            columns.put(header.get(i).replace("\uFEFF", "").strip().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new InvalidDataException("invalid_value", "header", "The CSV has no " + column + " column", header);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (nextRecord == null) {
+            List<String> record = readRecord();
+            if (record == null) return false;
+            // Blank lines are skipped
+            if (record.size() > 1 || !record.get(0).isBlank()) nextRecord = record;
+        }
+        return true;
+    }
+
+    @Override
+    public ImportRow next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        List<String> record = nextRecord;
+        nextRecord = null;
+        number++;
+
+        List<InvalidField> errors = new ArrayList<>();
+        String active = value(record, "isactive");
+        ProductRegister data = new ProductRegister(
+                value(record, "name"),
+                value(record, "description"),
+                columns.containsKey("isactive") ? toBoolean(active, errors) : Boolean.TRUE,
+                toDouble(value(record, "price"), "price", errors),
+                toInteger(value(record, "quantity"), "quantity", errors),
+                toInteger(value(record, "categoryid"), "categoryId", errors)
+        );
+        return new ImportRow(number, errors.isEmpty() ? data : null, errors);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Gets the value of a column, null if the record has no such column or it is empty.
+     */
+    private String value(List<String> record, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size() || record.get(index).isEmpty()) return null;
+        return record.get(index);
+    }
+
+    /**
+     * Reads the fields of the next record, which can span several lines if a quoted value
+     * has line breaks.
+     *
+     * @return the fields, null at the end of the body
+     */
+    private List<String> readRecord() {
+        try {
+            int c = reader.read();
+            if (c == -1) return null;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        c = reader.read();
+                        // A doubled quote is a quote, otherwise the value ends
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read the CSV", e);
+        }
+    }
+
+    private static Boolean toBoolean(String value, List<InvalidField> errors) {
+        if (value == null) return null;
+        if (value.strip().equalsIgnoreCase("true")) return true;
+        if (value.strip().equalsIgnoreCase("false")) return false;
+        errors.add(new InvalidField("invalid_value", "Must be true or false", "isActive", value));
+        return null;
+    }
+
+    private static Double toDouble(String value, String field, List<InvalidField> errors) {
+        if (value == null) return null;
+        try {
+            double number = Double.parseDouble(value.strip());
+            if (Double.isFinite(number)) return number;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        errors.add(new InvalidField("invalid_value", "Must be a number", field, value));
+        return null;
+    }
+
+    private static Integer toInteger(String value, String field, List<InvalidField> errors) {
+        if (value == null) return null;
+        try {
+            return Integer.valueOf(value.strip());
+        } catch (NumberFormatException e) {
+            errors.add(new InvalidField("invalid_value", "Must be an integer", field, value));
+            return null;
+        }
+    }
+}
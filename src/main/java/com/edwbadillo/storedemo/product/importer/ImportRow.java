@@ -0,0 +1,16 @@
+package com.edwbadillo.storedemo.product.importer;
+
+import com.edwbadillo.storedemo.common.InvalidField;
+import com.edwbadillo.storedemo.product.dto.ProductRegister;
+
+import java.util.List;
+
+/**
+ * A product read from the import body.
+ *
+ * @param number the number of the product in the body, from 1 (the CSV header is not counted)
+ * @param data   the product data, null if it couldn't be read
+ * @param errors the errors found reading the data, empty if none
+ * @author edwbadillo
+ */
+record ImportRow(long number, ProductRegister data, List<InvalidField> errors) { }
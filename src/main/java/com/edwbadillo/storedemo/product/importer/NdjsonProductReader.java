@@ -0,0 +1,70 @@
+package com.edwbadillo.storedemo.product.importer;
+
+import com.edwbadillo.storedemo.common.InvalidField;
+import com.edwbadillo.storedemo.product.dto.ProductRegister;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads products from NDJSON, one JSON object per line with the fields of {@link ProductRegister}.
+ * Blank lines are skipped.
+ *
+ * @author edwbadillo
+ */
+class NdjsonProductReader implements ProductReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+
+    private String nextLine;
+    private long number;
+
+    NdjsonProductReader(InputStream input, ObjectReader objectReader) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.objectReader = objectReader.forType(ProductRegister.class);
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (nextLine == null) {
+                String line = reader.readLine();
+                if (line == null) return false;
+                if (!line.isBlank()) nextLine = line;
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read the NDJSON", e);
+        }
+    }
+
+    @Override
+    public ImportRow next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        String line = nextLine;
+        nextLine = null;
+        number++;
+
+        try {
+            return new ImportRow(number, objectReader.readValue(line), List.of());
+        } catch (JsonProcessingException e) {
+            String field = e instanceof JsonMappingException mapping && !mapping.getPath().isEmpty()
+                    ? mapping.getPath().get(0).getFieldName()
+                    : null;
+            return new ImportRow(number, null, List.of(
+                    new InvalidField("invalid_value", "Invalid JSON: " + e.getOriginalMessage(), field, null)
+            ));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
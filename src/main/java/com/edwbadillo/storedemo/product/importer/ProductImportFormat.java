@@ -0,0 +1,49 @@
+package com.edwbadillo.storedemo.product.importer;
+
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+
+/**
+ * Formats of the product import, selected by the content type of the request.
+ *
+ * @author edwbadillo
+ */
+public enum ProductImportFormat {
+    /**
+     * Comma separated values with a header row, quoted values may contain commas, quotes ({@code ""})
+     * and line breaks.
+     */
+    CSV("text/csv"),
+
+    /**
+     * One JSON object per line, with the fields of a product registration.
+     */
+    NDJSON("application/x-ndjson");
+
+    private final String contentType;
+
+    ProductImportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Gets the format of a content type, ignoring its parameters (charset).
+     *
+     * @throws InvalidDataException if the content type is not supported
+     */
+    public static ProductImportFormat fromContentType(String contentType) {
+        MediaType mediaType = contentType == null ? null : MediaType.parseMediaType(contentType);
+        return Arrays.stream(values())
+                .filter(format -> mediaType != null && MediaType.parseMediaType(format.contentType).equalsTypeAndSubtype(mediaType))
+                .findFirst()
+                .orElseThrow(() -> new InvalidDataException(
+                        "invalid_value", "Content-Type", "Content type must be text/csv or application/x-ndjson", contentType
+                ));
+    }
+}
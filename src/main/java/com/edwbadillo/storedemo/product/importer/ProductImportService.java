@@ -0,0 +1,24 @@
+package com.edwbadillo.storedemo.product.importer;
+
+import com.edwbadillo.storedemo.product.dto.ProductImportResult;
+
+import java.io.InputStream;
+
+/**
+ * The service for importing many products at once.
+ *
+ * @author edwbadillo
+ */
+public interface ProductImportService {
+
+    /**
+     * Creates the products of a CSV or NDJSON body, reading it as it arrives. Products are
+     * validated and inserted in chunks, each chunk in its own transaction: products with errors
+     * are reported and skipped, the others are created.
+     *
+     * @param body   the request body
+     * @param format the format of the body
+     * @return the number of products created and the errors
+     */
+    ProductImportResult importProducts(InputStream body, ProductImportFormat format);
+}
@@ -0,0 +1,226 @@
+package com.edwbadillo.storedemo.product.importer;
+
+import com.edwbadillo.storedemo.common.InvalidField;
+import com.edwbadillo.storedemo.product.Product;
+import com.edwbadillo.storedemo.product.ProductRepository;
+import com.edwbadillo.storedemo.product.category.Category;
+import com.edwbadillo.storedemo.product.category.CategoryRepository;
+import com.edwbadillo.storedemo.product.change.ProductChange.Operation;
+import com.edwbadillo.storedemo.product.change.ProductChangeLog;
+import com.edwbadillo.storedemo.product.dto.ProductImportResult;
+import com.edwbadillo.storedemo.product.dto.ProductImportResult.RowErrors;
+import com.edwbadillo.storedemo.product.dto.ProductMapper;
+import com.edwbadillo.storedemo.product.dto.ProductRegister;
+import com.edwbadillo.storedemo.product.facet.ProductFacetIndex;
+import com.edwbadillo.storedemo.product.suggest.ProductSuggestIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link ProductImportService} implementation.
+ * <p>
+ * The categories are loaded once per import. For each chunk the names are checked with a single
+ * query and the products are inserted with JDBC batches (the product ids come from a pooled
+ * sequence, not an identity column). Earlier chunks are already committed when a chunk is checked,
+ * so a name repeated in the body is found either in the chunk or in the database.
+ *
+ * @author edwbadillo
+ */
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+    /**
+     * Products with errors listed in the result, the others are only counted.
+     */
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductSuggestIndex productSuggestIndex;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private ProductChangeLog productChangeLog;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${product.import.chunk-size}")
+    private int chunkSize;
+
+    @Override
+    public ProductImportResult importProducts(InputStream body, ProductImportFormat format) {
+        long start = System.nanoTime();
+        Map<Integer, Category> categories = categoryRepository.findAll()
+                .stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        Report report = new Report();
+
+        try (ProductReader reader = format == ProductImportFormat.CSV
+                ? new CsvProductReader(body)
+                : new NdjsonProductReader(body, objectMapper.reader())) {
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            while (reader.hasNext()) {
+                chunk.add(reader.next());
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, categories, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) importChunk(chunk, categories, report);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read the import body", e);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        double rowsPerSecond = elapsedNanos == 0 ? 0 : report.rows * 1_000_000_000.0 / elapsedNanos;
+        log.info("Imported {} of {} products in {} ms ({} products/s)",
+                report.imported, report.rows, elapsedNanos / 1_000_000, Math.round(rowsPerSecond));
+
+        return new ProductImportResult(
+                report.rows, report.imported, report.failed, report.errors, elapsedNanos / 1_000_000, rowsPerSecond
+        );
+    }
+
+    /**
+     * Validates the products of a chunk and inserts the valid ones.
+     */
+    private void importChunk(List<ImportRow> chunk, Map<Integer, Category> categories, Report report) {
+        report.rows += chunk.size();
+
+        // Valid products by lower case name, a name repeated in the chunk is an error
+        Map<String, ImportRow> valid = new LinkedHashMap<>();
+        for (ImportRow row : chunk) {
+            List<InvalidField> errors = validate(row, categories);
+            if (errors.isEmpty() && valid.putIfAbsent(row.data().name().toLowerCase(Locale.ROOT), row) != null) {
+                errors = List.of(new InvalidField("already_exists", "Name repeated in the import", "name", row.data().name()));
+            }
+            if (!errors.isEmpty()) report.fail(row.number(), errors);
+        }
+        if (valid.isEmpty()) return;
+
+        for (String name : productRepository.findNamesIn(valid.keySet())) {
+            ImportRow row = valid.remove(name.toLowerCase(Locale.ROOT));
+            if (row != null) {
+                report.fail(row.number(), List.of(new InvalidField("already_exists", "Name already exists", "name", row.data().name())));
+            }
+        }
+
+        List<ImportRow> rows = new ArrayList<>(valid.values());
+        List<Product> products = rows.stream()
+                .map(row -> {
+                    Product product = productMapper.getEntity(row.data());
+                    product.setCategory(categories.get(row.data().categoryId()));
+                    return product;
+                })
+                .toList();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                productRepository.saveAll(products);
+                productChangeLog.record(Operation.CREATE, products);
+            });
+            products.forEach(this::indexProduct);
+            report.imported += products.size();
+        } catch (DataIntegrityViolationException e) {
+            // A product created meanwhile with the same name, each product is saved alone to find it
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                product.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        productRepository.save(product);
+                        productChangeLog.record(Operation.CREATE, List.of(product));
+                    });
+                    indexProduct(product);
+                    report.imported++;
+                } catch (DataIntegrityViolationException rowException) {
+                    report.fail(rows.get(i).number(), List.of(
+                            new InvalidField("already_exists", "Name already exists", "name", product.getName())
+                    ));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the data of a product like the product creation does, except the name uniqueness.
+     */
+    private List<InvalidField> validate(ImportRow row, Map<Integer, Category> categories) {
+        if (!row.errors().isEmpty()) return row.errors();
+
+        ProductRegister data = row.data();
+        List<InvalidField> errors = new ArrayList<>();
+        for (ConstraintViolation<ProductRegister> violation : validator.validate(data)) {
+            errors.add(new InvalidField(
+                    violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName(),
+                    violation.getMessage(),
+                    violation.getPropertyPath().toString(),
+                    violation.getInvalidValue()
+            ));
+        }
+        if (!errors.isEmpty()) return errors;
+
+        Category category = categories.get(data.categoryId());
+        if (category == null) {
+            return List.of(new InvalidField("invalid_value", "Category not found", "categoryId", data.categoryId()));
+        }
+        if (!category.isActive()) {
+            return List.of(new InvalidField("invalid_value", "Category not active", "categoryId", data.categoryId()));
+        }
+        return List.of();
+    }
+
+    private void indexProduct(Product product) {
+        productSuggestIndex.put(product);
+        productFacetIndex.put(product);
+    }
+
+    /**
+     * Counters and errors of an import.
+     */
+    private static class Report {
+        private long rows;
+        private long imported;
+        private long failed;
+        private final List<RowErrors> errors = new ArrayList<>();
+
+        void fail(long row, List<InvalidField> rowErrors) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new RowErrors(row, rowErrors));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.edwbadillo.storedemo.product.importer;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Reads the products of an import body one at a time, the body is never held in memory.
+ * Rows that can't be read are returned with their errors, the reading goes on with the next one.
+ *
+ * @author edwbadillo
+ */
+interface ProductReader extends Iterator<ImportRow>, Closeable {
+}
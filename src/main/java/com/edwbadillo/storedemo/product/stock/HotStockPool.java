@@ -0,0 +1,103 @@
+package com.edwbadillo.storedemo.product.stock;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Units of the hottest products (the ones of a flash sale, configured by id) held in memory, see
+ * {@link StripedStock}. Reservations of these products take their units from memory and only
+ * update the product row to take a chunk, instead of serializing on its row lock.
+ * <p>
+ * The units held are not in {@code product.quantity} until they are given back, which the stock
+ * service does for the stripes left unused for a while and on shutdown. If the node stops without
+ * giving them back, at most {@code chunk-size × stripes} units of each product are lost (never
+ * oversold) and must be added again with an update of the product.
+ * <p>
+ * The units held are published as the {@code product.stock.pooled} metric.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class HotStockPool {
+
+    private final Map<Integer, StripedStock> pools = new HashMap<>();
+
+    public HotStockPool(
+            @Value("${product.stock.hot-product-ids}") List<Integer> hotProductIds,
+            @Value("${product.stock.stripes}") int stripes,
+            @Value("${product.stock.chunk-size}") int chunkSize,
+            MeterRegistry meterRegistry
+    ) {
+        for (Integer productId : hotProductIds) {
+            pools.put(productId, new StripedStock(stripes, chunkSize));
+        }
+
+        Gauge.builder("product.stock.pooled", this, pool -> pool.pools.values().stream()
+                        .mapToInt(StripedStock::available)
+                        .sum())
+                .register(meterRegistry);
+    }
+
+    public boolean isHot(Integer productId) {
+        return pools.containsKey(productId);
+    }
+
+    /**
+     * Takes units of a hot product.
+     *
+     * @param productId the id of the product, must be hot
+     * @param quantity the units
+     * @param refill takes the given units from the database, false if it hasn't them
+     * @return false if there aren't enough units
+     */
+    public boolean take(Integer productId, int quantity, IntPredicate refill) {
+        return pools.get(productId).take(quantity, refill, System.nanoTime());
+    }
+
+    /**
+     * Gives back units taken with {@link #take(Integer, int, IntPredicate)} for a reservation that failed.
+     */
+    public void giveBack(Integer productId, int quantity) {
+        pools.get(productId).giveBack(quantity);
+    }
+
+    /**
+     * Tells that units of a hot product were given back to the database, so the next reservations
+     * refill even if it was sold out.
+     */
+    public void restocked(Integer productId) {
+        pools.get(productId).restocked();
+    }
+
+    /**
+     * Removes all the units of a hot product.
+     *
+     * @return the units removed
+     */
+    public int drain(Integer productId) {
+        return pools.get(productId).drainUnusedSince(Long.MAX_VALUE);
+    }
+
+    /**
+     * Removes the units of the stripes not used for a while.
+     *
+     * @param unused the time without reservations, null to remove all the units
+     * @param removed receives the product id and the units removed, for each product with units removed
+     */
+    public void drain(Duration unused, BiConsumer<Integer, Integer> removed) {
+        long since = unused == null ? Long.MAX_VALUE : System.nanoTime() - unused.toNanos();
+        pools.forEach((productId, pool) -> {
+            int units = pool.drainUnusedSince(since);
+            if (units > 0) removed.accept(productId, units);
+        });
+    }
+}
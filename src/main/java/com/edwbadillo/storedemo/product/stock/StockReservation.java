@@ -0,0 +1,36 @@
+package com.edwbadillo.storedemo.product.stock;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Units of a product held for a customer until the reservation is confirmed, released or expires.
+ * The units are taken from the product when reserved, see {@link StockService}.
+ *
+ * @author edwbadillo
+ */
+@Entity
+@Table(name = "stock_reservation")
+@Data
+@NoArgsConstructor
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Integer productId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Integer customerId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,33 @@
+package com.edwbadillo.storedemo.product.stock;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for {@link StockReservation}.
+ *
+ * @author edwbadillo
+ */
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    Optional<StockReservation> findByIdAndCustomerId(Long id, Integer customerId);
+
+    List<StockReservation> findByExpiresAtBeforeOrderByExpiresAt(Instant now, Limit limit);
+
+    /**
+     * Deletes a reservation, telling if it was deleted by this call. A reservation released, confirmed
+     * or expired at the same time by several requests (or nodes) is only deleted by one of them, the
+     * others wait for its row lock and delete nothing, so its units are given back once.
+     *
+     * @return 1 if the reservation was deleted, 0 if it didn't exist
+     */
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.id = :id")
+    int removeById(Long id);
+}
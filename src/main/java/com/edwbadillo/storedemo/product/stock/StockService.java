@@ -0,0 +1,42 @@
+package com.edwbadillo.storedemo.product.stock;
+
+import com.edwbadillo.storedemo.product.dto.StockReservationDetails;
+
+/**
+ * The service for reserving units of products. The units are taken from the product when reserved,
+ * given back when the reservation is released or expires, and kept when it is confirmed.
+ *
+ * @author edwbadillo
+ */
+public interface StockService {
+
+    /**
+     * Reserves units of a product for the authenticated customer.
+     *
+     * @param productId the id of the product
+     * @param quantity  the units, at least 1
+     * @return the reservation
+     * @throws com.edwbadillo.storedemo.product.exception.ProductNotFoundException if the product doesn't exist
+     * @throws com.edwbadillo.storedemo.product.exception.InsufficientStockException if the product isn't
+     *         active or hasn't the units
+     */
+    StockReservationDetails reserve(Integer productId, int quantity);
+
+    /**
+     * Releases a reservation of the authenticated customer, its units are given back to the product.
+     *
+     * @param reservationId the id of the reservation
+     * @throws com.edwbadillo.storedemo.product.exception.ReservationNotFoundException if the customer
+     *         has no such reservation (or it expired)
+     */
+    void release(Long reservationId);
+
+    /**
+     * Confirms a reservation, its units are sold and not given back.
+     *
+     * @param reservationId the id of the reservation
+     * @throws com.edwbadillo.storedemo.product.exception.ReservationNotFoundException if the reservation
+     *         doesn't exist (or it expired)
+     */
+    void confirm(Long reservationId);
+}
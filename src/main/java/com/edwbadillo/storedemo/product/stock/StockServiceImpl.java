@@ -0,0 +1,296 @@
+package com.edwbadillo.storedemo.product.stock;
+
+import com.edwbadillo.storedemo.auth.userdetails.CustomerUserDetails;
+import com.edwbadillo.storedemo.product.Product;
+import com.edwbadillo.storedemo.product.ProductRepository;
+import com.edwbadillo.storedemo.product.cache.ProductCacheBroadcast;
+import com.edwbadillo.storedemo.product.cache.ProductCacheInvalidation;
+import com.edwbadillo.storedemo.product.cache.ProductDetailsCache;
+import com.edwbadillo.storedemo.product.change.ProductChange.Operation;
+import com.edwbadillo.storedemo.product.change.ProductChangeLog;
+import com.edwbadillo.storedemo.product.dto.StockReservationDetails;
+import com.edwbadillo.storedemo.product.exception.InsufficientStockException;
+import com.edwbadillo.storedemo.product.exception.ProductNotFoundException;
+import com.edwbadillo.storedemo.product.exception.ReservationNotFoundException;
+import com.edwbadillo.storedemo.product.facet.ProductFacetIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link StockService} implementation.
+ * <p>
+ * Units are taken with a conditional update of the product ({@link ProductRepository#takeStock}),
+ * in the transaction that inserts the reservation. Units of the hot products are taken from the
+ * {@link HotStockPool} instead, which updates the product once per chunk.
+ * <p>
+ * The quantity changes too often to be recorded in the change feed and the facet counts, they are
+ * only updated when a product runs out of stock or gets stock again. The cached product details
+ * are invalidated on every change of the quantity, and these invalidations tell the pools of the
+ * hot products that they may refill again, or give back their units if the product was
+ * deactivated or deleted.
+ *
+ * @author edwbadillo
+ */
+@Service
+public class StockServiceImpl implements StockService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockServiceImpl.class);
+
+    /**
+     * Expired reservations given back per transaction.
+     */
+    private static final int EXPIRE_BATCH_SIZE = 500;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private HotStockPool hotStockPool;
+
+    @Autowired
+    private ProductChangeLog productChangeLog;
+
+    @Autowired
+    private ProductDetailsCache productDetailsCache;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private ProductCacheBroadcast productCacheBroadcast;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * For the work done once a transaction commits, its resources are still bound to the thread.
+     */
+    private TransactionTemplate newTransactionTemplate;
+
+    @Value("${product.stock.reservation-ttl-minutes}")
+    private long reservationTtlMinutes;
+
+    @Value("${product.stock.pool-idle-seconds}")
+    private long poolIdleSeconds;
+
+    @PostConstruct
+    public void init() {
+        newTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        productCacheBroadcast.subscribe(this::productChanged);
+    }
+
+    @Override
+    public StockReservationDetails reserve(Integer productId, int quantity) {
+        StockReservation reservation = new StockReservation();
+        reservation.setProductId(productId);
+        reservation.setCustomerId(getAuthenticatedCustomerId());
+        reservation.setQuantity(quantity);
+        reservation.setExpiresAt(Instant.now().plus(Duration.ofMinutes(reservationTtlMinutes)));
+
+        if (hotStockPool.isHot(productId)) {
+            // Outside a transaction, the chunks taken are committed whatever happens to the reservation
+            boolean taken = hotStockPool.take(productId, quantity, units -> Boolean.TRUE.equals(
+                    transactionTemplate.execute(status -> takeStock(productId, units))
+            ));
+            if (!taken) throw insufficientStock(productId);
+            try {
+                stockReservationRepository.save(reservation);
+            } catch (RuntimeException e) {
+                hotStockPool.giveBack(productId, quantity);
+                throw e;
+            }
+        } else {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!takeStock(productId, quantity)) throw insufficientStock(productId);
+                stockReservationRepository.save(reservation);
+            });
+        }
+
+        return new StockReservationDetails(
+                reservation.getId(), productId, reservation.getQuantity(), reservation.getExpiresAt()
+        );
+    }
+
+    @Override
+    public void release(Long reservationId) {
+        StockReservation reservation = stockReservationRepository
+                .findByIdAndCustomerId(reservationId, getAuthenticatedCustomerId())
+                .orElseThrow(() -> new ReservationNotFoundException("Reservation " + reservationId + " not found"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Released meanwhile (expired) if nothing is deleted
+            if (stockReservationRepository.removeById(reservationId) == 1) {
+                returnStock(reservation.getProductId(), reservation.getQuantity());
+            }
+        });
+    }
+
+    @Override
+    public void confirm(Long reservationId) {
+        Integer deleted = transactionTemplate.execute(status -> stockReservationRepository.removeById(reservationId));
+        if (deleted == null || deleted == 0) {
+            throw new ReservationNotFoundException("Reservation " + reservationId + " not found");
+        }
+    }
+
+    /**
+     * Gives back the units of the expired reservations.
+     */
+    @Scheduled(
+            fixedDelayString = "${product.stock.expire-seconds}",
+            initialDelayString = "${product.stock.expire-seconds}",
+            timeUnit = TimeUnit.SECONDS
+    )
+    public void expireReservations() {
+        List<StockReservation> expired;
+        do {
+            expired = stockReservationRepository.findByExpiresAtBeforeOrderByExpiresAt(
+                    Instant.now(), Limit.of(EXPIRE_BATCH_SIZE)
+            );
+            List<StockReservation> batch = expired;
+            transactionTemplate.executeWithoutResult(status -> {
+                // By product, one update per product; in id order, concurrent expirations lock the rows in the same order
+                Map<Integer, Integer> quantities = new TreeMap<>();
+                for (StockReservation reservation : batch) {
+                    if (stockReservationRepository.removeById(reservation.getId()) == 1) {
+                        quantities.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+                    }
+                }
+                quantities.forEach(this::returnStock);
+            });
+            if (!expired.isEmpty()) log.info("Expired {} stock reservations", expired.size());
+        } while (expired.size() == EXPIRE_BATCH_SIZE);
+    }
+
+    /**
+     * Gives back the units held in memory for the hot products that had no reservations for a while.
+     */
+    @Scheduled(
+            fixedDelayString = "${product.stock.pool-idle-seconds}",
+            initialDelayString = "${product.stock.pool-idle-seconds}",
+            timeUnit = TimeUnit.SECONDS
+    )
+    public void drainIdlePools() {
+        drainPools(Duration.ofSeconds(poolIdleSeconds));
+    }
+
+    @PreDestroy
+    public void drainAllPools() {
+        drainPools(null);
+    }
+
+    private void drainPools(Duration unused) {
+        hotStockPool.drain(unused, this::giveBackPooled);
+    }
+
+    /**
+     * The stock of a hot product may have changed in any node: the next reservations refill its pool
+     * even if it was sold out, and the units of the pool are given back if the product was
+     * deactivated or deleted.
+     */
+    private void productChanged(ProductCacheInvalidation invalidation) {
+        Integer productId = invalidation.id();
+        if (invalidation.type() != ProductCacheInvalidation.Type.PRODUCT || !hotStockPool.isHot(productId)) return;
+
+        hotStockPool.restocked(productId);
+        if (productRepository.findActiveById(productId).orElse(false)) return;
+
+        int units = hotStockPool.drain(productId);
+        if (units > 0) giveBackPooled(productId, units);
+    }
+
+    /**
+     * Gives back to the database units removed from the pool of a hot product.
+     */
+    private void giveBackPooled(Integer productId, int units) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> returnStock(productId, units));
+        } catch (RuntimeException e) {
+            hotStockPool.giveBack(productId, units);
+            log.error("Can't give back {} units of product {}, kept in memory", units, productId, e);
+        }
+    }
+
+    /**
+     * Takes units of a product in the current transaction.
+     *
+     * @return false if the product doesn't exist, isn't active or hasn't the units
+     */
+    private boolean takeStock(Integer productId, int units) {
+        if (productRepository.takeStock(productId, units, Instant.now()) == 0) return false;
+        int left = productRepository.findQuantityById(productId).orElse(0);
+        stockChanged(productId, left == 0);
+        return true;
+    }
+
+    /**
+     * Gives back units of a product in the current transaction, nothing happens if it was deleted.
+     */
+    private void returnStock(Integer productId, int units) {
+        if (productRepository.returnStock(productId, units, Instant.now()) == 0) return;
+        int left = productRepository.findQuantityById(productId).orElse(0);
+        stockChanged(productId, left == units);
+    }
+
+    /**
+     * Records a change of the quantity of a product, in the current transaction. The caches are
+     * updated once committed.
+     *
+     * @param inStockChanged true if the product ran out of stock or got stock again
+     */
+    private void stockChanged(Integer productId, boolean inStockChanged) {
+        Product product = inStockChanged ? productRepository.findById(productId).orElse(null) : null;
+        if (product != null) productChangeLog.record(Operation.UPDATE, List.of(product));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // In a new transaction, the broadcast and the listeners may write
+                newTransactionTemplate.executeWithoutResult(status -> {
+                    productDetailsCache.invalidateProduct(productId);
+                    if (product != null) productFacetIndex.put(product);
+                });
+            }
+        });
+    }
+
+    private InsufficientStockException insufficientStock(Integer productId) {
+        if (productRepository.findQuantityById(productId).isEmpty()) {
+            throw new ProductNotFoundException("Product " + productId + " not found");
+        }
+        return new InsufficientStockException("Not enough stock of product " + productId);
+    }
+
+    /**
+     * Gets the id of the authenticated customer.
+     */
+    private Integer getAuthenticatedCustomerId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        CustomerUserDetails customerUserDetails = (CustomerUserDetails) authentication.getPrincipal();
+        return customerUserDetails.getCustomer().getId();
+    }
+}
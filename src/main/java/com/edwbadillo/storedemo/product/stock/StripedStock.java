@@ -0,0 +1,164 @@
+package com.edwbadillo.storedemo.product.stock;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * Units of a product taken from the database in chunks and held in memory, split in stripes. A
+ * reservation takes its units from a random stripe, refilling it from the database with a whole
+ * chunk when it hasn't enough, so the product row is updated once per chunk instead of once per
+ * reservation, and reservations of the product only wait for the ones using the same stripe.
+ * <p>
+ * When the database has no chunk left only the missing units are taken, and at last the units
+ * left in the other stripes are gathered. If the database hasn't the missing units either, that
+ * is remembered and the next reservations missing as many units don't refill, until units are
+ * given back to the database ({@link #restocked()}) or for {@link #SOLD_OUT_RECHECK_NANOS} at
+ * most, as other nodes may give back units too. Each stripe is guarded by its own monitor, held while it is
+ * refilled.
+ *
+ * @author edwbadillo
+ */
+class StripedStock {
+
+    /**
+     * How long the database is not asked for units after it had none.
+     */
+    static final long SOLD_OUT_RECHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Stripe[] stripes;
+    private final int chunkSize;
+
+    /**
+     * Units the database hadn't, {@link Integer#MAX_VALUE} if it isn't sold out.
+     */
+    private volatile int soldOutUnits = Integer.MAX_VALUE;
+    private volatile long soldOutAtNanos;
+
+    StripedStock(int stripes, int chunkSize) {
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Takes units.
+     *
+     * @param quantity the units
+     * @param refill takes the given units from the database, false if it hasn't them
+     * @param nowNanos the current {@link System#nanoTime()}, when the stripe was last used
+     * @return false if there aren't enough units in the stripes nor in the database
+     */
+    boolean take(int quantity, IntPredicate refill, long nowNanos) {
+        int first = ThreadLocalRandom.current().nextInt(stripes.length);
+        Stripe stripe = stripes[first];
+        int taken;
+        synchronized (stripe) {
+            stripe.lastUsedNanos = nowNanos;
+            if (stripe.available < quantity && !isSoldOut(quantity - stripe.available, nowNanos)) {
+                refill(stripe, quantity, refill, nowNanos);
+            }
+            taken = Math.min(stripe.available, quantity);
+            stripe.available -= taken;
+        }
+
+        // Sold out in the database, the units left in the other stripes may be enough
+        for (int i = 1; i < stripes.length && taken < quantity; i++) {
+            Stripe other = stripes[(first + i) % stripes.length];
+            synchronized (other) {
+                int units = Math.min(other.available, quantity - taken);
+                if (units > 0) {
+                    other.available -= units;
+                    other.lastUsedNanos = nowNanos;
+                    taken += units;
+                }
+            }
+        }
+        if (taken == quantity) return true;
+
+        if (taken > 0) {
+            synchronized (stripe) {
+                stripe.available += taken;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Clears the sold out mark, when units were given back to the database.
+     */
+    void restocked() {
+        soldOutUnits = Integer.MAX_VALUE;
+    }
+
+    private boolean isSoldOut(int missing, long nowNanos) {
+        return missing >= soldOutUnits && nowNanos - soldOutAtNanos < SOLD_OUT_RECHECK_NANOS;
+    }
+
+    /**
+     * Refills a stripe with a chunk, or only the missing units if the database hasn't a chunk.
+     * Called with the monitor of the stripe.
+     */
+    private void refill(Stripe stripe, int quantity, IntPredicate refill, long nowNanos) {
+        int missing = quantity - stripe.available;
+        int wanted = Math.max(chunkSize, missing);
+        if (refill.test(wanted)) {
+            stripe.available += wanted;
+        } else if (missing < wanted && refill.test(missing)) {
+            stripe.available += missing;
+        } else {
+            soldOutAtNanos = nowNanos;
+            soldOutUnits = missing;
+        }
+    }
+
+    /**
+     * Gives back units taken, when the reservation they were taken for failed.
+     */
+    void giveBack(int quantity) {
+        Stripe stripe = stripes[ThreadLocalRandom.current().nextInt(stripes.length)];
+        synchronized (stripe) {
+            stripe.available += quantity;
+        }
+    }
+
+    /**
+     * Removes the units of the stripes not used since the given time, to give them back to the
+     * database.
+     *
+     * @param sinceNanos a {@link System#nanoTime()}, {@link Long#MAX_VALUE} to remove all the units
+     * @return the units removed
+     */
+    int drainUnusedSince(long sinceNanos) {
+        int drained = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (sinceNanos == Long.MAX_VALUE || stripe.lastUsedNanos - sinceNanos < 0) {
+                    drained += stripe.available;
+                    stripe.available = 0;
+                }
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Units held by all the stripes.
+     */
+    int available() {
+        int available = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                available += stripe.available;
+            }
+        }
+        return available;
+    }
+
+    private static final class Stripe {
+        private int available;
+        private long lastUsedNanos;
+    }
+}
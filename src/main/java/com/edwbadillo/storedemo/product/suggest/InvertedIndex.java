@@ -0,0 +1,257 @@
+package com.edwbadillo.storedemo.product.suggest;
+
+import com.edwbadillo.storedemo.product.dto.ProductSuggestion;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index of the product names and descriptions: every term (lower case word without
+ * accents) points to the sorted ids of the products that contain it.
+ * <p>
+ * Terms are kept sorted, so the terms starting with a prefix are a range of the dictionary. The
+ * ids of a term are kept in a growable {@code int[]} (a posting list), without boxing. Name and
+ * description terms are kept apart, products matching by name are suggested first.
+ * <p>
+ * Reads take a shared lock, changes an exclusive one. The name and the description terms of each
+ * product are kept, so replacing or removing a product only touches its own posting lists.
+ *
+ * @author edwbadillo
+ */
+class InvertedIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final NavigableMap<String, Postings> nameTerms = new TreeMap<>();
+    private final NavigableMap<String, Postings> descriptionTerms = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Names of the indexed products by id (ids are dense, they come from a sequence).
+     */
+    private String[] names = new String[1024];
+
+    /**
+     * Description terms of the indexed products by id, the posting lists to update on removal.
+     */
+    private String[][] descriptions = new String[1024][];
+    private int size;
+
+    /**
+     * Adds a product, replacing it if it was already indexed.
+     *
+     * @param id          the id of the product
+     * @param name        the name, returned in the suggestions
+     * @param description the description, may be null
+     */
+    void put(int id, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+
+            if (id >= names.length) {
+                int length = Math.max(id + 1, names.length * 2);
+                names = Arrays.copyOf(names, length);
+                descriptions = Arrays.copyOf(descriptions, length);
+            }
+            List<String> terms = tokenize(description);
+            names[id] = name;
+            descriptions[id] = terms.toArray(String[]::new);
+            size++;
+
+            for (String term : tokenize(name)) {
+                nameTerms.computeIfAbsent(term, t -> new Postings()).add(id);
+            }
+            for (String term : terms) {
+                descriptionTerms.computeIfAbsent(term, t -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product, nothing happens if it isn't indexed.
+     *
+     * @param id the id of the product
+     */
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Suggests products for a text being typed: the last word is a prefix, the previous ones
+     * are complete words. Every word must be in the name or the description of the product.
+     * Products with a name matching the prefix come first, then the ones matching by description,
+     * each group in the order of the matching terms.
+     *
+     * @param text  the text typed
+     * @param limit the maximum number of suggestions
+     * @return the suggestions, empty if the text has no words
+     */
+    List<ProductSuggestion> suggest(String text, int limit) {
+        List<String> words = tokenize(text);
+        if (words.isEmpty() || limit < 1) return List.of();
+
+        String prefix = words.get(words.size() - 1);
+        List<String> complete = words.subList(0, words.size() - 1);
+
+        lock.readLock().lock();
+        try {
+            int[] found = new int[limit];
+            int count = collect(nameTerms, prefix, complete, found, 0);
+            if (count < limit) count = collect(descriptionTerms, prefix, complete, found, count);
+
+            List<ProductSuggestion> suggestions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                suggestions.add(new ProductSuggestion(found[i], names[found[i]]));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of products indexed.
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits a text in distinct terms: lower case, without accents, split on anything
+     * that is not a letter or a digit.
+     *
+     * @param text the text, may be null
+     * @return the terms, in the order of the text
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : SEPARATORS.split(normalized.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty()) terms.add(term);
+        }
+        return new ArrayList<>(terms);
+    }
+
+    private void removeLocked(int id) {
+        if (id >= names.length || names[id] == null) return;
+
+        for (String term : tokenize(names[id])) {
+            removePosting(nameTerms, term, id);
+        }
+        for (String term : descriptions[id]) {
+            removePosting(descriptionTerms, term, id);
+        }
+
+        names[id] = null;
+        descriptions[id] = null;
+        size--;
+    }
+
+    private static void removePosting(NavigableMap<String, Postings> terms, String term, int id) {
+        Postings postings = terms.get(term);
+        if (postings != null && postings.remove(id) && postings.isEmpty()) terms.remove(term);
+    }
+
+    /**
+     * Adds to {@code found} the products with a term starting with the prefix that also have
+     * the complete words, until it is full.
+     *
+     * @return the number of products in {@code found}
+     */
+    private int collect(NavigableMap<String, Postings> terms, String prefix, List<String> complete, int[] found, int count) {
+        for (Postings postings : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            for (int i = 0; i < postings.size; i++) {
+                int id = postings.ids[i];
+                if (contains(found, count, id) || !hasWords(id, complete)) continue;
+
+                found[count++] = id;
+                if (count == found.length) return count;
+            }
+        }
+        return count;
+    }
+
+    private boolean hasWords(int id, List<String> words) {
+        for (String word : words) {
+            Postings name = nameTerms.get(word);
+            Postings description = descriptionTerms.get(word);
+            if ((name == null || !name.contains(id)) && (description == null || !description.contains(id))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] ids, int count, int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sorted ids of the products with a term. Ids usually come in ascending order (the index is
+     * built reading the products by id, new products get higher ids), which just appends.
+     */
+    static class Postings {
+
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0) return;
+                insert(-index - 1, id);
+                return;
+            }
+            insert(size, id);
+        }
+
+        /**
+         * @return whether the id was in the list
+         */
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) return false;
+
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void insert(int index, int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+    }
+}
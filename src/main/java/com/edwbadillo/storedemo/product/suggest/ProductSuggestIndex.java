@@ -0,0 +1,114 @@
+package com.edwbadillo.storedemo.product.suggest;
+
+import com.edwbadillo.storedemo.product.Product;
+import com.edwbadillo.storedemo.product.StreamedIndex;
+import com.edwbadillo.storedemo.product.dto.ProductSuggestion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of the active products, answers the search suggestions without
+ * querying the database.
+ * <p>
+ * The {@link InvertedIndex} is a {@link StreamedIndex} of the active products, built when the
+ * application is ready and kept current by the product service. Products changed in other
+ * nodes appear after the periodic rebuild, before the first build there are no suggestions.
+ * <p>
+ * The number of indexed products is published as the {@code product.suggest.index.size} metric.
+ *
+ * @author edwbadillo
+ */
+@Component
+public class ProductSuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggestIndex.class);
+
+    private static final String SELECT_ACTIVE =
+            "SELECT id, name, description FROM product WHERE is_active = true ORDER BY id";
+
+    private final StreamedIndex<InvertedIndex> index;
+
+    public ProductSuggestIndex(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.index = new StreamedIndex<>(
+                jdbcTemplate,
+                transactionManager,
+                SELECT_ACTIVE,
+                InvertedIndex::new,
+                (target, rs) -> target.put(rs.getInt("id"), rs.getString("name"), rs.getString("description"))
+        );
+
+        Gauge.builder("product.suggest.index.size", this, suggestIndex -> suggestIndex.index.current().size())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(
+            initialDelayString = "${product.suggest.rebuild-minutes}",
+            fixedDelayString = "${product.suggest.rebuild-minutes}",
+            timeUnit = TimeUnit.MINUTES
+    )
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        InvertedIndex newIndex = index.rebuild();
+        if (newIndex != null) {
+            log.info("Indexed {} products for suggestions in {} ms", newIndex.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Suggests active products for a text being typed, see {@link InvertedIndex#suggest(String, int)}.
+     *
+     * @param text  the text typed, the last word is a prefix
+     * @param limit the maximum number of suggestions
+     * @return the suggestions
+     */
+    public List<ProductSuggestion> suggest(String text, int limit) {
+        return index.current().suggest(text, limit);
+    }
+
+    /**
+     * Indexes a product created or updated, inactive products are removed from the index.
+     *
+     * @param product the product saved
+     */
+    public void put(Product product) {
+        int id = product.getId();
+        String name = product.getName();
+        String description = product.getDescription();
+
+        if (product.isActive()) {
+            index.apply(target -> target.put(id, name, description));
+        } else {
+            index.apply(target -> target.remove(id));
+        }
+    }
+
+    /**
+     * Removes a product deleted from the index.
+     *
+     * @param productId the id of the product
+     */
+    public void remove(Integer productId) {
+        int id = productId;
+        index.apply(target -> target.remove(id));
+    }
+}
@@ -2,7 +2,8 @@ CREATE TABLE IF NOT EXISTS product_category (
     id SERIAL PRIMARY KEY,
     name VARCHAR(100) UNIQUE NOT NULL,
     description VARCHAR(150),
-    is_active BOOLEAN NOT NULL DEFAULT true
+    is_active BOOLEAN NOT NULL DEFAULT true,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS product (
@@ -13,9 +14,77 @@ CREATE TABLE IF NOT EXISTS product (
     price NUMERIC NOT NULL,
     quantity INTEGER NOT NULL,
     category_id INTEGER NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    -- Full-text search, the name weighs more than the description
+    search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+    ) STORED,
     CONSTRAINT fk_product_category FOREIGN KEY (category_id) REFERENCES product_category (id) ON DELETE RESTRICT
 );
 
+-- Columns added after the tables were created, CREATE TABLE IF NOT EXISTS skips existing tables
+-- Optimistic locking and ETags
+ALTER TABLE product_category ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE product ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+-- Export of the products changed since a date
+ALTER TABLE product ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
+-- Full-text search, the name weighs more than the description
+ALTER TABLE product ADD COLUMN IF NOT EXISTS search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_product_search_vector ON product USING GIN (search_vector);
+
+-- Keyset pagination of products, one index per sort key with the id breaking the ties
+CREATE INDEX IF NOT EXISTS idx_product_name_id ON product (name, id);
+CREATE INDEX IF NOT EXISTS idx_product_price_id ON product (price, id);
+
+-- Filters of the product listing: category (optionally active) with a price range, active with a
+-- price range, and in stock products of a category
+CREATE INDEX IF NOT EXISTS idx_product_category_active_price ON product (category_id, is_active, price);
+CREATE INDEX IF NOT EXISTS idx_product_active_price ON product (is_active, price);
+CREATE INDEX IF NOT EXISTS idx_product_category_price_in_stock ON product (category_id, price) WHERE quantity > 0;
+
+-- Export of the products changed since a date
+CREATE INDEX IF NOT EXISTS idx_product_updated_at_id ON product (updated_at, id);
+
+-- Name checks of the product import, names are unique ignoring case
+CREATE INDEX IF NOT EXISTS idx_product_lower_name ON product (LOWER(name));
+
+-- Product ids are allocated by Hibernate in blocks of 50 (pooled optimizer), so inserts can be batched
+ALTER SEQUENCE product_id_seq INCREMENT BY 50;
+
+-- Change feed of the products, appended in the transaction of every product change. The seq is
+-- taken from product_change_head, whose row lock orders the writers, so the changes are committed
+-- in seq order and a reader never sees a seq before a smaller one
+CREATE TABLE IF NOT EXISTS product_change (
+    seq BIGINT PRIMARY KEY,
+    product_id INTEGER NOT NULL,
+    operation VARCHAR(10) NOT NULL,
+    changed_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    name VARCHAR(100),
+    description TEXT,
+    is_active BOOLEAN,
+    price DOUBLE PRECISION,
+    quantity INTEGER,
+    category_id INTEGER
+);
+
+-- Compaction: the older changes of a product, and the changes older than a date
+CREATE INDEX IF NOT EXISTS idx_product_change_product_seq ON product_change (product_id, seq);
+CREATE INDEX IF NOT EXISTS idx_product_change_changed_at ON product_change (changed_at);
+
+CREATE TABLE IF NOT EXISTS product_change_head (
+    id INTEGER PRIMARY KEY,
+    last_seq BIGINT NOT NULL,
+    compacted_seq BIGINT NOT NULL
+);
+
+INSERT INTO product_change_head (id, last_seq, compacted_seq) VALUES (1, 0, 0) ON CONFLICT DO NOTHING;
+
 CREATE TABLE IF NOT EXISTS customer (
     id SERIAL PRIMARY KEY,
     dni VARCHAR(20) UNIQUE NOT NULL,
@@ -25,6 +94,31 @@ CREATE TABLE IF NOT EXISTS customer (
     disabled_at TIMESTAMP
 );
 
+CREATE TABLE IF NOT EXISTS refresh_token (
+    id BIGSERIAL PRIMARY KEY,
+    token_hash VARCHAR(64) UNIQUE NOT NULL,
+    customer_id INTEGER NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    CONSTRAINT fk_refresh_token_customer FOREIGN KEY (customer_id) REFERENCES customer (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_token_expires_at ON refresh_token (expires_at);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_customer_id ON refresh_token (customer_id);
+
+-- Stock held for a customer, taken from product.quantity when reserved and given back when the
+-- reservation is released or expires; a confirmed reservation is deleted without giving it back
+CREATE TABLE IF NOT EXISTS stock_reservation (
+    id BIGSERIAL PRIMARY KEY,
+    product_id INTEGER NOT NULL,
+    customer_id INTEGER NOT NULL,
+    quantity INTEGER NOT NULL CHECK (quantity > 0),
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT fk_stock_reservation_product FOREIGN KEY (product_id) REFERENCES product (id) ON DELETE CASCADE,
+    CONSTRAINT fk_stock_reservation_customer FOREIGN KEY (customer_id) REFERENCES customer (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_reservation_expires_at ON stock_reservation (expires_at);
+
 CREATE TABLE IF NOT EXISTS cart_product (
     id SERIAL PRIMARY KEY,
     quantity INTEGER NOT NULL,
@@ -34,6 +128,29 @@ CREATE TABLE IF NOT EXISTS cart_product (
     CONSTRAINT fk_cart_customer FOREIGN KEY (customer_id) REFERENCES customer (id) ON DELETE CASCADE
 );
 
+-- Carts saved before the unique index below could hold a product in several rows, they are merged
+-- into the first row so the index can be created. Both statements find nothing once it exists.
+UPDATE cart_product c SET quantity = d.quantity
+FROM (
+    SELECT MIN(id) AS id, SUM(quantity) AS quantity
+    FROM cart_product
+    GROUP BY customer_id, product_id
+    HAVING COUNT(*) > 1
+) d
+WHERE c.id = d.id;
+DELETE FROM cart_product a USING cart_product b
+WHERE a.customer_id = b.customer_id AND a.product_id = b.product_id AND a.id > b.id;
+
+-- Target of the cart upsert (INSERT ... ON CONFLICT), a product appears once per cart
+CREATE UNIQUE INDEX IF NOT EXISTS uq_cart_product_customer_product ON cart_product (customer_id, product_id);
+
+-- Incremented by every cart change, ETag of the cart
+CREATE TABLE IF NOT EXISTS cart_version (
+    customer_id INTEGER PRIMARY KEY,
+    version BIGINT NOT NULL,
+    CONSTRAINT fk_cart_version_customer FOREIGN KEY (customer_id) REFERENCES customer (id) ON DELETE CASCADE
+);
+
 CREATE TABLE IF NOT EXISTS user_ (
     id SERIAL PRIMARY KEY,
     dni VARCHAR(20) UNIQUE NOT NULL,
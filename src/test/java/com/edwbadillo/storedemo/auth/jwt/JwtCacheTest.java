@@ -0,0 +1,64 @@
+package com.edwbadillo.storedemo.auth.jwt;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private JwtCache jwtCache;
+    private AtomicInteger verifications;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtCache = new JwtCache(2, meterRegistry);
+        verifications = new AtomicInteger();
+    }
+
+    @Test
+    void shouldVerifyTokenOnlyOnce() {
+        JwtDetails details = new JwtDetails(1, JWT.CUSTOMER_ROLE, null, Instant.now().plusSeconds(60));
+
+        JwtDetails first = jwtCache.get("token", token -> verify(details));
+        JwtDetails second = jwtCache.get("token", token -> verify(details));
+
+        assertEquals(details, first);
+        assertEquals(details, second);
+        assertEquals(1, verifications.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void shouldNotCacheInvalidTokens() {
+        assertNull(jwtCache.get("invalid", token -> verify(null)));
+        assertNull(jwtCache.get("invalid", token -> verify(null)));
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void shouldReturnNullWhenTokenIsNull() {
+        assertNull(jwtCache.get(null, token -> verify(null)));
+        assertEquals(0, verifications.get());
+    }
+
+    @Test
+    void shouldNotReturnExpiredTokens() {
+        JwtDetails details = new JwtDetails(1, JWT.CUSTOMER_ROLE, null, Instant.now().minusSeconds(1));
+
+        assertNull(jwtCache.get("expired", token -> verify(details)));
+    }
+
+    private JwtDetails verify(JwtDetails details) {
+        verifications.incrementAndGet();
+        return details;
+    }
+}
@@ -0,0 +1,92 @@
+package com.edwbadillo.storedemo.auth.jwt;
+
+import com.edwbadillo.storedemo.customer.Customer;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of parsing and issuing tokens, comparing the per-call key and parser
+ * construction ({@code legacy*}) with the keys and parser built once by {@link JwtService}.
+ * <p>
+ * Run it from the IDE or with:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.edwbadillo.storedemo.auth.jwt.JwtServiceBenchmark
+ * </pre>
+ *
+ * @author edwbadillo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "YwpC9dwmLNrbkTL9XNTylAq3bh4sDboE/fCKzQclxiV3";
+
+    private JwtService jwtService;
+    private Customer customer;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "keyId", "main");
+        ReflectionTestUtils.setField(jwtService, "previousSecrets", List.of());
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMinutes", 60);
+        jwtService.init();
+
+        customer = new Customer(1, "12345678", "Jon Snow", "j.snow@example.com", "password", null);
+        token = jwtService.getToken(customer).accessToken();
+    }
+
+    @Benchmark
+    public JwtDetails parse() {
+        return jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public Claims legacyParse() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Benchmark
+    public String issue() {
+        return jwtService.getToken(customer).accessToken();
+    }
+
+    @Benchmark
+    public String legacyIssue() {
+        return Jwts.builder()
+                .claim(JWT.ROLE_CLAIM, JWT.CUSTOMER_ROLE)
+                .claim(JWT.TOKEN_TYPE_CLAIM, JWT.ACCESS_TOKEN)
+                .setSubject(String.valueOf(customer.getId()))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 1000L * 60 * 60))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,114 @@
+package com.edwbadillo.storedemo.auth.jwt;
+
+import com.edwbadillo.storedemo.customer.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtServiceTest {
+
+    private static final String OLD_SECRET = "YwpC9dwmLNrbkTL9XNTylAq3bh4sDboE/fCKzQclxiV3";
+    private static final String NEW_SECRET = "R1F3VllTMUkwbTFZSVZHN0lDYVNLVDRjNTB0bEF2bko=";
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer(1, "12345678", "Jon Snow", "j.snow@example.com", "password", null);
+    }
+
+    @Test
+    void shouldParseIssuedToken() {
+        JwtService jwtService = buildService(OLD_SECRET, "v1", List.of());
+
+        String token = jwtService.getToken(customer).accessToken();
+        JwtDetails details = jwtService.parseToken(token);
+
+        assertEquals(customer.getId(), details.subject());
+        assertTrue(details.isCustomer());
+        assertFalse(details.isExpired());
+    }
+
+    @Test
+    void shouldIncludeNameWhenStatelessPrincipal() {
+        JwtService jwtService = buildService(OLD_SECRET, "v1", List.of());
+        String token = jwtService.getToken(customer).accessToken();
+        assertNull(jwtService.parseToken(token).name());
+
+        ReflectionTestUtils.setField(jwtService, "statelessPrincipal", true);
+        token = jwtService.getToken(customer).accessToken();
+        assertEquals(customer.getName(), jwtService.parseToken(token).name());
+    }
+
+    @Test
+    void shouldParseTokenSignedWithPreviousKey() {
+        JwtService oldService = buildService(OLD_SECRET, "v1", List.of());
+        JwtService newService = buildService(NEW_SECRET, "v2", List.of("v1:" + OLD_SECRET));
+
+        String token = oldService.getToken(customer).accessToken();
+        JwtDetails details = newService.parseToken(token);
+
+        assertEquals(customer.getId(), details.subject());
+    }
+
+    @Test
+    void shouldRejectTokenSignedWithUnknownKey() {
+        JwtService oldService = buildService(OLD_SECRET, "v1", List.of());
+        JwtService newService = buildService(NEW_SECRET, "v2", List.of());
+
+        String token = oldService.getToken(customer).accessToken();
+
+        assertNull(newService.parseToken(token));
+    }
+
+    @Test
+    void shouldRejectMalformedTokens() {
+        JwtService jwtService = buildService(OLD_SECRET, "v1", List.of());
+        String token = jwtService.getToken(customer).accessToken();
+
+        assertNull(jwtService.parseToken(""));
+        assertNull(jwtService.parseToken("not-a-token"));
+        assertNull(jwtService.parseToken("a.b.c.d"));
+        assertNull(jwtService.parseToken(token.replace('.', '*')));
+        assertNull(jwtService.parseToken(token + "x"));
+        assertNull(jwtService.parseToken(token.substring(0, token.lastIndexOf('.') + 1)));
+    }
+
+    @Test
+    void shouldRejectExpiredTokens() {
+        JwtService jwtService = buildService(OLD_SECRET, "v1", List.of());
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMinutes", -1);
+
+        String token = jwtService.getToken(customer).accessToken();
+
+        assertNull(jwtService.parseToken(token));
+    }
+
+    @Test
+    void shouldNotMixAccessAndRefreshTokens() {
+        JwtService jwtService = buildService(OLD_SECRET, "v1", List.of());
+
+        String accessToken = jwtService.getToken(customer).accessToken();
+        String refreshToken = jwtService.getRefreshToken(customer);
+
+        assertEquals(customer.getId(), jwtService.parseRefreshToken(refreshToken).subject());
+        assertNull(jwtService.parseToken(refreshToken));
+        assertNull(jwtService.parseRefreshToken(accessToken));
+        assertNotEquals(refreshToken, jwtService.getRefreshToken(customer));
+    }
+
+    private JwtService buildService(String secret, String keyId, List<String> previousSecrets) {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", secret);
+        ReflectionTestUtils.setField(jwtService, "keyId", keyId);
+        ReflectionTestUtils.setField(jwtService, "previousSecrets", previousSecrets);
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMinutes", 60);
+        ReflectionTestUtils.setField(jwtService, "refreshExpirationDays", 30);
+        jwtService.init();
+        return jwtService;
+    }
+}
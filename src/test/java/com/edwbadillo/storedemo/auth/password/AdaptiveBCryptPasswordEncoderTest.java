@@ -0,0 +1,105 @@
+package com.edwbadillo.storedemo.auth.password;
+
+import com.edwbadillo.storedemo.exception.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveBCryptPasswordEncoderTest {
+
+    private AdaptiveBCryptPasswordEncoder encoder;
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldKeepStrengthInRange() {
+        encoder = new AdaptiveBCryptPasswordEncoder(0, 4, 6, 1, 10);
+        assertEquals(4, encoder.getStrength());
+
+        encoder = new AdaptiveBCryptPasswordEncoder(60_000, 4, 6, 1, 10);
+        assertEquals(6, encoder.getStrength());
+    }
+
+    @Test
+    void shouldEncodeAndMatch() {
+        encoder = new AdaptiveBCryptPasswordEncoder(0, 4, 4, 1, 10);
+
+        String hash = encoder.encode("password");
+
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("password", hash));
+        assertFalse(encoder.matches("wrong", hash));
+    }
+
+    @Test
+    void shouldUpgradeOnlyWeakerHashes() {
+        encoder = new AdaptiveBCryptPasswordEncoder(0, 4, 4, 1, 10);
+
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+        // Never downgraded
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password")));
+
+        // Calibrated to 6, another node may have calibrated to 5
+        PasswordEncoder calibrated = new AdaptiveBCryptPasswordEncoder(6, 4, new BCryptPasswordEncoder(6), 1, 10);
+        assertTrue(calibrated.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertFalse(calibrated.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password")));
+
+        // Under the minimum, even if calibrated to it
+        PasswordEncoder minimum = new AdaptiveBCryptPasswordEncoder(5, 5, new BCryptPasswordEncoder(5), 1, 10);
+        assertTrue(minimum.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch hashing = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        PasswordEncoder blocking = new BlockingPasswordEncoder(hashing, finish);
+        encoder = new AdaptiveBCryptPasswordEncoder(4, 4, blocking, 1, 1);
+
+        Future<String> first = executor.submit(() -> encoder.encode("first"));
+        Future<String> second = executor.submit(() -> encoder.encode("second"));
+        // One of them is hashing, the other one waits for it
+        assertTrue(hashing.await(5, TimeUnit.SECONDS));
+        while (encoder.waiting() == 0) Thread.onSpinWait();
+
+        assertThrows(ServiceBusyException.class, () -> encoder.encode("third"));
+
+        finish.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("second", second.get(5, TimeUnit.SECONDS));
+        assertEquals("fourth", encoder.encode("fourth"));
+    }
+
+    /**
+     * Encoder that returns the raw password once allowed to finish.
+     */
+    private record BlockingPasswordEncoder(CountDownLatch hashing, CountDownLatch finish) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hashing.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
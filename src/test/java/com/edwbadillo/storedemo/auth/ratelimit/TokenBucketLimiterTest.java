@@ -0,0 +1,66 @@
+package com.edwbadillo.storedemo.auth.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketLimiterTest {
+
+    private AtomicLong clock;
+    private TokenBucketLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        limiter = new TokenBucketLimiter(3, 60, TimeUnit.SECONDS, 4, 100, clock::get);
+    }
+
+    @Test
+    void shouldRejectWhenBucketIsEmpty() {
+        assertTrue(limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a"));
+        assertFalse(limiter.tryAcquire("a"));
+
+        // Other keys have their own bucket
+        assertTrue(limiter.tryAcquire("b"));
+    }
+
+    @Test
+    void shouldRefillOverTime() {
+        for (int i = 0; i < 3; i++) limiter.tryAcquire("a");
+        assertEquals(20, limiter.secondsUntilAvailable("a"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(20));
+
+        assertEquals(0, limiter.secondsUntilAvailable("a"));
+        assertTrue(limiter.tryAcquire("a"));
+        assertFalse(limiter.tryAcquire("a"));
+    }
+
+    @Test
+    void shouldEvictIdleBuckets() {
+        limiter.tryAcquire("a");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        limiter.tryAcquire("b");
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        limiter.evictIdle();
+
+        assertEquals(1, limiter.size());
+        assertEquals(0, limiter.secondsUntilAvailable("a"));
+    }
+
+    @Test
+    void shouldBoundNumberOfBuckets() {
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("key-" + i);
+        }
+
+        assertTrue(limiter.size() <= 100);
+    }
+}
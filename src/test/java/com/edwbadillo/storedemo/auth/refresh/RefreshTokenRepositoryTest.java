@@ -0,0 +1,48 @@
+package com.edwbadillo.storedemo.auth.refresh;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class RefreshTokenRepositoryTest {
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Test
+    void shouldDeleteTokenOnlyOnce() {
+        refreshTokenRepository.save(new RefreshToken("hash", 1, LocalDateTime.now().plusDays(1)));
+
+        assertEquals(1, refreshTokenRepository.deleteByTokenHash("hash"));
+        assertEquals(0, refreshTokenRepository.deleteByTokenHash("hash"));
+    }
+
+    @Test
+    void shouldDeleteExpiredTokensInBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            refreshTokenRepository.save(new RefreshToken("expired" + i, 1, now.minusMinutes(1)));
+        }
+        refreshTokenRepository.save(new RefreshToken("valid", 1, now.plusDays(1)));
+
+        assertEquals(3, refreshTokenRepository.deleteExpired(now, 3));
+        assertEquals(2, refreshTokenRepository.deleteExpired(now, 3));
+        assertEquals(0, refreshTokenRepository.deleteExpired(now, 3));
+        assertEquals(1, refreshTokenRepository.count());
+    }
+
+    @Test
+    void shouldDeleteTokensOfCustomer() {
+        refreshTokenRepository.save(new RefreshToken("a", 1, LocalDateTime.now().plusDays(1)));
+        refreshTokenRepository.save(new RefreshToken("b", 1, LocalDateTime.now().plusDays(1)));
+        refreshTokenRepository.save(new RefreshToken("c", 2, LocalDateTime.now().plusDays(1)));
+
+        assertEquals(2, refreshTokenRepository.deleteByCustomerId(1));
+        assertEquals(1, refreshTokenRepository.count());
+    }
+}
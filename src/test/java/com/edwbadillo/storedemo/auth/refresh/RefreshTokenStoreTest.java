@@ -0,0 +1,70 @@
+package com.edwbadillo.storedemo.auth.refresh;
+
+import com.edwbadillo.storedemo.customer.CustomerChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class RefreshTokenStoreTest {
+
+    private RefreshTokenRepository refreshTokenRepository;
+    private RefreshTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository = mock(RefreshTokenRepository.class);
+        store = new RefreshTokenStore(refreshTokenRepository, 100, 30, 1000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldStoreHashedToken() {
+        store.save("token", 1);
+
+        verify(refreshTokenRepository).save(argThat(refreshToken ->
+                refreshToken.getTokenHash().length() == 64 && !refreshToken.getTokenHash().equals("token")
+        ));
+    }
+
+    @Test
+    void shouldConsumeTokenOnce() {
+        when(refreshTokenRepository.deleteByTokenHash(anyString())).thenReturn(1);
+        store.save("token", 1);
+
+        assertTrue(store.consume("token", 1));
+        // The replay is rejected by the index, without deleting again
+        assertFalse(store.consume("token", 1));
+        verify(refreshTokenRepository, times(1)).deleteByTokenHash(anyString());
+    }
+
+    @Test
+    void shouldRejectTokenUsedOnAnotherNode() {
+        when(refreshTokenRepository.deleteByTokenHash(anyString())).thenReturn(0);
+
+        assertFalse(store.consume("token", 1));
+    }
+
+    @Test
+    void shouldRevokeTokensOfDisabledCustomers() {
+        when(refreshTokenRepository.deleteByTokenHash(anyString())).thenReturn(1);
+        store.save("token", 1);
+
+        store.onCustomerChanged(new CustomerChangedEvent(1, "j.snow@example.com", true));
+
+        verify(refreshTokenRepository).deleteByCustomerId(1);
+        assertFalse(store.consume("token", 1));
+    }
+
+    @Test
+    void shouldDeleteExpiredTokensUntilNoneIsLeft() {
+        store = new RefreshTokenStore(refreshTokenRepository, 100, 30, 2, new SimpleMeterRegistry());
+        when(refreshTokenRepository.deleteExpired(any(), eq(2))).thenReturn(2, 2, 1);
+
+        store.deleteExpired();
+
+        verify(refreshTokenRepository, times(3)).deleteExpired(any(), eq(2));
+    }
+}
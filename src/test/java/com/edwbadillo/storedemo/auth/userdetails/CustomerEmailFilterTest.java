@@ -0,0 +1,91 @@
+package com.edwbadillo.storedemo.auth.userdetails;
+
+import com.edwbadillo.storedemo.customer.CustomerChangedEvent;
+import com.edwbadillo.storedemo.customer.CustomerRepository;
+import com.edwbadillo.storedemo.product.cache.LocalProductCacheBroadcast;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CustomerEmailFilterTest {
+
+    private CustomerRepository customerRepository;
+    private MeterRegistry meterRegistry;
+    private LocalProductCacheBroadcast broadcast;
+    private CustomerEmailFilter emailFilter;
+
+    @BeforeEach
+    void setUp() {
+        customerRepository = mock(CustomerRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        broadcast = new LocalProductCacheBroadcast();
+        emailFilter = new CustomerEmailFilter(customerRepository, broadcast, 0.01, meterRegistry);
+    }
+
+    @Test
+    void shouldAcceptEverythingBeforeBuilt() {
+        assertTrue(emailFilter.mightExist("unknown@example.com"));
+    }
+
+    @Test
+    void shouldRejectUnknownEmails() {
+        when(customerRepository.findAllEmails()).thenReturn(List.of("j.snow@example.com", "a.stark@example.com"));
+        emailFilter.rebuild();
+
+        assertTrue(emailFilter.mightExist("j.snow@example.com"));
+        assertTrue(emailFilter.mightExist("A.Stark@example.com"));
+
+        int rejected = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (!emailFilter.mightExist("unknown" + i + "@example.com")) rejected++;
+        }
+        assertTrue(rejected > 950);
+        assertEquals(rejected, meterRegistry.counter("auth.email-filter.saved-lookups").count());
+    }
+
+    @Test
+    void shouldAddRegisteredEmails() {
+        when(customerRepository.findAllEmails()).thenReturn(List.of());
+        emailFilter.rebuild();
+        assertFalse(emailFilter.mightExist("new@example.com"));
+
+        emailFilter.onCustomerChanged(new CustomerChangedEvent(1, "new@example.com", false));
+
+        assertTrue(emailFilter.mightExist("new@example.com"));
+    }
+
+    @Test
+    void shouldAddEmailsChangedInOtherNodes() {
+        // Two filters sharing the local broadcast stand in for two nodes
+        CustomerEmailFilter otherNode = new CustomerEmailFilter(customerRepository, broadcast, 0.01, new SimpleMeterRegistry());
+        when(customerRepository.findAllEmails()).thenReturn(List.of());
+        emailFilter.rebuild();
+        otherNode.rebuild();
+        when(customerRepository.findEmailById(1)).thenReturn(Optional.of("new@example.com"));
+
+        otherNode.onCustomerChanged(new CustomerChangedEvent(1, "new@example.com", false));
+
+        assertTrue(emailFilter.mightExist("new@example.com"));
+        verify(customerRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void shouldKeepEmailsAddedDuringRebuild() {
+        when(customerRepository.findAllEmails()).thenAnswer(invocation -> {
+            emailFilter.onCustomerChanged(new CustomerChangedEvent(1, "new@example.com", false));
+            return List.of("j.snow@example.com");
+        });
+
+        emailFilter.rebuild();
+
+        assertTrue(emailFilter.mightExist("new@example.com"));
+        assertTrue(emailFilter.mightExist("j.snow@example.com"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.edwbadillo.storedemo.auth.userdetails;
+
+import com.edwbadillo.storedemo.customer.Customer;
+import com.edwbadillo.storedemo.customer.CustomerChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerPrincipalCacheTest {
+
+    private CustomerPrincipalCache cache;
+    private Customer customer;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CustomerPrincipalCache(100, 30, new SimpleMeterRegistry());
+        customer = new Customer(1, "12345678", "Jon Snow", "j.snow@example.com", "password", null);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void shouldLoadCustomerOnlyOnce() {
+        cache.get(customer.getId(), this::load);
+        Optional<CustomerUserDetails> result = cache.get(customer.getId(), this::load);
+
+        assertTrue(result.isPresent());
+        assertEquals(customer, result.get().getCustomer());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheMissingCustomers() {
+        assertTrue(cache.get(2, id -> Optional.empty()).isEmpty());
+        assertTrue(cache.get(2, this::load).isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldReloadCustomerWhenChanged() {
+        cache.get(customer.getId(), this::load);
+
+        customer = new Customer(1, "12345678", "Jon Snow", "j.snow@example.com", "password", LocalDateTime.now());
+        cache.onCustomerChanged(new CustomerChangedEvent(customer));
+        Optional<CustomerUserDetails> result = cache.get(customer.getId(), this::load);
+
+        assertTrue(result.isPresent());
+        assertFalse(result.get().isEnabled());
+        assertEquals(2, loads.get());
+    }
+
+    private Optional<Customer> load(Integer id) {
+        loads.incrementAndGet();
+        return id.equals(customer.getId()) ? Optional.of(customer) : Optional.empty();
+    }
+}
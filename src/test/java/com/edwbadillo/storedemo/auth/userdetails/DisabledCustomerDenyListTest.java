@@ -0,0 +1,48 @@
+package com.edwbadillo.storedemo.auth.userdetails;
+
+import com.edwbadillo.storedemo.customer.CustomerChangedEvent;
+import com.edwbadillo.storedemo.customer.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DisabledCustomerDenyListTest {
+
+    private CustomerRepository customerRepository;
+    private DisabledCustomerDenyList denyList;
+
+    @BeforeEach
+    void setUp() {
+        customerRepository = mock(CustomerRepository.class);
+        denyList = new DisabledCustomerDenyList();
+        ReflectionTestUtils.setField(denyList, "customerRepository", customerRepository);
+    }
+
+    @Test
+    void shouldLoadDisabledCustomers() {
+        when(customerRepository.findDisabledIds()).thenReturn(List.of(2, 5));
+        denyList.reload();
+
+        assertTrue(denyList.isDisabled(2));
+        assertTrue(denyList.isDisabled(5));
+        assertFalse(denyList.isDisabled(1));
+    }
+
+    @Test
+    void shouldFollowCustomerChanges() {
+        when(customerRepository.findDisabledIds()).thenReturn(List.of());
+        denyList.reload();
+
+        denyList.onCustomerChanged(new CustomerChangedEvent(3, "c@example.com", true));
+        assertTrue(denyList.isDisabled(3));
+
+        denyList.onCustomerChanged(new CustomerChangedEvent(3, "c@example.com", false));
+        assertFalse(denyList.isDisabled(3));
+    }
+}
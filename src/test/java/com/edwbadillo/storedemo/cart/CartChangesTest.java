@@ -0,0 +1,45 @@
+package com.edwbadillo.storedemo.cart;
+
+import com.edwbadillo.storedemo.cart.dto.CartChange;
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+import com.edwbadillo.storedemo.product.dto.ProductInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CartChangesTest {
+
+    @Test
+    void shouldMergeChangesByProduct() {
+        Map<Integer, Integer> quantities = CartChanges.merge(List.of(
+                new CartChange(1, 2),
+                new CartChange(2, 1),
+                new CartChange(1, 3),
+                new CartChange(2, -1)
+        ));
+
+        assertEquals(Map.of(1, 5), quantities);
+    }
+
+    @Test
+    void shouldRejectMissingProducts() {
+        InvalidDataException exception = assertThrows(
+                InvalidDataException.class,
+                () -> CartChanges.validate(Map.of(1, 1, 2, 1), List.of(new ProductInfo(1, "Product 1", true, 10, 5)))
+        );
+
+        assertEquals("not_found", exception.getType());
+        assertEquals(List.of(2), exception.getValue());
+    }
+
+    @Test
+    void shouldRejectAddingInactiveProducts() {
+        List<ProductInfo> products = List.of(new ProductInfo(1, "Product 1", false, 10, 5));
+
+        assertThrows(InvalidDataException.class, () -> CartChanges.validate(Map.of(1, 1), products));
+        assertDoesNotThrow(() -> CartChanges.validate(Map.of(1, -1), products));
+    }
+}
@@ -0,0 +1,145 @@
+package com.edwbadillo.storedemo.cart;
+
+import com.edwbadillo.storedemo.cart.dto.CartLine;
+import com.edwbadillo.storedemo.customer.Customer;
+import com.edwbadillo.storedemo.product.Product;
+import com.edwbadillo.storedemo.product.category.Category;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class CartProductRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CartProductRepository cartProductRepository;
+
+    private Customer customer;
+    private Product product;
+    private Product inactiveProduct;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setName("category1");
+        em.persist(category);
+
+        product = new Product("Product1", "Description", category);
+        product.setPrice(19.9);
+        product.setQuantity(5);
+        em.persist(product);
+
+        inactiveProduct = new Product("Product2", "Description", category);
+        inactiveProduct.setActive(false);
+        em.persist(inactiveProduct);
+
+        customer = new Customer();
+        customer.setName("Jon Snow");
+        customer.setDni("12345678");
+        customer.setEmail("j.snow@example.com");
+        customer.setPassword("encryptedpassword");
+        em.persist(customer);
+        em.flush();
+    }
+
+    @Test
+    void shouldInsertThenUpdateCartItem() {
+        assertEquals(1, cartProductRepository.upsert(customer.getId(), product.getId(), 2));
+        assertEquals(1, cartProductRepository.upsert(customer.getId(), product.getId(), 7));
+
+        List<CartLine> cart = cartProductRepository.findCartLines(customer.getId());
+        assertEquals(1, cart.size());
+        assertEquals(7, cart.get(0).quantity());
+        assertEquals(product.getName(), cart.get(0).productName());
+        assertEquals(product.getPrice(), cart.get(0).productPrice());
+        assertEquals(product.getQuantity(), cart.get(0).productStock());
+    }
+
+    @Test
+    void shouldChangeVersionTagWhenCartOrProductsChange() {
+        assertEquals("0.0.0", cartProductRepository.findVersionTag(customer.getId()));
+
+        cartProductRepository.upsert(customer.getId(), product.getId(), 2);
+        cartProductRepository.incrementVersion(customer.getId());
+        cartProductRepository.incrementVersion(customer.getId());
+        assertEquals("2.1.0", cartProductRepository.findVersionTag(customer.getId()));
+
+        product.setPrice(29.9);
+        em.flush();
+        assertEquals("2.1.1", cartProductRepository.findVersionTag(customer.getId()));
+
+        // Like a product deleted (cascade), the cart version doesn't change but the tag doesn't go back
+        cartProductRepository.deleteByCustomerIdAndProductId(customer.getId(), product.getId());
+        em.flush();
+        assertEquals("2.0.0", cartProductRepository.findVersionTag(customer.getId()));
+    }
+
+    @Test
+    void shouldNotInsertInactiveOrMissingProducts() {
+        assertEquals(0, cartProductRepository.upsert(customer.getId(), inactiveProduct.getId(), 2));
+        assertEquals(0, cartProductRepository.upsert(customer.getId(), -1, 2));
+
+        assertTrue(cartProductRepository.findCartLines(customer.getId()).isEmpty());
+    }
+
+    @Test
+    void shouldAddQuantitiesInBatch() {
+        cartProductRepository.upsert(customer.getId(), product.getId(), 2);
+
+        cartProductRepository.addQuantities(customer.getId(), Map.of(product.getId(), 3, inactiveProduct.getId(), 1));
+        assertEquals(2, cartProductRepository.findCartLines(customer.getId()).size());
+
+        cartProductRepository.addQuantities(customer.getId(), Map.of(product.getId(), -5, inactiveProduct.getId(), 1));
+        assertEquals(1, cartProductRepository.deleteEmpty(customer.getId()));
+
+        List<CartLine> cart = cartProductRepository.findCartLines(customer.getId());
+        assertEquals(1, cart.size());
+        assertEquals(inactiveProduct.getId(), cart.get(0).productId());
+        assertEquals(2, cart.get(0).quantity());
+    }
+
+    @Test
+    void shouldReadCartWithOneStatementWhateverItsSize() {
+        assertEquals(1, countStatementsReadingCart(1));
+        assertEquals(1, countStatementsReadingCart(200));
+    }
+
+    private long countStatementsReadingCart(int lines) {
+        // Each line in its own category, so loading entities would be one query per line
+        for (int i = 0; i < lines; i++) {
+            Category lineCategory = new Category();
+            lineCategory.setName("category-" + lines + "-" + i);
+            em.persist(lineCategory);
+
+            Product lineProduct = new Product("Product-" + lines + "-" + i, "Description", lineCategory);
+            em.persist(lineProduct);
+            em.persist(new CartProduct(customer, lineProduct, 1));
+        }
+        em.flush();
+        em.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<CartLine> cart = cartProductRepository.findCartLines(customer.getId());
+        long statements = statistics.getPrepareStatementCount();
+
+        assertTrue(cart.size() >= lines);
+        return statements;
+    }
+}
@@ -0,0 +1,129 @@
+package com.edwbadillo.storedemo.cart;
+
+import com.edwbadillo.storedemo.cart.dto.CartLine;
+import com.edwbadillo.storedemo.cart.dto.CartSummary;
+import com.edwbadillo.storedemo.product.ProductRepository;
+import com.edwbadillo.storedemo.product.cache.LocalProductCacheBroadcast;
+import com.edwbadillo.storedemo.product.cache.ProductCacheInvalidation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CartSummaryCacheTest {
+
+    private ProductRepository productRepository;
+    private LocalProductCacheBroadcast broadcast;
+    private CartSummaryCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        broadcast = new LocalProductCacheBroadcast();
+        cache = new CartSummaryCache(100, 600, productRepository, broadcast, new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void shouldLoadSummaryOnlyOnce() {
+        cache.get(1, this::load);
+        CartSummary summary = cache.get(1, this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(5, summary.itemCount());
+        assertEquals(0, new BigDecimal("0.7").compareTo(summary.subtotal()));
+    }
+
+    @Test
+    void shouldReplaceSummaryWhenCartChanges() {
+        cache.get(1, this::load);
+
+        cache.put(1, List.of(line(10, 0.1, 1)));
+
+        CartSummary summary = cache.get(1, this::load);
+        assertEquals(1, loads.get());
+        assertEquals(1, summary.itemCount());
+        assertEquals(0, new BigDecimal("0.1").compareTo(summary.subtotal()));
+    }
+
+    @Test
+    void shouldReplaceSummaryWhenChangeIsCommitted() {
+        cache.get(1, this::load);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.put(1, List.of(line(10, 0.1, 1)));
+            // Not committed yet, the other requests read the cart
+            assertEquals(5, cache.get(1, this::load).itemCount());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, cache.get(1, this::load).itemCount());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldDropSummaryInOtherNodesWhenCartChanges() {
+        // Two caches sharing the local broadcast stand in for two nodes
+        CartSummaryCache otherNode = new CartSummaryCache(100, 600, productRepository, broadcast, new SimpleMeterRegistry());
+        otherNode.get(1, this::load);
+
+        cache.put(1, List.of(line(10, 0.1, 1)));
+
+        otherNode.get(1, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldReconcileSubtotalWhenPriceChanges() {
+        cache.get(1, this::load);
+
+        when(productRepository.findPriceById(10)).thenReturn(Optional.of(0.3));
+
+        broadcast.publish(ProductCacheInvalidation.product(10));
+        broadcast.publish(ProductCacheInvalidation.product(99));
+
+        CartSummary summary = cache.get(1, this::load);
+        assertEquals(1, loads.get());
+        assertEquals(5, summary.itemCount());
+        assertEquals(0, new BigDecimal("1.3").compareTo(summary.subtotal()));
+        // Not in any cached cart
+        verify(productRepository, never()).findPriceById(99);
+    }
+
+    @Test
+    void shouldDropSummaryWhenProductIsDeleted() {
+        cache.get(1, this::load);
+        cache.get(2, customerId -> List.of(line(12, 1, 1)));
+        when(productRepository.findPriceById(10)).thenReturn(Optional.empty());
+
+        broadcast.publish(ProductCacheInvalidation.product(10));
+
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    private List<CartLine> load(Integer customerId) {
+        loads.incrementAndGet();
+        // 3 x 0.1 + 2 x 0.2, which is not 0.7 with doubles
+        return List.of(line(10, 0.1, 3), line(11, 0.2, 2));
+    }
+
+    private static CartLine line(int productId, double price, int quantity) {
+        return new CartLine(quantity, productId, "Product " + productId, true, price, 10);
+    }
+}
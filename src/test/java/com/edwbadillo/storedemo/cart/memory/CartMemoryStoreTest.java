@@ -0,0 +1,168 @@
+package com.edwbadillo.storedemo.cart.memory;
+
+import com.edwbadillo.storedemo.cart.CartProductRepository;
+import com.edwbadillo.storedemo.cart.dto.CartLine;
+import com.edwbadillo.storedemo.customer.Customer;
+import com.edwbadillo.storedemo.exception.ServiceBusyException;
+import com.edwbadillo.storedemo.product.Product;
+import com.edwbadillo.storedemo.product.category.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class CartMemoryStoreTest {
+
+    @TempDir
+    Path walDirectory;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private CartProductRepository cartProductRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Customer customer;
+    private Product product1;
+    private Product product2;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setName("category1");
+        em.persist(category);
+
+        product1 = new Product("Product1", "Description", category);
+        em.persist(product1);
+        product2 = new Product("Product2", "Description", category);
+        em.persist(product2);
+
+        customer = new Customer();
+        customer.setName("Jon Snow");
+        customer.setDni("12345678");
+        customer.setEmail("j.snow@example.com");
+        customer.setPassword("encryptedpassword");
+        em.persist(customer);
+        em.flush();
+    }
+
+    @Test
+    void shouldWriteCartsOnlyWhenFlushed() throws Exception {
+        CartMemoryStore store = buildStore();
+
+        store.setQuantities(customer.getId(), Map.of(product1.getId(), 2));
+        store.setQuantities(customer.getId(), Map.of(product2.getId(), 1));
+        store.setQuantities(customer.getId(), Map.of(product2.getId(), 0));
+
+        assertEquals(Map.of(product1.getId(), 2), store.getLines(customer.getId()));
+        assertTrue(cartProductRepository.findCartLines(customer.getId()).isEmpty());
+
+        store.flush();
+
+        List<CartLine> lines = cartProductRepository.findCartLines(customer.getId());
+        assertEquals(1, lines.size());
+        assertEquals(product1.getId(), lines.get(0).productId());
+        assertEquals(2, lines.get(0).quantity());
+        store.close();
+    }
+
+    @Test
+    void shouldAddQuantities() throws Exception {
+        CartMemoryStore store = buildStore();
+        store.setQuantities(customer.getId(), Map.of(product1.getId(), 2));
+
+        store.addQuantities(customer.getId(), Map.of(product1.getId(), -3, product2.getId(), 4));
+
+        assertEquals(Map.of(product2.getId(), 4), store.getLines(customer.getId()));
+        store.close();
+    }
+
+    @Test
+    void shouldReplayChangesNotFlushed() throws Exception {
+        CartMemoryStore crashed = buildStore();
+        crashed.setQuantities(customer.getId(), Map.of(product1.getId(), 3));
+        // No flush nor close, as if the process crashed
+
+        CartMemoryStore restarted = buildStore();
+
+        assertEquals(3, cartProductRepository.findCartLines(customer.getId()).get(0).quantity());
+        assertEquals(Map.of(product1.getId(), 3), restarted.getLines(customer.getId()));
+        restarted.close();
+    }
+
+    @Test
+    void shouldLoadCartsFromDatabase() throws Exception {
+        cartProductRepository.upsert(customer.getId(), product2.getId(), 4);
+
+        CartMemoryStore store = buildStore();
+
+        assertEquals(Map.of(product2.getId(), 4), store.getLines(customer.getId()));
+        store.close();
+    }
+
+    @Test
+    void shouldEvictIdleCartsAfterFlush() throws Exception {
+        CartMemoryStore store = buildStore(0);
+        store.setQuantities(customer.getId(), Map.of(product1.getId(), 1));
+        assertEquals(1, store.size());
+
+        store.flush();
+
+        assertEquals(0, store.size());
+        assertEquals(Map.of(product1.getId(), 1), store.getLines(customer.getId()));
+        store.close();
+    }
+
+    @Test
+    void shouldRejectChangesWhenLogIsFullAndDatabaseFails() throws Exception {
+        // Every write fails, as if the database were down
+        TransactionTemplate failing = new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                throw new IllegalStateException("Database down");
+            }
+        };
+        CartMemoryStore store = new CartMemoryStore(
+                cartProductRepository, jdbcTemplate, failing,
+                4, walDirectory.toString(), 10, 30, 100
+        );
+        store.init();
+        store.setQuantities(customer.getId(), Map.of(product1.getId(), 1));
+        store.setQuantities(customer.getId(), Map.of(product1.getId(), 2));
+
+        assertThrows(ServiceBusyException.class, () -> store.setQuantities(customer.getId(), Map.of(product1.getId(), 3)));
+        assertThrows(ServiceBusyException.class, () -> store.addQuantities(customer.getId(), Map.of(product1.getId(), 1)));
+        assertEquals(Map.of(product1.getId(), 2), store.getLines(customer.getId()));
+    }
+
+    private CartMemoryStore buildStore() {
+        return buildStore(30);
+    }
+
+    private CartMemoryStore buildStore(long idleMinutes) {
+        CartMemoryStore store = new CartMemoryStore(
+                cartProductRepository, jdbcTemplate, transactionTemplate,
+                4, walDirectory.toString(), 1024 * 1024, idleMinutes, 100
+        );
+        store.init();
+        return store;
+    }
+}
@@ -0,0 +1,74 @@
+package com.edwbadillo.storedemo.cart.memory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CartWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayEntriesOfPreviousRun() throws Exception {
+        CartWriteAheadLog wal = new CartWriteAheadLog(directory);
+        wal.append(1, 10, 2);
+        wal.append(1, 11, 0);
+        wal.close();
+
+        CartWriteAheadLog reopened = new CartWriteAheadLog(directory);
+
+        assertEquals(
+                List.of(new CartWriteAheadLog.Entry(1, 10, 2), new CartWriteAheadLog.Entry(1, 11, 0)),
+                reopened.readAll()
+        );
+        reopened.close();
+    }
+
+    @Test
+    void shouldDeleteFlushedSegments() throws Exception {
+        CartWriteAheadLog wal = new CartWriteAheadLog(directory);
+        wal.append(1, 10, 2);
+        long flushed = wal.rotate();
+        wal.append(2, 20, 1);
+
+        wal.deleteUpTo(flushed);
+        wal.close();
+
+        CartWriteAheadLog reopened = new CartWriteAheadLog(directory);
+        assertEquals(List.of(new CartWriteAheadLog.Entry(2, 20, 1)), reopened.readAll());
+        reopened.close();
+    }
+
+    @Test
+    void shouldCountSegmentsNotDeleted() throws Exception {
+        CartWriteAheadLog wal = new CartWriteAheadLog(directory);
+        wal.append(1, 10, 2);
+        long flushed = wal.rotate();
+        wal.append(2, 20, 1);
+
+        assertEquals(14, wal.size());
+        wal.deleteUpTo(flushed);
+        assertEquals(7, wal.size());
+        wal.close();
+
+        CartWriteAheadLog reopened = new CartWriteAheadLog(directory);
+        assertEquals(7, reopened.size());
+        reopened.close();
+    }
+
+    @Test
+    void shouldIgnoreIncompleteLastLine() throws Exception {
+        Files.writeString(directory.resolve("cart-wal-1.log"), "1,10,2\n1,1");
+
+        CartWriteAheadLog wal = new CartWriteAheadLog(directory);
+
+        assertEquals(List.of(new CartWriteAheadLog.Entry(1, 10, 2)), wal.readAll());
+        wal.close();
+    }
+}
@@ -0,0 +1,28 @@
+package com.edwbadillo.storedemo.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+public class RowCountEstimatorTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldCacheCountWithoutDatabaseEstimate() {
+        RowCountEstimator estimator = new RowCountEstimator(jdbcTemplate, 60);
+        AtomicInteger counts = new AtomicInteger();
+
+        assertEquals(42, estimator.estimate("product", () -> counts.incrementAndGet() * 42L));
+        assertEquals(42, estimator.estimate("product", () -> counts.incrementAndGet() * 42L));
+
+        assertEquals(1, counts.get());
+    }
+}
@@ -0,0 +1,41 @@
+package com.edwbadillo.storedemo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PublicRoutesTest {
+
+    @Test
+    void shouldMatchPublicRoutes() {
+        assertTrue(matches("GET", "/api/products"));
+        assertTrue(matches("GET", "/api/products/1"));
+        assertTrue(matches("GET", "/api/products/search"));
+        assertTrue(matches("GET", "/api/products/suggest"));
+        assertTrue(matches("GET", "/api/products/facets"));
+        assertTrue(matches("POST", "/api/auth/customers/login"));
+        assertTrue(matches("POST", "/api/auth/refresh"));
+        assertTrue(matches("GET", "/swagger-ui/index.html"));
+        assertTrue(matches("GET", "/v3/api-docs/swagger-config"));
+    }
+
+    @Test
+    void shouldNotMatchProtectedRoutes() {
+        assertFalse(matches("GET", "/api/products/categories"));
+        assertFalse(matches("POST", "/api/products"));
+        assertFalse(matches("PUT", "/api/products/1"));
+        assertFalse(matches("GET", "/api/products/export"));
+        assertFalse(matches("GET", "/api/products/changes"));
+        assertFalse(matches("GET", "/api/products/1/reservations"));
+        assertFalse(matches("GET", "/api/cart"));
+        assertFalse(matches("GET", "/api/auth"));
+    }
+
+    private boolean matches(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        return PublicRoutes.MATCHER.matches(request);
+    }
+}
@@ -1,6 +1,7 @@
 package com.edwbadillo.storedemo.customer;
 
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
 import com.edwbadillo.storedemo.customer.dto.*;
 import com.edwbadillo.storedemo.customer.exception.CustomerNotFoundException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -35,7 +36,7 @@ public class CustomerControllerTest {
     void shouldPaginateCustomers() throws Exception {
         CustomerInfo customer = new CustomerInfo(1, "Customer", "wZvZD@example.com", null);
 
-        when(customerService.paginate(any(Pageable.class))).thenReturn(new PageDTO<>(
+        when(customerService.paginate(any(Pageable.class), eq(PageTotals.EXACT))).thenReturn(new PageDTO<>(
                 List.of(customer),
                 1,
                 1,
@@ -1,11 +1,15 @@
 package com.edwbadillo.storedemo.product;
 
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
 import com.edwbadillo.storedemo.product.category.dto.CategoryInfo;
 import com.edwbadillo.storedemo.product.dto.ProductDetails;
 import com.edwbadillo.storedemo.product.dto.ProductInfo;
 import com.edwbadillo.storedemo.product.dto.ProductRegister;
 import com.edwbadillo.storedemo.product.exception.ProductNotFoundException;
+import com.edwbadillo.storedemo.product.export.ProductExportService;
+import com.edwbadillo.storedemo.product.importer.ProductImportService;
+import com.edwbadillo.storedemo.product.stock.StockService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,11 +37,20 @@ public class ProductControllerTest {
     @MockBean
     private ProductService employeeService;
 
+    @MockBean
+    private ProductImportService productImportService;
+
+    @MockBean
+    private ProductExportService productExportService;
+
+    @MockBean
+    private StockService stockService;
+
     @Test
     void shouldPaginateProducts() throws Exception {
         ProductInfo product = new ProductInfo(1, "Product", true, 1.0, 1);
 
-        when(employeeService.paginate(any(Pageable.class))).thenReturn(new PageDTO<>(
+        when(employeeService.paginate(any(Pageable.class), eq(PageTotals.EXACT), eq(ProductFilter.NONE))).thenReturn(new PageDTO<>(
                 List.of(product),
                 1,
                 1,
@@ -0,0 +1,26 @@
+package com.edwbadillo.storedemo.product;
+
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+import com.edwbadillo.storedemo.product.dto.ProductInfo;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCursorTest {
+
+    @Test
+    void shouldDecodeEncodedCursor() {
+        ProductInfo product = new ProductInfo(7, "Name: with separator", true, 19.9, 5);
+
+        for (ProductSort sort : ProductSort.values()) {
+            ProductCursor cursor = ProductCursor.first(sort, true).after(product);
+            assertEquals(cursor, ProductCursor.decode(cursor.encode()));
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() {
+        assertThrows(InvalidDataException.class, () -> ProductCursor.decode("not a cursor"));
+        assertThrows(InvalidDataException.class, () -> ProductCursor.decode("cHJpY2U6YXNjOng6MQ"));
+    }
+}
@@ -1,13 +1,18 @@
 package com.edwbadillo.storedemo.product;
 
 import com.edwbadillo.storedemo.product.category.Category;
+import com.edwbadillo.storedemo.product.dto.ProductInfo;
+import com.edwbadillo.storedemo.product.dto.ProductSearchHit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -56,9 +61,116 @@ public class ProductRepositoryTest {
         assertEquals(15, pageResult.getTotalElements());
     }
 
+    @Test
+    void shouldFindSliceOfFilteredProducts() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Product product = new Product("Product" + i, "Description", category);
+            product.setPrice(10 * i);
+            product.setQuantity(i % 2);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+
+        // Prices 20 to 70 in stock: 30, 50
+        ProductFilter filter = new ProductFilter(category.getId(), 20.0, 70.0, true, true);
+        Slice<Product> first = productRepository.findSlice(
+                filter.toSpecification(), PageRequest.of(0, 1, Sort.by("price").descending())
+        );
+        Slice<Product> second = productRepository.findSlice(
+                filter.toSpecification(), PageRequest.of(1, 1, Sort.by("price").descending())
+        );
+
+        assertEquals(50, first.getContent().get(0).getPrice());
+        assertTrue(first.hasNext());
+        assertEquals(30, second.getContent().get(0).getPrice());
+        assertFalse(second.hasNext());
+        assertEquals(2, productRepository.count(filter.toSpecification()));
+    }
+
+    @Test
+    void shouldSeekAllProductsWithTiesOnSortKey() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            Product product = new Product("Product" + i, "Description", category);
+            // Only 3 different prices, the id breaks the ties
+            product.setPrice(10 + i % 3);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+
+        List<ProductInfo> seen = new ArrayList<>();
+        ProductCursor cursor = ProductCursor.first(ProductSort.PRICE, true);
+        List<ProductInfo> page;
+        do {
+            page = productRepository.findAfter(cursor, 4);
+            seen.addAll(page);
+            if (!page.isEmpty()) cursor = ProductCursor.decode(cursor.after(page.get(page.size() - 1)).encode());
+        } while (page.size() == 4);
+
+        assertEquals(15, seen.size());
+        for (int i = 1; i < seen.size(); i++) {
+            ProductInfo previous = seen.get(i - 1);
+            ProductInfo current = seen.get(i);
+            assertTrue(previous.price() > current.price()
+                    || previous.price() == current.price() && previous.id() > current.id());
+        }
+    }
+
+    @Test
+    void shouldSeekProductsByName() {
+        for (String name : List.of("b", "a", "c")) {
+            productRepository.save(new Product(name, "Description", category));
+        }
+
+        ProductCursor first = ProductCursor.first(ProductSort.NAME, false);
+        List<ProductInfo> page = productRepository.findAfter(first, 2);
+        assertEquals(List.of("a", "b"), page.stream().map(ProductInfo::name).toList());
+
+        List<ProductInfo> next = productRepository.findAfter(first.after(page.get(1)), 2);
+        assertEquals(List.of("c"), next.stream().map(ProductInfo::name).toList());
+    }
+
+    @Test
+    void shouldSearchRankingNameMatchesFirst() {
+        Product inDescription = new Product("Mug", "A blue ceramic cup", category);
+        Product inName = new Product("Blue cup", "Ceramic", category);
+        Product inactive = new Product("Blue cup XL", "Ceramic", category);
+        inactive.setActive(false);
+        Product other = new Product("Red plate", "Ceramic", category);
+        productRepository.saveAllAndFlush(List.of(inDescription, inName, inactive, other));
+
+        List<ProductSearchHit> hits = productRepository.search("BLUE cup", null, true, null, 10);
+
+        assertEquals(List.of(inName.getId(), inDescription.getId()), hits.stream().map(hit -> hit.product().id()).toList());
+        assertTrue(hits.get(0).rank() > hits.get(1).rank());
+        assertTrue(productRepository.search("blue", category.getId() + 1, null, null, 10).isEmpty());
+        assertTrue(productRepository.search("100%", null, null, null, 10).isEmpty());
+    }
+
+    @Test
+    void shouldSearchAfterCursor() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            products.add(new Product("Lamp " + i, "Description", category));
+        }
+        productRepository.saveAllAndFlush(products);
+
+        List<ProductSearchHit> first = productRepository.search("lamp", null, null, null, 3);
+        ProductSearchHit last = first.get(2);
+        List<ProductSearchHit> next = productRepository.search(
+                "lamp", null, null, new SearchCursor(last.rank(), last.product().id()), 3
+        );
+
+        assertEquals(3, first.size());
+        assertEquals(2, next.size());
+        assertTrue(next.get(0).product().id() < last.product().id());
+    }
+
     @Test
     void shouldProductSavedThenFoundById() {
-        productRepository.save(product);
+        // With a sequence id the insert waits for the flush, it would be lost when detached
+        productRepository.saveAndFlush(product);
         em.detach(product);
 
         Optional<Product> result = productRepository.findById(product.getId());
@@ -91,6 +203,22 @@ public class ProductRepositoryTest {
         assertEquals(10, updatedProduct.getQuantity());
     }
 
+    @Test
+    void shouldChangeVersionTagWhenProductOrCategoryUpdated() {
+        productRepository.saveAndFlush(product);
+        assertEquals(Optional.of("0.0"), productRepository.findVersionTagById(product.getId()));
+
+        product.setPrice(29.9);
+        productRepository.flush();
+        assertEquals(Optional.of("1.0"), productRepository.findVersionTagById(product.getId()));
+
+        category.setName("category updated");
+        em.flush();
+        assertEquals(Optional.of("1.1"), productRepository.findVersionTagById(product.getId()));
+
+        assertTrue(productRepository.findVersionTagById(-1).isEmpty());
+    }
+
     @Test
     void shouldProductDeleted() {
         Product savedProduct = productRepository.save(product);
@@ -1,7 +1,9 @@
 package com.edwbadillo.storedemo.product;
 
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
 import com.edwbadillo.storedemo.exception.InvalidDataException;
+import com.edwbadillo.storedemo.product.cache.ProductDetailsCache;
 import com.edwbadillo.storedemo.product.category.Category;
 import com.edwbadillo.storedemo.product.category.CategoryRepository;
 import com.edwbadillo.storedemo.product.category.dto.CategoryInfo;
@@ -18,12 +20,12 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.List;
 import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -41,12 +43,17 @@ public class ProductServiceTest {
     @MockBean
     private ProductMapper productMapper;
 
+    @Autowired
+    private ProductDetailsCache productDetailsCache;
+
     private Product product;
     private Category category;
 
 
     @BeforeEach
     void setUp() {
+        // The cache is shared by the tests, products would be read from it instead of the mocks
+        productDetailsCache.invalidateAll();
         category = new Category(1, "Category 1", "Category description", true);
         product = new Product(1, "Product 1", "Product description", true, 19.9, 10, category);
     }
@@ -79,6 +86,24 @@ public class ProductServiceTest {
         assertEquals(page.getNumberOfElements(), result.numItems());
     }
 
+    @Test
+    void shouldPaginateProductsWithoutCount() {
+        Pageable pageable = Pageable.ofSize(1).withPage(0);
+        ProductInfo info = new ProductInfo(product.getId(), product.getName(), true, 19.9, 10);
+
+        when(productRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(List.of(product), pageable, true));
+        when(productMapper.getInfo(product)).thenReturn(info);
+
+        PageDTO<ProductInfo> result = service.paginate(pageable, PageTotals.NONE);
+
+        assertEquals(List.of(info), result.items());
+        assertNull(result.totalCount());
+        assertNull(result.totalPages());
+        assertTrue(result.hasNext());
+        verify(productRepository, never()).count();
+        verify(productRepository, never()).findAll(pageable);
+    }
+
     @Test
     void shouldGetProductById() {
         when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
@@ -0,0 +1,85 @@
+package com.edwbadillo.storedemo.product.cache;
+
+import com.edwbadillo.storedemo.product.category.dto.CategoryInfo;
+import com.edwbadillo.storedemo.product.dto.ProductDetails;
+import com.edwbadillo.storedemo.product.exception.ProductNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductDetailsCacheTest {
+
+    private LocalProductCacheBroadcast broadcast;
+    private ProductDetailsCache node1;
+    private ProductDetailsCache node2;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        // Two caches sharing the local broadcast stand in for two nodes
+        broadcast = new LocalProductCacheBroadcast();
+        node1 = new ProductDetailsCache(100, 300, broadcast, new SimpleMeterRegistry());
+        node2 = new ProductDetailsCache(100, 300, broadcast, new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void shouldLoadProductOnlyOnce() {
+        node1.get(1, this::load);
+        node1.get(1, this::load);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldInvalidateProductInEveryNode() {
+        node1.get(1, this::load);
+        node2.get(1, this::load);
+
+        node1.invalidateProduct(1);
+        node1.get(1, this::load);
+        node2.get(1, this::load);
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void shouldInvalidateProductsOfCategory() {
+        node2.get(1, this::load);
+        node2.get(2, this::load);
+
+        // Product 1 is in category 10, product 2 in category 20
+        node1.invalidateCategory(10);
+        node2.get(1, this::load);
+        node2.get(2, this::load);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheProductsNotFound() {
+        assertThrows(ProductNotFoundException.class, () -> node1.get(3, this::load));
+        assertThrows(ProductNotFoundException.class, () -> node1.get(3, this::load));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldParsePayload() {
+        ProductCacheInvalidation invalidation = ProductCacheInvalidation.category(10);
+
+        assertEquals(invalidation, ProductCacheInvalidation.fromPayload(invalidation.toPayload()));
+        assertThrows(IllegalArgumentException.class, () -> ProductCacheInvalidation.fromPayload("PRODUCT"));
+    }
+
+    private ProductDetails load(Integer id) {
+        loads.incrementAndGet();
+        if (id > 2) throw new ProductNotFoundException();
+        CategoryInfo category = new CategoryInfo(id * 10, "Category " + id, true);
+        return new ProductDetails(id, "Product " + id, "Description", true, 19.9, 10, category);
+    }
+}
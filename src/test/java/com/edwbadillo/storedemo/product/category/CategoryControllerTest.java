@@ -1,6 +1,7 @@
 package com.edwbadillo.storedemo.product.category;
 
 import com.edwbadillo.storedemo.common.PageDTO;
+import com.edwbadillo.storedemo.common.PageTotals;
 import com.edwbadillo.storedemo.exception.DataIntegrityException;
 import com.edwbadillo.storedemo.exception.InvalidDataException;
 import com.edwbadillo.storedemo.product.category.dto.CategoryData;
@@ -41,7 +42,7 @@ public class CategoryControllerTest {
                 true
         );
 
-        when(employeeService.paginate(any(Pageable.class))).thenReturn(new PageDTO<>(
+        when(employeeService.paginate(any(Pageable.class), eq(PageTotals.EXACT))).thenReturn(new PageDTO<>(
                 List.of(category),
                 1,
                 1,
@@ -0,0 +1,94 @@
+package com.edwbadillo.storedemo.product.change;
+
+import com.edwbadillo.storedemo.exception.ChangesCompactedException;
+import com.edwbadillo.storedemo.product.Product;
+import com.edwbadillo.storedemo.product.change.ProductChange.Operation;
+import com.edwbadillo.storedemo.product.category.Category;
+import com.edwbadillo.storedemo.product.dto.ProductChanges;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ProductChangeLogTest {
+
+    @Autowired
+    private ProductChangeLog changeLog;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Category category = new Category(1, "Category 1", "", true);
+
+    @BeforeEach
+    void setUp() {
+        // The feed is shared with the other tests writing products
+        jdbcTemplate.update("DELETE FROM product_change");
+        jdbcTemplate.update("DELETE FROM product_change_head");
+    }
+
+    @Test
+    void shouldReadChangesInSeqOrder() {
+        Product cup = new Product(1, "Cup", "", true, 2.5, 10, category);
+        Product plate = new Product(2, "Plate", "", true, 4, 5, category);
+        transactionTemplate.executeWithoutResult(status -> changeLog.record(Operation.CREATE, List.of(cup, plate)));
+        cup.setPrice(3);
+        transactionTemplate.executeWithoutResult(status -> changeLog.record(Operation.UPDATE, List.of(cup)));
+        transactionTemplate.executeWithoutResult(status -> changeLog.recordDelete(2));
+
+        ProductChanges first = changeLog.read(0, 2);
+        assertEquals(List.of(1L, 2L), first.changes().stream().map(ProductChanges.Change::seq).toList());
+        assertEquals(2, first.nextSince());
+        assertTrue(first.hasMore());
+
+        ProductChanges second = changeLog.read(first.nextSince(), 2);
+        assertEquals(2, second.changes().size());
+        assertFalse(second.hasMore());
+        assertEquals(Operation.UPDATE, second.changes().get(0).operation());
+        assertEquals(3.0, second.changes().get(0).price());
+        assertEquals(Operation.DELETE, second.changes().get(1).operation());
+        assertNull(second.changes().get(1).name());
+
+        ProductChanges last = changeLog.read(second.nextSince(), 2);
+        assertTrue(last.changes().isEmpty());
+        assertEquals(4, last.nextSince());
+    }
+
+    @Test
+    void shouldRecordOnlyInTransaction() {
+        assertThrows(IllegalTransactionStateException.class, () -> changeLog.recordDelete(1));
+    }
+
+    @Test
+    void shouldKeepLastChangeOfProductsWhenCompacted() {
+        Product cup = new Product(1, "Cup", "", true, 2.5, 10, category);
+        transactionTemplate.executeWithoutResult(status -> changeLog.record(Operation.CREATE, List.of(cup)));
+        transactionTemplate.executeWithoutResult(status -> changeLog.record(Operation.UPDATE, List.of(cup)));
+        transactionTemplate.executeWithoutResult(status -> changeLog.recordDelete(2));
+
+        // Past the retention of the updates, not of the deletes
+        changeLog.compact(Instant.now().plus(Duration.ofDays(2)));
+
+        ProductChanges changes = changeLog.read(0, 10);
+        assertEquals(List.of(2L, 3L), changes.changes().stream().map(ProductChanges.Change::seq).toList());
+
+        changeLog.compact(Instant.now().plus(Duration.ofDays(30)));
+
+        assertThrows(ChangesCompactedException.class, () -> changeLog.read(0, 10));
+        // A reader past the delete removed goes on
+        assertTrue(changeLog.read(3, 10).changes().isEmpty());
+    }
+}
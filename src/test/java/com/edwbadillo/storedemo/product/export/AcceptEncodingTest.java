@@ -0,0 +1,21 @@
+package com.edwbadillo.storedemo.product.export;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AcceptEncodingTest {
+
+    @Test
+    void shouldAcceptGzipUnlessQualityIsZero() {
+        assertTrue(AcceptEncoding.acceptsGzip("gzip, deflate, br"));
+        assertTrue(AcceptEncoding.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(AcceptEncoding.acceptsGzip("*"));
+
+        assertFalse(AcceptEncoding.acceptsGzip(null));
+        assertFalse(AcceptEncoding.acceptsGzip("deflate, br"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=0"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip; q=0.0, *"));
+        assertFalse(AcceptEncoding.acceptsGzip("*;q=0"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.edwbadillo.storedemo.product.export;
+
+import com.edwbadillo.storedemo.product.Product;
+import com.edwbadillo.storedemo.product.ProductRepository;
+import com.edwbadillo.storedemo.product.category.Category;
+import com.edwbadillo.storedemo.product.category.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ProductExportServiceTest {
+
+    @Autowired
+    private ProductExportService service;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Category category;
+    private Product first;
+    private Product second;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category(null, "Export category", "", true));
+        first = productRepository.save(new Product(null, "Cup, blue", "Says \"hi\"", true, 2.5, 10, category));
+        second = productRepository.save(new Product(null, "Plate", null, false, 4, 0, category));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void shouldExportCsv() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long written = service.export(output, ProductExportFormat.CSV, null);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals("id,name,description,isActive,price,quantity,categoryId,updatedAt", lines[0]);
+        assertTrue(lines[1].startsWith(first.getId() + ",\"Cup, blue\",\"Says \"\"hi\"\"\",true,2.5,10," + category.getId() + ","));
+        assertTrue(lines[2].startsWith(second.getId() + ",Plate,,false,4.0,0,"));
+    }
+
+    @Test
+    void shouldExportNdjsonChangedSince() throws Exception {
+        Instant since = productRepository.findById(second.getId()).orElseThrow().getUpdatedAt();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long written = service.export(output, ProductExportFormat.NDJSON, since);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertTrue(written >= 1);
+        assertEquals(written, lines.length);
+        assertTrue(lines[lines.length - 1].startsWith("{\"id\":" + second.getId() + ",\"name\":\"Plate\""));
+        assertEquals(0, service.export(new ByteArrayOutputStream(), ProductExportFormat.NDJSON, Instant.now().plusSeconds(60)));
+    }
+}
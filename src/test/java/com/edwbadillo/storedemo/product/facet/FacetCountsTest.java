@@ -0,0 +1,61 @@
+package com.edwbadillo.storedemo.product.facet;
+
+import com.edwbadillo.storedemo.product.ProductFilter;
+import com.edwbadillo.storedemo.product.dto.ProductFacets;
+import com.edwbadillo.storedemo.product.dto.ProductFacets.CategoryFacet;
+import com.edwbadillo.storedemo.product.dto.ProductFacets.PriceBucketFacet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FacetCountsTest {
+
+    private FacetCounts counts;
+
+    @BeforeEach
+    void setUp() {
+        counts = new FacetCounts(new double[]{10, 50});
+        counts.put(1, 1, 5, true, true);
+        counts.put(2, 1, 10, true, false);
+        counts.put(3, 1, 60, false, true);
+        counts.put(4, 2, 20, true, true);
+        counts.put(5, 2, 20, true, true);
+    }
+
+    @Test
+    void shouldCountProductsOfFilter() {
+        assertEquals(5, counts.count(ProductFilter.NONE));
+        assertEquals(3, counts.count(new ProductFilter(1, null, null, null, null)));
+        // 10 is included, 50 excluded
+        assertEquals(3, counts.count(new ProductFilter(null, 10.0, 50.0, true, null)));
+        assertEquals(3, counts.count(new ProductFilter(null, null, null, true, true)));
+    }
+
+    @Test
+    void shouldCountFacetsIgnoringTheirOwnFilter() {
+        ProductFacets facets = counts.facets(new ProductFilter(1, 10.0, 50.0, true, null));
+
+        assertEquals(1, facets.count());
+        assertEquals(List.of(new CategoryFacet(2, 2), new CategoryFacet(1, 1)), facets.categories());
+        assertEquals(
+                List.of(new PriceBucketFacet(0, 10.0, 1), new PriceBucketFacet(10, 50.0, 1), new PriceBucketFacet(50, null, 0)),
+                facets.prices()
+        );
+    }
+
+    @Test
+    void shouldMoveProductsWhenUpdatedOrRemoved() {
+        counts.put(4, 1, 100, true, false);
+        counts.remove(5);
+        counts.remove(99);
+
+        ProductFacets facets = counts.facets(ProductFilter.NONE);
+
+        assertEquals(4, facets.count());
+        assertEquals(List.of(new CategoryFacet(1, 4)), facets.categories());
+        assertEquals(2, facets.prices().get(2).count());
+    }
+}
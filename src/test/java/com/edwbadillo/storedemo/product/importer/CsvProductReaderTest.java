@@ -0,0 +1,53 @@
+package com.edwbadillo.storedemo.product.importer;
+
+import com.edwbadillo.storedemo.exception.InvalidDataException;
+import com.edwbadillo.storedemo.product.dto.ProductRegister;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvProductReaderTest {
+
+    @Test
+    void shouldReadQuotedValuesAndColumnsInAnyOrder() throws Exception {
+        List<ImportRow> rows = read("""
+                price,Name,categoryId,quantity,description
+                9.5,"Cup, blue",1,3,"Says ""hi""
+                on two lines"
+
+                10,Plate,2,0,
+                """);
+
+        assertEquals(2, rows.size());
+        assertEquals(new ProductRegister("Cup, blue", "Says \"hi\"\non two lines", true, 9.5, 3, 1), rows.get(0).data());
+        assertEquals(new ProductRegister("Plate", null, true, 10.0, 0, 2), rows.get(1).data());
+        assertEquals(2, rows.get(1).number());
+    }
+
+    @Test
+    void shouldReportValuesThatCantBeConverted() throws Exception {
+        List<ImportRow> rows = read("name,isActive,price,quantity,categoryId\r\nCup,maybe,abc,1,1\r\n");
+
+        assertNull(rows.get(0).data());
+        assertEquals(List.of("isActive", "price"), rows.get(0).errors().stream().map(error -> error.field()).toList());
+    }
+
+    @Test
+    void shouldRejectHeaderWithoutRequiredColumns() {
+        InvalidDataException exception = assertThrows(InvalidDataException.class, () -> read("name,price,quantity\n"));
+        assertEquals("The CSV has no categoryid column", exception.getMessage());
+    }
+
+    private static List<ImportRow> read(String csv) throws Exception {
+        List<ImportRow> rows = new ArrayList<>();
+        try (CsvProductReader reader = new CsvProductReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            reader.forEachRemaining(rows::add);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,78 @@
+package com.edwbadillo.storedemo.product.importer;
+
+import com.edwbadillo.storedemo.product.Product;
+import com.edwbadillo.storedemo.product.ProductRepository;
+import com.edwbadillo.storedemo.product.category.Category;
+import com.edwbadillo.storedemo.product.category.CategoryRepository;
+import com.edwbadillo.storedemo.product.dto.ProductImportResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService service;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Category category;
+    private Category inactiveCategory;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category(null, "Import category", "", true));
+        inactiveCategory = categoryRepository.save(new Category(null, "Inactive import category", "", false));
+        productRepository.save(new Product(null, "Existing", "", true, 1, 1, category));
+        // Small chunks, so the import spans several of them
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        categoryRepository.deleteAll(List.of(category, inactiveCategory));
+    }
+
+    @Test
+    void shouldImportValidProductsAndReportErrors() {
+        String ndjson = """
+                {"name": "Cup", "isActive": true, "price": 2.5, "quantity": 10, "categoryId": %1$d}
+                {"name": "existing", "isActive": true, "price": 1, "quantity": 1, "categoryId": %1$d}
+                {"name": "Plate", "isActive": true, "price": 4, "quantity": 5, "categoryId": %1$d}
+                {"name": "CUP", "isActive": true, "price": 2.5, "quantity": 10, "categoryId": %1$d}
+                {"name": "Bowl", "isActive": true, "price": 3, "quantity": 5, "categoryId": %2$d}
+                {"name": "", "isActive": true, "price": -1, "quantity": 5, "categoryId": %1$d}
+                not json
+                """.formatted(category.getId(), inactiveCategory.getId());
+
+        ProductImportResult result = service.importProducts(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ProductImportFormat.NDJSON
+        );
+
+        assertEquals(7, result.rows());
+        assertEquals(2, result.imported());
+        assertEquals(5, result.failed());
+        assertEquals(
+                List.of(2L, 4L, 5L, 6L, 7L),
+                result.errors().stream().map(ProductImportResult.RowErrors::row).sorted().toList()
+        );
+        assertTrue(productRepository.existsByNameIgnoreCase("cup"));
+        assertTrue(productRepository.existsByNameIgnoreCase("plate"));
+        assertEquals(3, productRepository.count());
+    }
+}
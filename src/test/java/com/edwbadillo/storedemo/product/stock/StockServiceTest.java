@@ -0,0 +1,158 @@
+package com.edwbadillo.storedemo.product.stock;
+
+import com.edwbadillo.storedemo.auth.userdetails.CustomerUserDetails;
+import com.edwbadillo.storedemo.product.Product;
+import com.edwbadillo.storedemo.product.ProductRepository;
+import com.edwbadillo.storedemo.product.cache.ProductDetailsCache;
+import com.edwbadillo.storedemo.product.category.Category;
+import com.edwbadillo.storedemo.product.category.CategoryRepository;
+import com.edwbadillo.storedemo.product.dto.StockReservationDetails;
+import com.edwbadillo.storedemo.product.exception.InsufficientStockException;
+import com.edwbadillo.storedemo.product.exception.ProductNotFoundException;
+import com.edwbadillo.storedemo.product.exception.ReservationNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class StockServiceTest {
+
+    @Autowired
+    private StockService service;
+
+    @Autowired
+    private HotStockPool hotStockPool;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductDetailsCache productDetailsCache;
+
+    private Category category;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category(null, "Stock category", "", true));
+        product = productRepository.save(new Product(null, "Stock product", "", true, 10, 5, category));
+
+        CustomerUserDetails customer = CustomerUserDetails.fromClaims(1, "Customer");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(customer, null, customer.getAuthorities())
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(service, "hotStockPool", hotStockPool);
+        SecurityContextHolder.clearContext();
+        stockReservationRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void shouldTakeUnitsAndGiveThemBackWhenReleased() {
+        long version = productRepository.findById(product.getId()).orElseThrow().getVersion();
+
+        StockReservationDetails reservation = service.reserve(product.getId(), 2);
+
+        Product reserved = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(3, reserved.getQuantity());
+        assertEquals(version + 1, reserved.getVersion());
+
+        service.release(reservation.id());
+
+        assertEquals(5, quantity());
+        assertThrows(ReservationNotFoundException.class, () -> service.release(reservation.id()));
+    }
+
+    @Test
+    void shouldNotTakeMoreUnitsThanAvailable() {
+        service.reserve(product.getId(), 5);
+
+        assertThrows(InsufficientStockException.class, () -> service.reserve(product.getId(), 1));
+        assertThrows(ProductNotFoundException.class, () -> service.reserve(-1, 1));
+        assertEquals(0, quantity());
+        assertEquals(1, stockReservationRepository.count());
+    }
+
+    @Test
+    void shouldKeepUnitsOfConfirmedReservations() {
+        StockReservationDetails reservation = service.reserve(product.getId(), 2);
+
+        service.confirm(reservation.id());
+
+        assertEquals(3, quantity());
+        assertEquals(0, stockReservationRepository.count());
+    }
+
+    @Test
+    void shouldGiveBackUnitsOfExpiredReservations() {
+        StockReservationDetails first = service.reserve(product.getId(), 1);
+        service.reserve(product.getId(), 2);
+        StockReservation expired = stockReservationRepository.findById(first.id()).orElseThrow();
+        expired.setExpiresAt(Instant.now().minusSeconds(1));
+        stockReservationRepository.save(expired);
+
+        ((StockServiceImpl) service).expireReservations();
+
+        assertEquals(3, quantity());
+        assertEquals(1, stockReservationRepository.count());
+    }
+
+    @Test
+    void shouldTakeChunksOfHotProducts() {
+        HotStockPool pool = new HotStockPool(List.of(product.getId()), 1, 2, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "hotStockPool", pool);
+
+        service.reserve(product.getId(), 1);
+        assertEquals(3, quantity());
+        service.reserve(product.getId(), 1);
+        assertEquals(3, quantity());
+
+        ((StockServiceImpl) service).drainAllPools();
+        service.reserve(product.getId(), 3);
+
+        assertEquals(0, quantity());
+        assertThrows(InsufficientStockException.class, () -> service.reserve(product.getId(), 1));
+    }
+
+    @Test
+    void shouldGiveBackUnitsOfDeactivatedHotProducts() {
+        HotStockPool pool = new HotStockPool(List.of(product.getId()), 1, 2, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "hotStockPool", pool);
+        service.reserve(product.getId(), 1);
+        assertEquals(3, quantity());
+
+        Product deactivated = productRepository.findById(product.getId()).orElseThrow();
+        deactivated.setActive(false);
+        productRepository.save(deactivated);
+        productDetailsCache.invalidateProduct(product.getId());
+
+        assertEquals(4, quantity());
+        assertThrows(InsufficientStockException.class, () -> service.reserve(product.getId(), 1));
+    }
+
+    private int quantity() {
+        return productRepository.findQuantityById(product.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,125 @@
+package com.edwbadillo.storedemo.product.stock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedStockTest {
+
+    /**
+     * Stock of the database, records the units taken.
+     */
+    private static class Database implements IntPredicate {
+        private int quantity;
+        private int attempts;
+        private final List<Integer> taken = new ArrayList<>();
+
+        Database(int quantity) {
+            this.quantity = quantity;
+        }
+
+        @Override
+        public boolean test(int units) {
+            attempts++;
+            if (quantity < units) return false;
+            quantity -= units;
+            taken.add(units);
+            return true;
+        }
+    }
+
+    @Test
+    void shouldTakeUnitsFromDatabaseInChunks() {
+        StripedStock stock = new StripedStock(1, 10);
+        Database database = new Database(100);
+
+        for (int i = 0; i < 12; i++) {
+            assertTrue(stock.take(1, database, 0));
+        }
+
+        assertEquals(List.of(10, 10), database.taken);
+        assertEquals(8, stock.available());
+    }
+
+    @Test
+    void shouldTakeOnlyMissingUnitsWhenDatabaseHasNoChunk() {
+        StripedStock stock = new StripedStock(1, 10);
+        Database database = new Database(3);
+
+        assertTrue(stock.take(2, database, 0));
+        assertFalse(stock.take(2, database, 0));
+        assertTrue(stock.take(1, database, 0));
+
+        assertEquals(List.of(2, 1), database.taken);
+        assertEquals(0, stock.available());
+    }
+
+    @Test
+    void shouldUseUnitsOfOtherStripesWhenDatabaseIsSoldOut() {
+        StripedStock stock = new StripedStock(2, 10);
+        Database database = new Database(10);
+
+        assertTrue(stock.take(1, database, 0));
+        // Whatever the stripe, the 9 units left are found
+        assertTrue(stock.take(9, database, 0));
+        assertFalse(stock.take(1, database, 0));
+    }
+
+    @Test
+    void shouldGatherUnitsOfSeveralStripes() {
+        StripedStock stock = new StripedStock(2, 10);
+        Database database = new Database(20);
+        // Until both stripes took a chunk
+        while (database.taken.size() < 2) {
+            assertTrue(stock.take(1, database, 0));
+        }
+
+        int left = stock.available();
+        assertTrue(left > 10);
+        assertFalse(stock.take(left + 1, database, 0));
+        assertEquals(left, stock.available());
+        assertTrue(stock.take(left, database, 0));
+        assertEquals(0, stock.available());
+    }
+
+    @Test
+    void shouldNotRefillWhileSoldOut() {
+        StripedStock stock = new StripedStock(1, 10);
+        Database database = new Database(0);
+
+        assertFalse(stock.take(1, database, 0));
+        int attempts = database.attempts;
+        assertFalse(stock.take(1, database, 1));
+        assertEquals(attempts, database.attempts);
+
+        database.quantity = 5;
+        stock.restocked();
+        assertTrue(stock.take(1, database, 2));
+
+        database.quantity = 0;
+        stock.drainUnusedSince(Long.MAX_VALUE);
+        assertFalse(stock.take(1, database, 3));
+        assertTrue(database.attempts > attempts + 1);
+        attempts = database.attempts;
+        assertFalse(stock.take(1, database, 3 + StripedStock.SOLD_OUT_RECHECK_NANOS));
+        assertTrue(database.attempts > attempts);
+    }
+
+    @Test
+    void shouldDrainUnusedStripes() {
+        StripedStock stock = new StripedStock(1, 10);
+        Database database = new Database(100);
+        stock.take(1, database, 100);
+
+        assertEquals(0, stock.drainUnusedSince(50));
+        assertEquals(9, stock.drainUnusedSince(150));
+        assertEquals(0, stock.available());
+
+        stock.giveBack(3);
+        assertEquals(3, stock.drainUnusedSince(Long.MAX_VALUE));
+    }
+}
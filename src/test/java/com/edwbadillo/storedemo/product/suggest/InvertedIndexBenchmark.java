@@ -0,0 +1,98 @@
+package com.edwbadillo.storedemo.product.suggest;
+
+import com.edwbadillo.storedemo.product.dto.ProductSuggestion;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the product suggestions over a synthetic catalog of 1M products, with names of
+ * three words and descriptions of ten words from a vocabulary of 50K words.
+ * <p>
+ * Run it from the IDE or with (it needs about 2 GB of heap):
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.edwbadillo.storedemo.product.suggest.InvertedIndexBenchmark
+ * </pre>
+ *
+ * @author edwbadillo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class InvertedIndexBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int WORDS = 50_000;
+    private static final char[] LETTERS = "abcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private InvertedIndex index;
+    private String[] vocabulary;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        Random setupRandom = new Random(42);
+        vocabulary = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            vocabulary[i] = randomWord(setupRandom);
+        }
+
+        index = new InvertedIndex();
+        for (int id = 1; id <= PRODUCTS; id++) {
+            index.put(id, words(setupRandom, 3), words(setupRandom, 10));
+        }
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public List<ProductSuggestion> shortPrefix() {
+        return index.suggest(vocabulary[random.nextInt(WORDS)].substring(0, 2), 10);
+    }
+
+    @Benchmark
+    public List<ProductSuggestion> longPrefix() {
+        return index.suggest(vocabulary[random.nextInt(WORDS)].substring(0, 4), 10);
+    }
+
+    @Benchmark
+    public List<ProductSuggestion> wordAndPrefix() {
+        String word = vocabulary[random.nextInt(WORDS)];
+        return index.suggest(word + " " + vocabulary[random.nextInt(WORDS)].substring(0, 3), 10);
+    }
+
+    @Benchmark
+    public void update() {
+        int id = random.nextInt(PRODUCTS) + 1;
+        index.put(id, words(random, 3), words(random, 10));
+    }
+
+    private String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) text.append(' ');
+            text.append(vocabulary[random.nextInt(WORDS)]);
+        }
+        return text.toString();
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = LETTERS[random.nextInt(LETTERS.length)];
+        }
+        return new String(word);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InvertedIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,93 @@
+package com.edwbadillo.storedemo.product.suggest;
+
+import com.edwbadillo.storedemo.product.dto.ProductSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.put(1, "Blue Cup", "Ceramic cup");
+        index.put(2, "Red Cup", "Plastic, dishwasher safe");
+        index.put(3, "Blender", "Blue glass jar");
+        index.put(4, "Canción de cuna", null);
+    }
+
+    @Test
+    void shouldTokenizeLowerCaseWithoutAccents() {
+        assertEquals(List.of("cancion", "de", "cuna", "2"), InvertedIndex.tokenize("Canción de CUNA, 2 (de)"));
+        assertEquals(List.of(), InvertedIndex.tokenize(" -- "));
+    }
+
+    @Test
+    void shouldSuggestNameMatchesBeforeDescriptionMatches() {
+        assertEquals(
+                List.of(new ProductSuggestion(3, "Blender"), new ProductSuggestion(1, "Blue Cup")),
+                index.suggest("bl", 10)
+        );
+        assertEquals(List.of(new ProductSuggestion(3, "Blender")), index.suggest("gla", 10));
+        assertEquals(List.of(new ProductSuggestion(4, "Canción de cuna")), index.suggest("canci", 10));
+    }
+
+    @Test
+    void shouldRequirePreviousWords() {
+        assertEquals(List.of(new ProductSuggestion(1, "Blue Cup")), index.suggest("blue c", 10));
+        assertEquals(List.of(new ProductSuggestion(3, "Blender")), index.suggest("glass b", 10));
+        assertEquals(List.of(), index.suggest("green c", 10));
+    }
+
+    @Test
+    void shouldLimitSuggestions() {
+        assertEquals(1, index.suggest("c", 1).size());
+        assertEquals(List.of(), index.suggest("", 10));
+    }
+
+    @Test
+    void shouldReplaceAndRemoveProducts() {
+        index.put(1, "Green Mug", null);
+
+        assertEquals(List.of(new ProductSuggestion(3, "Blender")), index.suggest("bl", 10));
+        assertEquals(List.of(new ProductSuggestion(1, "Green Mug")), index.suggest("mu", 10));
+        assertEquals(List.of(), index.suggest("ceramic", 10));
+
+        index.remove(2);
+        index.remove(99);
+
+        assertEquals(List.of(), index.suggest("plastic", 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void shouldRemoveDescriptionTermsOfProductsBeyondInitialCapacity() {
+        index.put(5000, "Teapot", "Blue ceramic");
+        assertEquals(List.of(new ProductSuggestion(1, "Blue Cup"), new ProductSuggestion(5000, "Teapot")),
+                index.suggest("ceram", 10));
+
+        index.put(5000, "Teapot", "Iron");
+        assertEquals(List.of(new ProductSuggestion(1, "Blue Cup")), index.suggest("ceram", 10));
+
+        index.remove(5000);
+        assertEquals(List.of(), index.suggest("iron", 10));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void shouldKeepPostingsSortedWhenIdsComeOutOfOrder() {
+        InvertedIndex.Postings postings = new InvertedIndex.Postings();
+        for (int id : new int[]{5, 1, 9, 3, 5, 7}) postings.add(id);
+
+        assertTrue(postings.contains(3));
+        assertTrue(postings.remove(5));
+        assertFalse(postings.remove(5));
+        assertFalse(postings.contains(5));
+        assertTrue(postings.contains(9));
+    }
+}